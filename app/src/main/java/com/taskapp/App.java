@@ -1,11 +1,508 @@
 package com.taskapp;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.taskapp.api.TaskApiServer;
+import com.taskapp.config.AppConfig;
+import com.taskapp.dataaccess.FixedWidthTaskDataAccess;
+import com.taskapp.dataaccess.JdbcLogDataAccess;
+import com.taskapp.dataaccess.JdbcStorage;
+import com.taskapp.dataaccess.JdbcTaskDataAccess;
+import com.taskapp.dataaccess.JdbcUserDataAccess;
+import com.taskapp.dataaccess.LogCompactor;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.LsmLogDataAccess;
+import com.taskapp.dataaccess.LsmLogStore;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.ShardRouter;
+import com.taskapp.logic.TaskImporter;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.logic.WarmUp;
+import com.taskapp.model.TaskTable;
+import com.taskapp.model.User;
+import com.taskapp.replication.ReplicationFollower;
+import com.taskapp.replication.ReplicationLeader;
+import com.taskapp.ui.ScriptRunner;
 import com.taskapp.ui.TaskUI;
+import com.taskapp.util.IntHashSet;
 
 public class App {
 
     public static void main(String[] args) {
-        TaskUI ui = new TaskUI();
+        Path snapshotPath = null;
+        String configPath = System.getenv().getOrDefault("TASKAPP_CONFIG", "taskapp.properties");
+        Path importPath = null;
+        String scriptPath = null;
+        int httpPort = -1;
+        String httpBind = null;
+        String logStore = "csv";
+        String logStorePath = "app/data/logs";
+        boolean compactLogs = false;
+        boolean compactSort = false;
+        String convertTasks = null;
+        String storage = "csv";
+        String databasePath = "app/data/taskapp";
+        String project = null;
+        String dataRoot = "app/data/projects";
+        int replicatePort = -1;
+        String followAddress = null;
+        String replicaPath = "app/data/replica";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--config") && i + 1 < args.length) {
+                configPath = args[++i];
+            } else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                snapshotPath = Paths.get(args[++i]);
+            } else if (args[i].equals("--storage") && i + 1 < args.length) {
+                storage = args[++i];
+            } else if (args[i].equals("--db") && i + 1 < args.length) {
+                databasePath = args[++i];
+            } else if (args[i].equals("--import") && i + 1 < args.length) {
+                importPath = Paths.get(args[++i]);
+            } else if (args[i].equals("--script") && i + 1 < args.length) {
+                scriptPath = args[++i];
+            } else if (args[i].equals("--log-store") && i + 1 < args.length) {
+                logStore = args[++i];
+            } else if (args[i].equals("--log-dir") && i + 1 < args.length) {
+                logStorePath = args[++i];
+            } else if (args[i].equals("--compact-logs")) {
+                compactLogs = true;
+            } else if (args[i].equals("--compact-sort")) {
+                compactSort = true;
+            } else if (args[i].equals("--convert-tasks") && i + 1 < args.length) {
+                convertTasks = args[++i];
+            } else if (args[i].equals("--project") && i + 1 < args.length) {
+                project = args[++i];
+            } else if (args[i].equals("--data-root") && i + 1 < args.length) {
+                dataRoot = args[++i];
+            } else if (args[i].equals("--replicate") && i + 1 < args.length) {
+                replicatePort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--follow") && i + 1 < args.length) {
+                followAddress = args[++i];
+            } else if (args[i].equals("--replica-dir") && i + 1 < args.length) {
+                replicaPath = args[++i];
+            } else if (args[i].equals("--http") && i + 1 < args.length) {
+                httpPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--http-bind") && i + 1 < args.length) {
+                httpBind = args[++i];
+            }
+        }
+
+        // 設定ファイル(既定はtaskapp.properties)と環境変数から、データの置き場所と入出力の設定を読み込む
+        AppConfig config;
+        try {
+            config = AppConfig.load(Paths.get(configPath), System.getenv());
+        } catch (AppException e) {
+            System.out.println(e.getMessage());
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        UserDataAccess userDataAccess = new UserDataAccess(config.getUsersFile(), config);
+        TaskDataAccess taskDataAccess = new TaskDataAccess(config.getTasksFile(), userDataAccess, config);
+        LogDataAccess logDataAccess = new LogDataAccess(config.getLogsFile(), config);
+
+        // プロジェクトを指定した場合は、そのプロジェクトのディレクトリのデータを使う
+        // 固定長のファイル・H2・LSMのログストアはプロジェクトごとに分けていないため、組み合わせられない
+        ShardRouter router = new ShardRouter(Paths.get(dataRoot), config);
+        ShardRouter.Shard shard = null;
+        if (project != null) {
+            if (!storage.equals("csv") || !logStore.equals("csv")) {
+                System.out.println("--projectは--storage csv・--log-store csvの場合だけ指定できます");
+                return;
+            }
+            try {
+                shard = router.shard(project);
+                userDataAccess = shard.userDataAccess();
+                taskDataAccess = shard.taskDataAccess();
+                logDataAccess = shard.logDataAccess();
+            } catch (AppException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+        }
+        // フォロワーとして動作する場合は、レプリカのディレクトリのデータを使う
+        if (followAddress != null) {
+            try {
+                Path replicaDirectory = createDataDirectory(Paths.get(replicaPath));
+                taskDataAccess = new TaskDataAccess(replicaDirectory.resolve("tasks.csv").toString(), userDataAccess,
+                        config);
+                logDataAccess = new LogDataAccess(replicaDirectory.resolve("logs.csv").toString(), config);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        if (compactLogs) {
+            runCompaction(taskDataAccess, logDataAccess, compactSort);
+            return;
+        }
+        FixedWidthTaskDataAccess fixedWidthTaskDataAccess = new FixedWidthTaskDataAccess(shard != null
+                ? shard.directory().resolve("tasks.fixed").toString() : config.getFixedWidthTasksFile(),
+                userDataAccess, config);
+        if (convertTasks != null) {
+            runTaskConversion(taskDataAccess, fixedWidthTaskDataAccess, convertTasks);
+            return;
+        }
+
+        TaskRepository taskRepository = taskDataAccess;
+        LogRepository logRepository = logDataAccess;
+        UserRepository userRepository = userDataAccess;
+        WarmUp warmUp = null;
+        if (storage.equals("h2")) {
+            JdbcStorage jdbcStorage = JdbcStorage.h2(databasePath);
+            jdbcStorage.createSchema();
+            // 初回はCSVのデータをデータベースに移行する
+            if (jdbcStorage.isEmpty()) {
+                jdbcStorage.importFrom(userDataAccess, taskDataAccess, logDataAccess);
+            }
+            taskRepository = new JdbcTaskDataAccess(jdbcStorage);
+            logRepository = new JdbcLogDataAccess(jdbcStorage);
+            userRepository = new JdbcUserDataAccess(jdbcStorage);
+        } else if (storage.equals("fixed")) {
+            // 初回はtasks.csvのタスクを固定長の形式に変換する
+            if (!Files.exists(Paths.get(config.getFixedWidthTasksFile()))) {
+                try {
+                    fixedWidthTaskDataAccess.convertFrom(taskDataAccess);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+            taskRepository = fixedWidthTaskDataAccess;
+        } else {
+            // 最初の入力を受け付ける前に、全てのデータを読み込んでおく
+            warmUp = new WarmUp(taskDataAccess, logDataAccess, userDataAccess);
+            WarmUp.Result result = warmUp.run(snapshotPath);
+            result.violations().forEach(v -> System.out.println("警告: " + v));
+            System.out.println("データを読み込みました(ユーザー: " + result.userCount() + "件, タスク: " + result.taskCount()
+                    + "件, ログ: " + result.logCount() + "件, " + result.elapsedMillis() + "ms)");
+        }
+
+        if (!storage.equals("h2") && logStore.equals("lsm")) {
+            LsmLogStore lsmLogStore = openLogStore(Paths.get(logStorePath), logDataAccess, config);
+            if (lsmLogStore == null) return;
+            logRepository = new LsmLogDataAccess(lsmLogStore);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        UserLogic userLogic;
+        TaskLogic taskLogic;
+        if (shard != null && followAddress == null) {
+            // HTTPの/projects/{project}/tasksと同じTaskLogicを使い、採番・データのバージョン・ロック・
+            // レプリケーションのイベントをプロジェクトごとに1つにする
+            userLogic = shard.userLogic();
+            taskLogic = shard.taskLogic();
+        } else {
+            userLogic = new UserLogic(userRepository);
+            taskLogic = new TaskLogic(taskRepository, logRepository, userRepository);
+        }
+
+        if (followAddress != null) {
+            runFollower(reader, userLogic, taskLogic, logRepository, parseAddress(followAddress),
+                    httpPort >= 0 ? httpAddress(httpBind, httpPort) : null, replicatePort);
+            return;
+        }
+        if (replicatePort >= 0 && startLeader(taskLogic, logRepository, replicatePort) == null) return;
+
+        if (importPath != null) {
+            runImport(reader, userLogic, taskLogic, importPath);
+            return;
+        }
+        if (scriptPath != null) {
+            runScript(userLogic, taskLogic, scriptPath);
+            return;
+        }
+        if (httpPort >= 0) {
+            runHttp(userLogic, taskLogic, router, httpAddress(httpBind, httpPort));
+            return;
+        }
+
+        TaskUI ui = new TaskUI(reader, userLogic, taskLogic);
         ui.displayMenu();
+
+        // ログアウトで正常に終了した場合だけ、次回の起動用にスナップショットを書き込む
+        if (warmUp != null && snapshotPath != null) {
+            try {
+                warmUp.writeSnapshot(snapshotPath);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * logs.csvを整理します。
+     * tasks.csvに存在しないタスクの行と重複した行を取り除き、sortがtrueであればタスクコード・変更日の順に並べ替える
+     */
+    private static void runCompaction(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, boolean sort) {
+        IntHashSet taskCodes = new IntHashSet();
+        TaskTable tasks = taskDataAccess.loadTable();
+        for (int i = 0; i < tasks.size(); i++) {
+            taskCodes.add(tasks.codeAt(i));
+        }
+        try {
+            LogCompactor.Result result = logDataAccess.compact(taskCodes::contains, sort,
+                    LogCompactor.DEFAULT_MAX_RECORDS_IN_MEMORY);
+            System.out.println("ログを整理しました(読み込み: " + result.read() + "件, 削除されたタスク: "
+                    + result.removedDeleted() + "件, 重複: " + result.removedDuplicate() + "件, 不正な行: "
+                    + result.malformed() + "件, 書き出し: " + result.written() + "件, " + result.elapsedMillis() + "ms)");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * tasks.csvと、固定長の形式のtasks.fixedを変換します。
+     * toがfixedの場合はtasks.csvからtasks.fixedを作成し、csvの場合はtasks.fixedのタスクでtasks.csvを置き換える
+     */
+    private static void runTaskConversion(TaskDataAccess taskDataAccess, FixedWidthTaskDataAccess fixedWidthTaskDataAccess,
+            String to) {
+        long start = System.nanoTime();
+        int count;
+        try {
+            if (to.equals("fixed")) {
+                count = fixedWidthTaskDataAccess.convertFrom(taskDataAccess);
+            } else if (to.equals("csv")) {
+                count = fixedWidthTaskDataAccess.convertTo(taskDataAccess);
+            } else {
+                System.out.println("--convert-tasksにはfixedまたはcsvを指定してください");
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println("タスクを変換しました(" + count + "件, " + (System.nanoTime() - start) / 1_000_000 + "ms)");
+    }
+
+    /**
+     * LSM方式のログストアを開きます。
+     * ストアのディレクトリを新しく作成した場合だけ、logs.csvのログを移行する
+     * (ストアを使っている間はlogs.csvを更新しないため、全てのログを削除した後に移行し直すと、削除したログが戻ってしまう)
+     * プロセスの終了時にストアを閉じる
+     * WALのfsyncは設定に従う
+     * @return 開いたストア。開けなかった場合はnull
+     */
+    private static LsmLogStore openLogStore(Path directory, LogDataAccess logDataAccess, AppConfig config) {
+        try {
+            LsmLogStore store = new LsmLogStore(directory, config);
+            if (store.isCreated()) {
+                store.appendAll(logDataAccess.loadTable().toRows());
+                store.flush();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+            return store;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * ログイン後、CSVファイルのタスクをまとめて登録します。
+     * 登録できなかった行は、入力ファイルと同じ場所の「入力ファイル名.rejects.csv」に書き出す
+     */
+    private static void runImport(BufferedReader reader, UserLogic userLogic, TaskLogic taskLogic, Path importPath) {
+        try {
+            User loginUser = login(reader, userLogic);
+            Path rejectPath = importPath.resolveSibling(importPath.getFileName() + ".rejects.csv");
+            TaskImporter.Result result = taskLogic.importTasks(importPath, rejectPath, loginUser);
+            System.out.println(result.imported() + "件のタスクを登録しました。(登録できなかった行: " + result.rejected()
+                    + "件, " + result.elapsedMillis() + "ms)");
+            if (result.rejected() > 0) {
+                System.out.println("登録できなかった行は " + rejectPath + " に書き出しました。");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * スクリプトのコマンドを実行します。
+     * パスに「-」を指定した場合は標準入力からコマンドを読み込む
+     */
+    private static void runScript(UserLogic userLogic, TaskLogic taskLogic, String scriptPath) {
+        try (BufferedReader script = scriptPath.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(scriptPath))) {
+            new ScriptRunner(script, userLogic, taskLogic).run();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * HTTP/JSONのAPIサーバーを起動します。
+     * /projects/{project}/tasks以下では、プロジェクトごとのデータを操作できる
+     * プロセスが終了するまで待ち受け、終了時にサーバーを停止する
+     */
+    private static void runHttp(UserLogic userLogic, TaskLogic taskLogic, ShardRouter router,
+            InetSocketAddress address) {
+        try {
+            TaskApiServer server = new TaskApiServer(address, userLogic, taskLogic, router);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+            System.out.println("http://" + address.getHostString() + ":" + server.getPort() + "/tasks で待ち受けています。");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * レプリケーションのリーダーを起動し、フォロワーの接続を待ち受けます。
+     * 同じマシンのフォロワーだけが接続できるように、ループバックアドレスで待ち受ける
+     * @return 起動したリーダー。起動できなかった場合はnull
+     */
+    private static ReplicationLeader startLeader(TaskLogic taskLogic, LogRepository logRepository, int port) {
+        try {
+            ReplicationLeader leader = new ReplicationLeader(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port), taskLogic, logRepository);
+            Runtime.getRuntime().addShutdownHook(new Thread(leader::close));
+            leader.start();
+            System.out.println("レプリケーションのリーダーとして、ポート" + leader.getPort() + "で待ち受けています。");
+            return leader;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * レプリケーションのフォロワーとして動作します。
+     * リーダーの変更をレプリカのデータに反映しながら、タスク一覧の表示だけを受け付ける
+     * httpAddressを指定した場合は、読み取り専用のHTTP/JSONのAPIも公開する
+     * 昇格を選ぶと追従をやめ、レプリカのデータで通常のメニューを開始する
+     * (replicatePortを指定した場合は、昇格後に自身がリーダーとして待ち受ける)
+     */
+    private static void runFollower(BufferedReader reader, UserLogic userLogic, TaskLogic taskLogic,
+            LogRepository logRepository, InetSocketAddress leaderAddress, InetSocketAddress httpAddress,
+            int replicatePort) {
+        ReplicationFollower follower = new ReplicationFollower(leaderAddress, taskLogic);
+        follower.start();
+        TaskApiServer server = null;
+        try {
+            if (httpAddress != null) {
+                server = new TaskApiServer(httpAddress, userLogic, taskLogic);
+                server.setReadOnly(true);
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                server.start();
+                System.out.println("http://" + httpAddress.getHostString() + ":" + server.getPort()
+                        + "/tasks で読み取り専用で待ち受けています。");
+            }
+            User loginUser = login(reader, userLogic);
+            while (true) {
+                System.out.println("フォロワーとして動作しています。(リーダー: " + leaderAddress.getHostString() + ":"
+                        + leaderAddress.getPort() + ", " + (follower.isConnected() ? "接続中" : "未接続")
+                        + ", 適用済みの変更: " + follower.getAppliedSequence() + ")");
+                System.out.println("以下1~3のメニューから好きな選択肢を選んでください。");
+                System.out.println("1. タスク一覧, 2. リーダーに昇格, 3. 終了");
+                System.out.print("選択肢：");
+                String selectMenu = reader.readLine();
+                System.out.println();
+                if (selectMenu == null || selectMenu.equals("3")) {
+                    follower.close();
+                    return;
+                } else if (selectMenu.equals("1")) {
+                    taskLogic.showAll(loginUser);
+                } else if (selectMenu.equals("2")) {
+                    follower.promote();
+                    System.out.println("リーダーに昇格しました。(適用済みの変更: " + follower.getAppliedSequence() + ")");
+                    if (server != null) server.setReadOnly(false);
+                    if (replicatePort >= 0) startLeader(taskLogic, logRepository, replicatePort);
+                    new TaskUI(reader, userLogic, taskLogic).displayMenu();
+                    return;
+                } else {
+                    System.out.println("選択肢が誤っています。1~3の中から選択してください。");
+                }
+                System.out.println();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            follower.close();
+        }
+    }
+
+    /**
+     * HTTP/JSONのAPIで待ち受けるアドレスを返します。
+     * APIには認証がないため、既定では同じマシンからだけ接続できるようにループバックアドレスで待ち受ける
+     * 他のマシンに公開する場合は、--http-bindで待ち受けるアドレスを明示する(すべてのインターフェースは0.0.0.0)
+     * @param bind --http-bindで指定したアドレス。指定していない場合はnull
+     * @param port ポート番号
+     * @return 待ち受けるアドレス
+     */
+    private static InetSocketAddress httpAddress(String bind, int port) {
+        if (bind == null) return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        return new InetSocketAddress(bind, port);
+    }
+
+    /**
+     * 「ホスト名:ポート」の形式の文字列をアドレスに変換します。
+     * ホスト名を省略した場合はループバックアドレスを使う
+     */
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address.substring(colon + 1)));
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    /**
+     * データのディレクトリを作成し、tasks.csv・logs.csvがなければヘッダーだけのファイルを作成します。
+     * @return 作成したディレクトリ
+     */
+    private static Path createDataDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path tasksPath = directory.resolve("tasks.csv");
+        if (!Files.exists(tasksPath)) {
+            Files.writeString(tasksPath, "Code,Name,Status,Rep_User_Code");
+        }
+        Path logsPath = directory.resolve("logs.csv");
+        if (!Files.exists(logsPath)) {
+            Files.writeString(logsPath, "Task_Code,Change_User_Code,Status,Change_Date");
+        }
+        return directory;
+    }
+
+    /**
+     * 標準入力からメールアドレスとパスワードを受け取り、ログインします。
+     * ログインできるまで繰り返す
+     */
+    private static User login(BufferedReader reader, UserLogic userLogic) throws IOException {
+        while (true) {
+            System.out.print("メールアドレスを入力してください: ");
+            String email = reader.readLine();
+            System.out.print("パスワードを入力してください: ");
+            String password = reader.readLine();
+            if (email == null || password == null) {
+                throw new IOException("ログイン情報の入力が終了しました");
+            }
+            try {
+                return userLogic.login(email, password);
+            } catch (AppException e) {
+                System.out.println(e.getMessage());
+            }
+        }
     }
 }
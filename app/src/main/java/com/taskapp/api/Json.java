@@ -0,0 +1,158 @@
+package com.taskapp.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * APIで使う最小限のJSONの読み書きを行います。
+ * リクエストは、値が文字列・数値・真偽値・nullだけの1階層のオブジェクトのみを受け付けます。
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * 文字列をJSONの文字列リテラルに変換します。
+     * @param value 変換する文字列(nullの場合はnullリテラル)
+     * @return JSONの文字列リテラル
+     */
+    static String quote(String value) {
+        if (value == null) return "null";
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 1階層のJSONオブジェクトを読み込みます。
+     * 値は文字列として返し、nullリテラルの値はnullとする
+     * @param text JSONの文字列
+     * @return キーと値のマップ
+     * @throws IllegalArgumentException JSONの形式が正しくない場合にスローされます
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> values = parser.object();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) throw parser.error();
+        return values;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> values = new HashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                values.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') return values;
+                if (c != ',') throw error();
+            }
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') return string();
+            int start = pos;
+            while (!atEnd() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) pos++;
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error();
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) throw error();
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error();
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        private char peek() {
+            if (atEnd()) throw error();
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            if (atEnd()) throw error();
+            return text.charAt(pos++);
+        }
+
+        private void expect(char c) {
+            if (next() != c) throw error();
+        }
+
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("JSONの形式が正しくありません(" + pos + "文字目)");
+        }
+    }
+}
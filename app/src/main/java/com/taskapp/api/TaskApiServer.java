@@ -0,0 +1,411 @@
+package com.taskapp.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.ShardRouter;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogic・UserLogicの操作をHTTP/JSONで公開する組み込みサーバーです。
+ * リクエストは決まった数のスレッド(CPUの数の2倍、4~16)で処理し、認証にはBasic認証(メールアドレスとパスワード)を使います。
+ * TaskLogicやDataAccessはsynchronizedのロックを持ったままファイルを読み書きするため、
+ * 仮想スレッドではキャリアスレッドを占有してしまいます。そのため通常のスレッドの数を制限して使います。
+ *
+ * <pre>
+ * GET    /tasks               タスクの一覧
+ * GET    /tasks/{code}        タスクの取得
+ * POST   /tasks               タスクの登録 {"code": 5, "name": "...", "repUserCode": 1}(codeを省略すると自動で採番)
+ * PUT    /tasks/{code}/status ステータスの変更 {"status": 1}
+ * DELETE /tasks/{code}        タスクの削除
+ * </pre>
+ *
+ * ShardRouterを指定した場合は、/projects/{project}/tasks以下で同じ操作をプロジェクトごとのデータに対して行えます。
+ *
+ * 読み取り専用にした場合(レプリケーションのフォロワーなど)は、GET以外のリクエストに503を返します。
+ *
+ * GETの応答には、プロセスごとに決めるエポック・TaskLogicのデータのバージョン・保存先の状態を組み合わせたETagを付け、
+ * If-None-Matchが一致する場合はタスクを読み込まずに304を返します。
+ * エポックにより再起動後にバージョンが0から数え直されても前のETagと一致せず、
+ * 保存先の状態により他のプロセスや別のDataAccessからの変更でもETagが変わります。
+ */
+public class TaskApiServer implements AutoCloseable {
+    private static final String JSON_TYPE = "application/json; charset=UTF-8";
+
+    private static final int THREADS = Math.max(4, Math.min(16, Runtime.getRuntime().availableProcessors() * 2));
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final ShardRouter router;
+
+    private final Map<TaskLogic, ListCache> listCaches = new ConcurrentHashMap<>();
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private volatile boolean readOnly;
+
+    /**
+     * 指定したアドレスで待ち受けるサーバーを生成します。
+     * 生成しただけでは待ち受けを開始しないため、startを呼び出す
+     * @param address 待ち受けるアドレス(ポートに0を指定すると空いているポートを使う)
+     * @param userLogic 認証に使うUserLogic
+     * @param taskLogic タスクの操作に使うTaskLogic
+     * @throws IOException ポートを開けなかった場合にスローされます
+     */
+    public TaskApiServer(InetSocketAddress address, UserLogic userLogic, TaskLogic taskLogic) throws IOException {
+        this(address, userLogic, taskLogic, null);
+    }
+
+    /**
+     * 指定したアドレスで待ち受けるサーバーを生成します。
+     * routerを指定した場合は、/projects/{project}/tasks以下をプロジェクトのシャードで処理する
+     * @param address 待ち受けるアドレス(ポートに0を指定すると空いているポートを使う)
+     * @param userLogic 認証に使うUserLogic
+     * @param taskLogic /tasks以下の操作に使うTaskLogic
+     * @param router プロジェクトのシャードを選ぶShardRouter(使わない場合はnull)
+     * @throws IOException ポートを開けなかった場合にスローされます
+     */
+    public TaskApiServer(InetSocketAddress address, UserLogic userLogic, TaskLogic taskLogic, ShardRouter router)
+            throws IOException {
+        this.router = router;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "taskapp-api-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/tasks", exchange -> handle(exchange, userLogic, taskLogic, 0));
+        if (router != null) {
+            server.createContext("/projects/", this::handleProject);
+        }
+        server.setExecutor(executor);
+    }
+
+    /**
+     * 待ち受けを開始します。
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 読み取り専用にするかを設定します。
+     * 読み取り専用の間は、タスクの登録・変更・削除を受け付けない
+     * @param readOnly 読み取り専用にする場合はtrue
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * 待ち受けているポートを返します。
+     * @return ポート番号
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 待ち受けを終了し、処理中のリクエストの完了を待ちます。
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    /**
+     * /projects/{project}/tasks以下のリクエストを、プロジェクトのシャードで処理します。
+     * プロジェクト名が正しくない場合は404を返す
+     */
+    private void handleProject(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length < 4 || !path[3].equals("tasks")) {
+            try (exchange) {
+                sendError(exchange, 404, "見つかりません");
+            }
+            return;
+        }
+        ShardRouter.Shard shard;
+        try {
+            shard = router.shard(path[2]);
+        } catch (AppException e) {
+            try (exchange) {
+                sendError(exchange, 404, e.getMessage());
+            }
+            return;
+        }
+        handle(exchange, shard.userLogic(), shard.taskLogic(), 2);
+    }
+
+    /**
+     * tasks以下のリクエストを処理します。
+     * 実装の流れ
+     * パスがtasksそのもの、またはtasks/以下でない場合(/tasksXYZなど)は404を返す
+     * Basic認証でユーザーを確認し、認証できない場合は401を返す
+     * パスとメソッドから処理を選び、結果をJSONで返す
+     * AppException(JSONの形式が正しくない場合を含む)は400として、メッセージを返す
+     * それ以外の実行時例外は、スタックトレースを出力して500を返す(応答を送り始めた後の場合は接続を閉じるだけ)
+     *
+     * @param offset パスのうち、tasksより前にある区切りの数(/projects/{project}の場合は2)
+     */
+    private void handle(HttpExchange exchange, UserLogic userLogic, TaskLogic taskLogic, int offset)
+            throws IOException {
+        try (exchange) {
+            try {
+                route(exchange, userLogic, taskLogic, offset);
+            } catch (AppException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                if (exchange.getResponseCode() == -1) {
+                    sendError(exchange, 500, "サーバーでエラーが発生しました");
+                }
+            }
+        }
+    }
+
+    /**
+     * 認証したうえで、パスとメソッドから処理を選びます。
+     */
+    private void route(HttpExchange exchange, UserLogic userLogic, TaskLogic taskLogic, int offset)
+            throws IOException, AppException {
+        String[] segments = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+        if (segments.length < offset + 2 || !segments[offset + 1].equals("tasks")) {
+            sendError(exchange, 404, "見つかりません");
+            return;
+        }
+        User loginUser = authenticate(exchange, userLogic);
+        if (loginUser == null) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"taskapp\", charset=\"UTF-8\"");
+            sendError(exchange, 401, "メールアドレスとパスワードで認証してください");
+            return;
+        }
+        String[] path = new String[segments.length - offset];
+        path[0] = "";
+        System.arraycopy(segments, offset + 1, path, 1, path.length - 1);
+        String method = exchange.getRequestMethod();
+        if (readOnly && !method.equals("GET")) {
+            sendError(exchange, 503, "読み取り専用のため、タスクを変更できません");
+            return;
+        }
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> list(exchange, taskLogic);
+                case "POST" -> create(exchange, taskLogic, loginUser);
+                default -> sendError(exchange, 405, "このメソッドは使えません: " + method);
+            }
+            return;
+        }
+        Integer code = path.length >= 3 ? parseCode(path[2]) : null;
+        if (code == null) {
+            sendError(exchange, 404, "見つかりません");
+        } else if (path.length == 3 && method.equals("GET")) {
+            get(exchange, taskLogic, code);
+        } else if (path.length == 3 && method.equals("DELETE")) {
+            taskLogic.delete(code);
+            send(exchange, 204, null, null);
+        } else if (path.length == 4 && path[3].equals("status") && method.equals("PUT")) {
+            changeStatus(exchange, taskLogic, code, loginUser);
+        } else if (path.length <= 4) {
+            sendError(exchange, 405, "このメソッドは使えません: " + method);
+        } else {
+            sendError(exchange, 404, "見つかりません");
+        }
+    }
+
+    /**
+     * タスクの一覧を返します。
+     * ETagがIf-None-Matchと一致すれば304を返す
+     * 同じETagで作った応答があれば、タスクを読み込まずにそのまま返す(応答はTaskLogicごとに持つ)
+     */
+    private void list(HttpExchange exchange, TaskLogic taskLogic) throws IOException {
+        // 読み込む前にETagを決めるため、読み込み中に変更されても古いETagが付くだけで済む
+        String tag = tag(taskLogic);
+        String etag = "\"" + tag + "\"";
+        if (notModified(exchange, etag)) return;
+
+        ListCache cache = listCaches.get(taskLogic);
+        if (cache == null || !cache.tag().equals(tag)) {
+            List<Task> tasks = taskLogic.findAll();
+            StringBuilder sb = new StringBuilder(tasks.size() * 96).append('[');
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i > 0) sb.append(',');
+                appendTask(sb, tasks.get(i));
+            }
+            cache = new ListCache(tag, sb.append(']').toString().getBytes(StandardCharsets.UTF_8));
+            listCaches.put(taskLogic, cache);
+        }
+        send(exchange, 200, cache.body(), etag);
+    }
+
+    private void get(HttpExchange exchange, TaskLogic taskLogic, int code) throws IOException {
+        String etag = "\"" + tag(taskLogic) + "-" + code + "\"";
+        if (notModified(exchange, etag)) return;
+        Task task = taskLogic.findByCode(code);
+        if (task == null) {
+            sendError(exchange, 404, "存在するタスクコードを入力してください");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        appendTask(sb, task);
+        send(exchange, 200, sb.toString().getBytes(StandardCharsets.UTF_8), etag);
+    }
+
+    /**
+     * タスクを登録します。
+     * タスク名の検証はTaskUIと同じく10文字以内とする
+     */
+    private void create(HttpExchange exchange, TaskLogic taskLogic, User loginUser) throws IOException, AppException {
+        Map<String, String> body = readBody(exchange);
+        String name = body.get("name");
+        if (name == null || name.isEmpty() || name.length() > 10) {
+            throw new AppException("タスク名は10文字以内で入力してください");
+        }
+        Integer repUserCode = parseCode(body.get("repUserCode"));
+        if (repUserCode == null) {
+            throw new AppException("担当ユーザーコードは半角の数字で入力してください");
+        }
+        int code;
+        if (body.get("code") == null) {
+            code = taskLogic.save(name, repUserCode, loginUser);
+        } else {
+            Integer requested = parseCode(body.get("code"));
+            if (requested == null) {
+                throw new AppException("コードは半角の数字で入力してください");
+            }
+            taskLogic.save(requested, name, repUserCode, loginUser);
+            code = requested;
+        }
+        String requestPath = exchange.getRequestURI().getPath().replaceAll("/+$", "");
+        exchange.getResponseHeaders().set("Location", requestPath + "/" + code);
+        send(exchange, 201, ("{\"code\":" + code + "}").getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    private void changeStatus(HttpExchange exchange, TaskLogic taskLogic, int code, User loginUser) throws IOException, AppException {
+        String status = readBody(exchange).get("status");
+        if (!"1".equals(status) && !"2".equals(status)) {
+            throw new AppException("ステータスは1・2の中から選択してください");
+        }
+        taskLogic.changeStatus(code, Integer.parseInt(status), loginUser);
+        send(exchange, 204, null, null);
+    }
+
+    /**
+     * AuthorizationヘッダーのBasic認証の情報でユーザーを認証します。
+     * @return 認証したユーザー。ヘッダーがない、または一致しない場合はnull
+     */
+    private User authenticate(HttpExchange exchange, UserLogic userLogic) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) return null;
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) return null;
+        return userLogic.authenticate(credentials.substring(0, colon), credentials.substring(colon + 1));
+    }
+
+    /**
+     * エポック・データのバージョン・保存先の状態から、ETagの値(引用符を除く)を作ります。
+     */
+    private String tag(TaskLogic taskLogic) {
+        String stamp = taskLogic.getStorageStamp();
+        return epoch + "-" + taskLogic.getDataVersion() + (stamp == null || stamp.isEmpty() ? "" : "-" + stamp);
+    }
+
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals(etag) || t.equals("*")) {
+                send(exchange, 304, null, etag);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * リクエストの本文をJSONのオブジェクトとして読み込みます。
+     * JSONの形式が正しくない場合は、AppExceptionにして400で返せるようにする
+     */
+    private Map<String, String> readBody(HttpExchange exchange) throws IOException, AppException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(e.getMessage());
+        }
+    }
+
+    private void appendTask(StringBuilder sb, Task task) {
+        User repUser = task.getRepUser();
+        sb.append("{\"code\":").append(task.getCode())
+                .append(",\"name\":").append(Json.quote(task.getName()))
+                .append(",\"status\":").append(task.getStatus())
+                .append(",\"repUserCode\":").append(repUser == null ? "null" : String.valueOf(repUser.getCode()))
+                .append(",\"repUserName\":").append(Json.quote(repUser == null ? null : repUser.getName()))
+                .append('}');
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, ("{\"error\":" + Json.quote(message) + "}").getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body, String etag) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * 半角数字のみからなる文字列をintに変換します。
+     * null、空文字、数字以外を含む場合、intの範囲を超える場合はnullを返す
+     */
+    private static Integer parseCode(String value) {
+        if (value == null || value.isEmpty() || value.length() > 9
+                || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * ETagの値と、そのETagで作ったタスク一覧の応答の組です。
+     */
+    private record ListCache(String tag, byte[] body) {
+    }
+}
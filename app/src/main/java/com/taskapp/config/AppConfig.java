@@ -0,0 +1,266 @@
+package com.taskapp.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import com.taskapp.exception.AppException;
+
+/**
+ * アプリケーションの設定です。
+ * プロパティファイルの値を環境変数で上書きして読み込み、再コンパイルせずにデータの置き場所や入出力の設定を変更できます。
+ *
+ * <pre>
+ * キー                          環境変数                       既定値
+ * taskapp.data.dir              TASKAPP_DATA_DIR               app/src/main/resources
+ * taskapp.io.buffer-size        TASKAPP_IO_BUFFER_SIZE         8192
+ * taskapp.io.charset            TASKAPP_IO_CHARSET             UTF-8
+ * taskapp.io.fsync              TASKAPP_IO_FSYNC               never (never・always)
+ * taskapp.cache.users.size      TASKAPP_CACHE_USERS_SIZE       1024
+ * taskapp.cache.users.ttl-millis TASKAPP_CACHE_USERS_TTL_MILLIS 0(期限なし)
+ * taskapp.cache.task-names.size TASKAPP_CACHE_TASK_NAMES_SIZE  4096
+ * taskapp.index.tasks.enabled   TASKAPP_INDEX_TASKS_ENABLED    false (true・false)
+ * taskapp.index.tasks.cache-pages TASKAPP_INDEX_TASKS_CACHE_PAGES 64
+ * </pre>
+ *
+ * 環境変数の名前は、キーを大文字にして「.」と「-」を「_」に置き換えたものです。
+ */
+public final class AppConfig {
+    public static final String DATA_DIR = "taskapp.data.dir";
+    public static final String IO_BUFFER_SIZE = "taskapp.io.buffer-size";
+    public static final String IO_CHARSET = "taskapp.io.charset";
+    public static final String IO_FSYNC = "taskapp.io.fsync";
+    public static final String USER_CACHE_SIZE = "taskapp.cache.users.size";
+    public static final String USER_CACHE_TTL_MILLIS = "taskapp.cache.users.ttl-millis";
+    public static final String TASK_NAME_CACHE_SIZE = "taskapp.cache.task-names.size";
+    public static final String TASK_INDEX_ENABLED = "taskapp.index.tasks.enabled";
+    public static final String TASK_INDEX_CACHE_PAGES = "taskapp.index.tasks.cache-pages";
+
+    private static final AppConfig DEFAULTS = new AppConfig(Paths.get("app/src/main/resources"), 8192,
+            StandardCharsets.UTF_8, FsyncPolicy.NEVER, 1024, 0, 4096, false, 64);
+
+    /**
+     * ファイルへの書き込みを、ディスクに書き出すまで待つかを表します。
+     */
+    public enum FsyncPolicy {
+        /** OSに任せる(書き込み後にすぐ戻る) */
+        NEVER,
+        /** ファイルを閉じる前に毎回ディスクへ書き出す */
+        ALWAYS
+    }
+
+    private final Path dataDirectory;
+    private final int bufferSize;
+    private final Charset charset;
+    private final FsyncPolicy fsyncPolicy;
+    private final int userCacheSize;
+    private final long userCacheTtlMillis;
+    private final int taskNameCacheSize;
+    private final boolean taskIndexEnabled;
+    private final int taskIndexCachePages;
+
+    private AppConfig(Path dataDirectory, int bufferSize, Charset charset, FsyncPolicy fsyncPolicy,
+            int userCacheSize, long userCacheTtlMillis, int taskNameCacheSize, boolean taskIndexEnabled,
+            int taskIndexCachePages) {
+        this.dataDirectory = dataDirectory;
+        this.bufferSize = bufferSize;
+        this.charset = charset;
+        this.fsyncPolicy = fsyncPolicy;
+        this.userCacheSize = userCacheSize;
+        this.userCacheTtlMillis = userCacheTtlMillis;
+        this.taskNameCacheSize = taskNameCacheSize;
+        this.taskIndexEnabled = taskIndexEnabled;
+        this.taskIndexCachePages = taskIndexCachePages;
+    }
+
+    /**
+     * 既定の設定を返します。
+     * @return 既定の設定
+     */
+    public static AppConfig defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * プロパティファイルと環境変数から設定を読み込みます。
+     * 実装の流れ
+     * 既定値に、プロパティファイルの値(ファイルがあれば)を重ね、さらに環境変数の値を重ねる
+     * 数値・文字コード・fsync・真偽値の値が正しくない場合はAppExceptionを投げる
+     *
+     * @param file プロパティファイル(nullまたは存在しない場合は使わない)
+     * @param env 環境変数(通常はSystem.getenv())
+     * @return 読み込んだ設定
+     * @throws AppException 設定の値が正しくない場合にスローされます
+     * @throws IOException プロパティファイルの読み込みに失敗した場合にスローされます
+     */
+    public static AppConfig load(Path file, Map<String, String> env) throws AppException, IOException {
+        Properties properties = new Properties();
+        if (file != null && Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        for (String key : new String[] { DATA_DIR, IO_BUFFER_SIZE, IO_CHARSET, IO_FSYNC, USER_CACHE_SIZE,
+                USER_CACHE_TTL_MILLIS, TASK_NAME_CACHE_SIZE, TASK_INDEX_ENABLED, TASK_INDEX_CACHE_PAGES }) {
+            String value = env.get(environmentName(key));
+            if (value != null) properties.setProperty(key, value);
+        }
+        return new AppConfig(
+                Paths.get(properties.getProperty(DATA_DIR, DEFAULTS.dataDirectory.toString())),
+                parseInt(properties, IO_BUFFER_SIZE, DEFAULTS.bufferSize, 1),
+                parseCharset(properties.getProperty(IO_CHARSET)),
+                parseFsync(properties.getProperty(IO_FSYNC)),
+                parseInt(properties, USER_CACHE_SIZE, DEFAULTS.userCacheSize, 1),
+                parseLong(properties, USER_CACHE_TTL_MILLIS, DEFAULTS.userCacheTtlMillis),
+                parseInt(properties, TASK_NAME_CACHE_SIZE, DEFAULTS.taskNameCacheSize, 1),
+                parseBoolean(properties, TASK_INDEX_ENABLED, DEFAULTS.taskIndexEnabled),
+                parseInt(properties, TASK_INDEX_CACHE_PAGES, DEFAULTS.taskIndexCachePages, 1));
+    }
+
+    /**
+     * 設定のキーに対応する環境変数の名前を返します。
+     * @param key 設定のキー
+     * @return 環境変数の名前
+     */
+    public static String environmentName(String key) {
+        return key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+    }
+
+    /**
+     * データのディレクトリを変更した設定を返します。
+     * プロジェクトごとのディレクトリなど、同じ入出力の設定で別の場所のデータを扱う場合に使う
+     * @param directory データのディレクトリ
+     * @return 新しい設定
+     */
+    public AppConfig withDataDirectory(Path directory) {
+        return new AppConfig(directory, bufferSize, charset, fsyncPolicy, userCacheSize, userCacheTtlMillis,
+                taskNameCacheSize, taskIndexEnabled, taskIndexCachePages);
+    }
+
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public String getUsersFile() {
+        return dataDirectory.resolve("users.csv").toString();
+    }
+
+    public String getTasksFile() {
+        return dataDirectory.resolve("tasks.csv").toString();
+    }
+
+    /**
+     * 固定長の形式で保存する場合のタスクのファイルを返します。
+     * @see com.taskapp.dataaccess.FixedWidthTaskDataAccess
+     * @return tasks.fixedのパス
+     */
+    public String getFixedWidthTasksFile() {
+        return dataDirectory.resolve("tasks.fixed").toString();
+    }
+
+    public String getLogsFile() {
+        return dataDirectory.resolve("logs.csv").toString();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public int getUserCacheSize() {
+        return userCacheSize;
+    }
+
+    public long getUserCacheTtlMillis() {
+        return userCacheTtlMillis;
+    }
+
+    public int getTaskNameCacheSize() {
+        return taskNameCacheSize;
+    }
+
+    /**
+     * tasks.csvのコードの索引ファイル(tasks.csv.idx)を使うかを返します。
+     * @return 使う場合はtrue
+     */
+    public boolean isTaskIndexEnabled() {
+        return taskIndexEnabled;
+    }
+
+    public int getTaskIndexCachePages() {
+        return taskIndexCachePages;
+    }
+
+    private static int parseInt(Properties properties, String key, int defaultValue, int min) throws AppException {
+        long value = parseLong(properties, key, defaultValue);
+        if (value < min || value > Integer.MAX_VALUE) {
+            throw new AppException(key + "は" + min + "以上の整数で指定してください: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long parseLong(Properties properties, String key, long defaultValue) throws AppException {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new AppException(key + "は半角の数字で指定してください: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(Properties properties, String key, boolean defaultValue)
+            throws AppException {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return defaultValue;
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new AppException(key + "はtrueまたはfalseで指定してください: " + value);
+        };
+    }
+
+    /**
+     * 文字コードを変換します。
+     * CSVを行の区切り(改行のバイト)で分割して読み込むため、改行を1バイトの0x0Aで表す文字コードだけを受け付ける
+     */
+    private static Charset parseCharset(String value) throws AppException {
+        if (value == null || value.isBlank()) return DEFAULTS.charset;
+        Charset charset;
+        try {
+            charset = Charset.forName(value.trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new AppException(IO_CHARSET + "に使えない文字コードです: " + value);
+        }
+        if (!Arrays.equals("\n".getBytes(charset), new byte[] { '\n' })) {
+            throw new AppException(IO_CHARSET + "には改行を1バイトで表す文字コードを指定してください: " + value);
+        }
+        return charset;
+    }
+
+    private static FsyncPolicy parseFsync(String value) throws AppException {
+        if (value == null || value.isBlank()) return DEFAULTS.fsyncPolicy;
+        try {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(IO_FSYNC + "はneverまたはalwaysで指定してください: " + value);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.LogTable;
+import com.taskapp.model.TaskTable;
+import com.taskapp.model.User;
+
+/**
+ * ユーザー・タスク・ログの3つのデータをまとめて保存したスナップショットです。
+ * 読み込んだときの各CSVファイルの状態を一緒に保持し、CSVが変更されていない場合だけ復元に使います。
+ */
+public record DataSnapshot(List<User> users, FileStamp userStamp,
+        TaskTable tasks, FileStamp taskStamp,
+        LogTable logs, FileStamp logStamp) {
+
+    private static final int MAGIC = 0x54534e50;
+
+    private static final int FORMAT_VERSION = 3;
+
+    /**
+     * スナップショットをバイナリ形式でファイルに書き込みます。
+     * 一時ファイルに書き込んでから置き換えるため、書き込み途中のファイルが読まれることはない
+     * @param path 書き込み先
+     * @throws IOException 書き込みに失敗した場合にスローされます
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            writeStamp(out, userStamp);
+            out.writeInt(users.size());
+            for (User user : users) {
+                out.writeInt(user.getCode());
+                out.writeUTF(user.getName());
+                out.writeUTF(user.getEmail());
+                out.writeUTF(user.getPassword());
+            }
+
+            writeStamp(out, taskStamp);
+            out.writeInt(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                out.writeInt(tasks.codeAt(i));
+                out.writeUTF(tasks.nameAt(i));
+                out.writeByte(tasks.statusAt(i));
+                out.writeInt(tasks.repUserCodeAt(i));
+                out.writeInt(tasks.versionAt(i));
+            }
+
+            writeStamp(out, logStamp);
+            out.writeInt(logs.size());
+            for (int i = 0; i < logs.size(); i++) {
+                out.writeInt(logs.taskCodeAt(i));
+                out.writeInt(logs.changeUserCodeAt(i));
+                out.writeByte(logs.statusAt(i));
+                out.writeInt(logs.changeEpochDayAt(i));
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * ファイルからスナップショットを読み込みます。
+     * @param path 読み込むファイル
+     * @return 読み込んだスナップショット
+     * @throws IOException 読み込みに失敗した場合、または形式が正しくない場合にスローされます
+     */
+    public static DataSnapshot read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("snapshot format is not supported: " + path);
+            }
+
+            FileStamp userStamp = readStamp(in);
+            int userCount = in.readInt();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(new User(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+
+            FileStamp taskStamp = readStamp(in);
+            int taskCount = in.readInt();
+            TaskTable.Builder tasks = TaskTable.builder();
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(in.readInt(), in.readUTF(), in.readByte(), in.readInt(), in.readInt());
+            }
+
+            FileStamp logStamp = readStamp(in);
+            int logCount = in.readInt();
+            LogTable.Builder logs = LogTable.builder();
+            for (int i = 0; i < logCount; i++) {
+                logs.add(in.readInt(), in.readInt(), in.readByte(), in.readInt());
+            }
+            return new DataSnapshot(users, userStamp, tasks.build(), taskStamp, logs.build(), logStamp);
+        }
+    }
+
+    private static void writeStamp(DataOutputStream out, FileStamp stamp) throws IOException {
+        out.writeLong(stamp.size());
+        out.writeLong(stamp.lastModified());
+        out.writeLong(stamp.fileKey());
+    }
+
+    private static FileStamp readStamp(DataInputStream in) throws IOException {
+        return new FileStamp(in.readLong(), in.readLong(), in.readLong());
+    }
+}
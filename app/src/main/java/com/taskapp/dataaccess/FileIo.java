@@ -0,0 +1,79 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.taskapp.config.AppConfig;
+
+/**
+ * AppConfigの文字コード・バッファサイズ・fsyncの設定に従って、CSVファイルを開きます。
+ */
+final class FileIo {
+    private final Charset charset;
+
+    private final int bufferSize;
+
+    private final boolean fsync;
+
+    FileIo(AppConfig config) {
+        this.charset = config.getCharset();
+        this.bufferSize = config.getBufferSize();
+        this.fsync = config.getFsyncPolicy() == AppConfig.FsyncPolicy.ALWAYS;
+    }
+
+    Charset charset() {
+        return charset;
+    }
+
+    boolean fsync() {
+        return fsync;
+    }
+
+    /**
+     * 読み込み用にファイルを開きます。
+     * @param filePath ファイルのパス
+     * @return ファイルのReader
+     * @throws IOException ファイルを開けなかった場合にスローされます
+     */
+    BufferedReader reader(String filePath) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(filePath)), charset),
+                bufferSize);
+    }
+
+    /**
+     * 書き込み用にファイルを開きます。ファイルがなければ作成する
+     * fsyncがalwaysの場合は、closeでディスクへ書き出してから閉じる
+     * @param filePath ファイルのパス
+     * @param append 末尾に追加する場合はtrue、内容を置き換える場合はfalse
+     * @return ファイルのWriter
+     * @throws IOException ファイルを開けなかった場合にスローされます
+     */
+    BufferedWriter writer(String filePath, boolean append) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStreamWriter out = new OutputStreamWriter(Channels.newOutputStream(channel), charset);
+        if (!fsync) {
+            return new BufferedWriter(out, bufferSize);
+        }
+        return new BufferedWriter(out, bufferSize) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    flush();
+                    channel.force(false);
+                } finally {
+                    super.close();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ファイルのサイズ・最終更新日時・ファイルの識別子の組です。
+ * 読み込んだ内容がファイルの現在の内容と一致しているかを判定するために使います。
+ *
+ * 最終更新日時はファイルシステムが持つ精度のまま(ナノ秒単位)で保持するため、
+ * 同じミリ秒のうちに同じサイズで書き換えられた場合も、ファイルシステムが区別できれば別の状態になります。
+ * 識別子はiノードなどから求める値で、一時ファイルに書いてから置き換えた場合は、更新日時が同じでも変わります。
+ */
+public record FileStamp(long size, long lastModified, long fileKey) {
+
+    /**
+     * ファイルの現在の状態を取得します。
+     * ファイルが存在しない場合は全て0になる
+     * ファイルシステムが識別子を持たない場合は、識別子を0とする
+     * @param filePath ファイルのパス
+     * @return ファイルの状態
+     */
+    public static FileStamp of(String filePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            Object key = attributes.fileKey();
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    key == null ? 0 : key.hashCode());
+        } catch (NoSuchFileException e) {
+            return new FileStamp(0, 0, 0);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new FileStamp(0, 0, 0);
+        }
+    }
+
+    /**
+     * ファイルの現在の状態と一致するかを判定します。
+     * @param filePath ファイルのパス
+     * @return 一致すればtrue
+     */
+    public boolean matches(String filePath) {
+        return equals(of(filePath));
+    }
+}
@@ -0,0 +1,581 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.exception.StaleTaskException;
+import com.taskapp.model.Task;
+import com.taskapp.model.TaskRow;
+import com.taskapp.model.TaskTable;
+import com.taskapp.model.User;
+
+/**
+ * タスクを固定長のレコードで保存するTaskRepositoryです。
+ *
+ * 1行目のヘッダーに各項目の幅(バイト数)を記録し、2行目以降の全てのレコードを同じバイト数にします。
+ * 項目は幅まで空白で埋めてカンマで区切るため、n番目のレコードの位置は計算で求められます。
+ * ステータスの変更などの更新は、ファイル全体を書き直さずに、そのレコードだけを同じ位置に上書きします。
+ * 削除したレコードは空白で上書きし、次にconvertToやreplaceAllで書き直すまで場所を空けたままにします。
+ * コードからレコードの番号への対応は、初めて使うときにファイルを1回読んで作成し、以降は自身の書き込みに合わせて更新します。
+ * ファイルが他から変更された場合(FileStampが一致しない場合)は作り直します。
+ *
+ * <pre>
+ * #fixed-width code=10 name=40 status=1 rep_user_code=10 version=10
+ * 1         ,taskA                                   ,0,1         ,0
+ * </pre>
+ */
+public class FixedWidthTaskDataAccess implements TaskRepository {
+    private static final byte SPACE = ' ';
+
+    private final String filePath;
+
+    private final UserDataAccess userDataAccess;
+
+    private final FileIo io;
+
+    /**
+     * ファイルの読み書きと、レコードの番号の対応を1つずつ扱うためのロックです。
+     */
+    private final Object lock = new Object();
+
+    private Layout layout = Layout.DEFAULT;
+
+    private int dataStart;
+
+    private final Map<Integer, Integer> slots = new HashMap<>();
+
+    private int slotCount;
+
+    private boolean duplicates;
+
+    private FileStamp slotsStamp;
+
+    /**
+     * @param filePath 固定長のファイルのパス
+     * @param userDataAccess 担当ユーザーの取得に使うUserDataAccess
+     * @param config アプリケーションの設定(文字コードとfsyncの設定を使う)
+     */
+    public FixedWidthTaskDataAccess(String filePath, UserDataAccess userDataAccess, AppConfig config) {
+        this.filePath = filePath;
+        this.userDataAccess = userDataAccess;
+        this.io = new FileIo(config);
+    }
+
+    /**
+     * 全てのタスクデータを取得します。
+     * 削除済みのレコードは含めない
+     * @see #loadTable()
+     * @return タスクのリスト
+     */
+    @Override
+    public List<Task> findAll() {
+        Map<Integer, User> repUsers = new HashMap<>();
+        return loadTable().toTasks(repUserCode -> repUsers.computeIfAbsent(repUserCode, userDataAccess::findByCode));
+    }
+
+    /**
+     * 全てのタスクデータを、ファイル内の順番のTaskTableとして取得します。
+     * 担当ユーザーはユーザーコードのまま保持する
+     * @return タスクのテーブル
+     */
+    public TaskTable loadTable() {
+        TaskTable.Builder builder = TaskTable.builder();
+        synchronized (lock) {
+            try {
+                refresh();
+                if (!Files.exists(Paths.get(filePath))) return builder.build();
+                int recordLength = layout.recordLength();
+                try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+                    in.skipNBytes(dataStart);
+                    byte[] record = new byte[recordLength];
+                    while (in.readNBytes(record, 0, recordLength) == recordLength) {
+                        TaskRow row = decode(record);
+                        if (row != null) builder.add(row);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * コードを基にタスクデータを1件取得します。
+     * コードに対応するレコードの番号から位置を計算し、そのレコードだけを読む
+     * codeが該当しない場合、nullを返す
+     * @param taskCode 取得するタスクのコード
+     * @return 取得したタスク
+     */
+    @Override
+    public Task findByCode(int taskCode) {
+        TaskRow row;
+        synchronized (lock) {
+            try {
+                Located located = locate(taskCode);
+                row = located == null ? null : located.row();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        return row == null ? null : row.toTask(userDataAccess::findByCode);
+    }
+
+    /**
+     * タスクをファイルの末尾に保存します。
+     * @param task 保存するタスク
+     */
+    @Override
+    public void save(Task task) {
+        saveAll(List.of(task));
+    }
+
+    /**
+     * 複数のタスクを、ファイルの末尾にまとめて保存します。
+     * ファイルがない場合は、ヘッダーを書き込んでから保存する
+     * 末尾に書き込み途中のレコードが残っている場合は、その位置から上書きする
+     * @param tasks 保存するタスク
+     * @throws IllegalArgumentException 項目が幅に収まらない場合にスローされます
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        synchronized (lock) {
+            try {
+                refresh();
+                int recordLength = layout.recordLength();
+                ByteBuffer records = ByteBuffer.allocate(recordLength * tasks.size());
+                for (Task task : tasks) {
+                    records.put(encode(layout, TaskRow.of(task)));
+                }
+                records.flip();
+                boolean create = !Files.exists(Paths.get(filePath));
+                try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE)) {
+                    if (create) {
+                        writeFully(channel, ByteBuffer.wrap(layout.header().getBytes(io.charset())), 0);
+                    }
+                    writeFully(channel, records, dataStart + (long) slotCount * recordLength);
+                    if (io.fsync()) channel.force(false);
+                }
+                for (Task task : tasks) {
+                    if (slots.put(task.getCode(), slotCount++) != null) duplicates = true;
+                }
+                slotsStamp = FileStamp.of(filePath);
+            } catch (IOException e) {
+                e.printStackTrace();
+                slotsStamp = null;
+            }
+        }
+    }
+
+    /**
+     * 全てのタスクを、指定したタスクで置き換えます。
+     * 削除済みのレコードを詰めて書き直す。タスク名が今の幅に収まらない場合は、幅を広げる
+     * @param tasks 置き換え後のタスク
+     */
+    @Override
+    public void replaceAll(List<Task> tasks) {
+        TaskTable.Builder builder = TaskTable.builder();
+        tasks.forEach(task -> builder.add(TaskRow.of(task)));
+        try {
+            writeTable(builder.build());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * タスクデータを更新します。
+     * 実装の流れ
+     * コードに対応するレコードを読み、バージョンがupdateTaskのバージョンと異なる場合、またはレコードが削除されていた場合は
+     * StaleTaskExceptionを投げる
+     * 一致する場合は、バージョンを1つ増やしたレコードを、同じ位置に上書きする
+     * レコードの長さは変わらないため、他のレコードは読み書きしない
+     * @param updateTask 更新するタスク(バージョンは読み込んだ時点のもの)
+     * @throws StaleTaskException 読み込んだ後にタスクが他の更新で変更または削除されていた場合にスローされます
+     * @throws IllegalArgumentException 項目が幅に収まらない場合にスローされます
+     */
+    @Override
+    public void update(Task updateTask) {
+        synchronized (lock) {
+            try {
+                Located located = locate(updateTask.getCode());
+                int currentVersion = located == null ? StaleTaskException.DELETED : located.row().version();
+                if (currentVersion != updateTask.getVersion()) {
+                    throw new StaleTaskException(updateTask.getCode(), updateTask.getVersion(), currentVersion);
+                }
+                TaskRow updated = new TaskRow(updateTask.getCode(), updateTask.getName(), updateTask.getStatus(),
+                        updateTask.getRepUser().getCode(), updateTask.getVersion() + 1);
+                writeRecord(located.slot(), encode(layout, updated));
+            } catch (IOException e) {
+                e.printStackTrace();
+                slotsStamp = null;
+            }
+        }
+    }
+
+    /**
+     * コードを基にタスクデータを削除します。
+     * レコードを空白で上書きする。同じコードのレコードが複数ある場合は、全て上書きする
+     * @param code 削除するタスクのコード
+     */
+    @Override
+    public void delete(int code) {
+        synchronized (lock) {
+            try {
+                Located located = locate(code);
+                if (located == null) return;
+                byte[] blank = blankRecord(layout);
+                writeRecord(located.slot(), blank);
+                slots.remove(code);
+                if (duplicates) {
+                    for (int slot = 0; slot < slotCount; slot++) {
+                        TaskRow row = readRecord(slot);
+                        if (row != null && row.code() == code) writeRecord(slot, blank);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                slotsStamp = null;
+            }
+        }
+    }
+
+    /**
+     * 固定長のファイルのサイズ・更新日時・識別子から、保存先の状態を表す文字列を返します。
+     * @return 保存先の状態
+     */
+    @Override
+    public String changeStamp() {
+        FileStamp stamp = FileStamp.of(filePath);
+        return stamp.size() + "." + stamp.lastModified() + "." + stamp.fileKey();
+    }
+
+    /**
+     * CSVのタスクを、固定長のファイルに変換します。
+     * ファイルが既にある場合は置き換える。タスク名の幅は、既定の幅と最も長いタスク名の大きい方にする
+     * @param csv 変換元のTaskDataAccess
+     * @return 変換したタスクの数
+     * @throws IOException ファイルの書き込みに失敗した場合にスローされます
+     */
+    public int convertFrom(TaskDataAccess csv) throws IOException {
+        TaskTable table = csv.loadTable();
+        writeTable(table);
+        return table.size();
+    }
+
+    /**
+     * 固定長のファイルのタスクで、CSVのタスクを置き換えます。
+     * 削除済みのレコードは書き出さない
+     * @param csv 変換先のTaskDataAccess
+     * @return 変換したタスクの数
+     */
+    public int convertTo(TaskDataAccess csv) {
+        TaskTable table = loadTable();
+        csv.replaceTable(table);
+        return table.size();
+    }
+
+    /**
+     * ファイルのレイアウトを返します。
+     * @return 各項目の幅
+     */
+    public Layout layout() {
+        synchronized (lock) {
+            try {
+                refresh();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return layout;
+        }
+    }
+
+    /**
+     * テーブルの全ての行で、ファイルを置き換えます。
+     * 一時ファイルに書き込んでから元のファイルと置き換える
+     */
+    private void writeTable(TaskTable table) throws IOException {
+        synchronized (lock) {
+            int nameWidth = Layout.DEFAULT.nameWidth();
+            for (int i = 0; i < table.size(); i++) {
+                nameWidth = Math.max(nameWidth, table.nameAt(i).getBytes(io.charset()).length);
+            }
+            Layout newLayout = layout.withNameWidth(Math.max(layout.nameWidth(), nameWidth));
+            int recordLength = newLayout.recordLength();
+            Path path = Paths.get(filePath);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.wrap(newLayout.header().getBytes(io.charset()));
+                long position = header.remaining();
+                writeFully(channel, header, 0);
+                // 256件ずつまとめて書き込む
+                ByteBuffer records = ByteBuffer.allocate(recordLength * 256);
+                for (int i = 0; i < table.size(); i++) {
+                    records.put(encode(newLayout, table.get(i)));
+                    if (!records.hasRemaining() || i == table.size() - 1) {
+                        records.flip();
+                        int length = records.remaining();
+                        writeFully(channel, records, position);
+                        position += length;
+                        records.clear();
+                    }
+                }
+                if (io.fsync()) channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            slotsStamp = null;
+        }
+    }
+
+    /**
+     * コードに対応するレコードを探します。
+     * 対応が指すレコードのコードが一致しない場合は、ファイルと対応が食い違っているため、対応を作り直してもう1回探す
+     * lockを取得してから呼び出す
+     * @return 見つかったレコードと番号(ない場合はnull)
+     */
+    private Located locate(int code) throws IOException {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            refresh();
+            Integer slot = slots.get(code);
+            if (slot == null) return null;
+            TaskRow row = readRecord(slot);
+            if (row != null && row.code() == code) return new Located(slot, row);
+            slotsStamp = null;
+        }
+        return null;
+    }
+
+    /**
+     * ファイルが前回読み込んだときから変更されていれば、ヘッダーを読み直し、コードからレコードの番号への対応を作り直します。
+     * ファイルがない場合は、既定のレイアウトの空のファイルとして扱う
+     * lockを取得してから呼び出す
+     */
+    private void refresh() throws IOException {
+        FileStamp stamp = FileStamp.of(filePath);
+        if (stamp.equals(slotsStamp)) return;
+        slots.clear();
+        slotCount = 0;
+        duplicates = false;
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            layout = Layout.DEFAULT;
+            dataStart = layout.header().getBytes(io.charset()).length;
+            slotsStamp = stamp;
+            return;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = readHeader(in);
+            layout = Layout.parse(new String(header, io.charset()).trim());
+            dataStart = header.length;
+            int recordLength = layout.recordLength();
+            byte[] record = new byte[recordLength];
+            while (in.readNBytes(record, 0, recordLength) == recordLength) {
+                TaskRow row = decode(record);
+                if (row != null && slots.put(row.code(), slotCount) != null) duplicates = true;
+                slotCount++;
+            }
+        }
+        slotsStamp = stamp;
+    }
+
+    /**
+     * 1行目のヘッダーを、改行を含めて読み込みます。
+     */
+    private static byte[] readHeader(InputStream in) throws IOException {
+        byte[] header = new byte[256];
+        int length = 0;
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (length == header.length) {
+                if (length >= 4096) throw new IOException("固定長のファイルのヘッダーが長すぎます");
+                header = Arrays.copyOf(header, length * 2);
+            }
+            header[length++] = (byte) b;
+            if (b == '\n') break;
+        }
+        return Arrays.copyOf(header, length);
+    }
+
+    private TaskRow readRecord(int slot) throws IOException {
+        int recordLength = layout.recordLength();
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long position = dataStart + (long) slot * recordLength;
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) return null;
+            }
+        }
+        return decode(record.array());
+    }
+
+    /**
+     * レコードを、番号から計算した位置に上書きします。
+     * lockを取得してから呼び出す
+     */
+    private void writeRecord(int slot, byte[] record) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.wrap(record), dataStart + (long) slot * layout.recordLength());
+            if (io.fsync()) channel.force(false);
+        }
+        slotsStamp = FileStamp.of(filePath);
+    }
+
+    /**
+     * バッファの残りを、ファイルの指定した位置から書き込みます。
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+    /**
+     * 行を、各項目を幅まで空白で埋めたレコードに変換します。
+     * @throws IllegalArgumentException 項目が幅に収まらない場合にスローされます
+     */
+    private byte[] encode(Layout layout, TaskRow row) {
+        byte[] record = blankRecord(layout);
+        int at = 0;
+        at = putField(record, at, layout.codeWidth(), Integer.toString(row.code()), "コード");
+        at = putField(record, at, layout.nameWidth(), row.name(), "タスク名");
+        at = putField(record, at, layout.statusWidth(), Integer.toString(row.status()), "ステータス");
+        at = putField(record, at, layout.repUserCodeWidth(), Integer.toString(row.repUserCode()), "担当ユーザーコード");
+        putField(record, at, layout.versionWidth(), Integer.toString(row.version()), "バージョン");
+        return record;
+    }
+
+    private int putField(byte[] record, int at, int width, String value, String label) {
+        byte[] bytes = value.getBytes(io.charset());
+        if (bytes.length > width) {
+            throw new IllegalArgumentException(label + "が固定長の幅(" + width + "バイト)を超えています: " + value);
+        }
+        System.arraycopy(bytes, 0, record, at, bytes.length);
+        int end = at + width;
+        if (end < record.length - 1) record[end] = ',';
+        return end + 1;
+    }
+
+    /**
+     * レコードを行に変換します。
+     * 削除済み(空白だけ)のレコードと、数値に変換できないレコードはnullを返す
+     */
+    private TaskRow decode(byte[] record) {
+        try {
+            int at = 0;
+            String code = field(record, at, layout.codeWidth());
+            if (code.isEmpty()) return null;
+            at += layout.codeWidth() + 1;
+            String name = field(record, at, layout.nameWidth());
+            at += layout.nameWidth() + 1;
+            String status = field(record, at, layout.statusWidth());
+            at += layout.statusWidth() + 1;
+            String repUserCode = field(record, at, layout.repUserCodeWidth());
+            at += layout.repUserCodeWidth() + 1;
+            String version = field(record, at, layout.versionWidth());
+            return new TaskRow(Integer.parseInt(code), name, Integer.parseInt(status), Integer.parseInt(repUserCode),
+                    Integer.parseInt(version));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 項目の後ろの空白を除いて、文字列に変換します。
+     */
+    private String field(byte[] record, int at, int width) {
+        int end = at + width;
+        while (end > at && record[end - 1] == SPACE) {
+            end--;
+        }
+        return new String(record, at, end - at, io.charset());
+    }
+
+    private static byte[] blankRecord(Layout layout) {
+        byte[] record = new byte[layout.recordLength()];
+        Arrays.fill(record, SPACE);
+        record[record.length - 1] = '\n';
+        return record;
+    }
+
+    private record Located(int slot, TaskRow row) {
+    }
+
+    /**
+     * 固定長のレコードの各項目の幅(バイト数)です。
+     * レコードは項目を幅まで空白で埋め、項目の間にカンマ、末尾に改行(\n)を置くため、
+     * 長さは幅の合計に5バイトを加えたものになります。
+     */
+    public record Layout(int codeWidth, int nameWidth, int statusWidth, int repUserCodeWidth, int versionWidth) {
+        /** 既定の幅。タスク名は10文字(UTF-8で最大40バイト)まで */
+        public static final Layout DEFAULT = new Layout(10, 40, 1, 10, 10);
+
+        private static final String HEADER_PREFIX = "#fixed-width";
+
+        /**
+         * レコードのバイト数を返します。
+         * @return 改行を含むレコードのバイト数
+         */
+        public int recordLength() {
+            return codeWidth + nameWidth + statusWidth + repUserCodeWidth + versionWidth + 5;
+        }
+
+        /**
+         * ファイルの1行目に書き込むヘッダーを返します。
+         * @return 改行を含むヘッダー
+         */
+        public String header() {
+            return HEADER_PREFIX + " code=" + codeWidth + " name=" + nameWidth + " status=" + statusWidth
+                    + " rep_user_code=" + repUserCodeWidth + " version=" + versionWidth + "\n";
+        }
+
+        Layout withNameWidth(int width) {
+            return new Layout(codeWidth, width, statusWidth, repUserCodeWidth, versionWidth);
+        }
+
+        /**
+         * ヘッダーから幅を読み取ります。
+         * @param header 1行目(改行を除く)
+         * @return 読み取った幅
+         * @throws IOException 固定長のファイルのヘッダーでない場合にスローされます
+         */
+        static Layout parse(String header) throws IOException {
+            String[] parts = header.split(" ");
+            if (!parts[0].equals(HEADER_PREFIX)) {
+                throw new IOException("固定長のファイルのヘッダーではありません: " + header);
+            }
+            Map<String, Integer> widths = new HashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] pair = parts[i].split("=");
+                try {
+                    if (pair.length == 2) widths.put(pair[0], Integer.parseInt(pair[1]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("固定長のファイルのヘッダーの幅が正しくありません: " + header);
+                }
+            }
+            for (String key : new String[] { "code", "name", "status", "rep_user_code", "version" }) {
+                Integer width = widths.get(key);
+                if (width == null || width <= 0) {
+                    throw new IOException("固定長のファイルのヘッダーに" + key + "の幅がありません: " + header);
+                }
+            }
+            return new Layout(widths.get("code"), widths.get("name"), widths.get("status"), widths.get("rep_user_code"),
+                    widths.get("version"));
+        }
+    }
+}
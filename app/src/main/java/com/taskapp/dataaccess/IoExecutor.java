@@ -0,0 +1,99 @@
+package com.taskapp.dataaccess;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * ファイルの読み書きを、呼び出し元のスレッドとは別のスレッドで行うための実行環境です。
+ *
+ * 全てのDataAccessの非同期のメソッドは、shared()で取得する1つの実行環境を共有します。
+ * スレッドはデーモンスレッドのため、アプリケーションの終了を妨げません。
+ * この実行環境のスレッドから依頼された処理は、待ち合わせでスレッドが足りなくならないよう、そのスレッドでそのまま実行します。
+ */
+public final class IoExecutor implements Executor {
+    private static final int DEFAULT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private final ExecutorService executor;
+
+    private IoExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new IoThread(runnable, "taskapp-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 共有の実行環境を返します。
+     * スレッドの数はCPUの数(2~8)
+     * @return 共有の実行環境
+     */
+    public static IoExecutor shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (Thread.currentThread() instanceof IoThread) {
+            command.run();
+        } else {
+            executor.execute(command);
+        }
+    }
+
+    /**
+     * 値を返す処理を非同期に実行します。
+     * @param <T> 処理の結果の型
+     * @param supplier 実行する処理
+     * @return 処理の結果
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this);
+    }
+
+    /**
+     * 値を返さない処理を非同期に実行します。
+     * @param action 実行する処理
+     * @return 処理の完了
+     */
+    public CompletableFuture<Void> run(Runnable action) {
+        return CompletableFuture.runAsync(action, this);
+    }
+
+    /**
+     * 全ての処理の完了を待ちます。
+     * 処理のいずれかが例外を投げた場合は、全ての完了を待ってから最初の例外をそのまま投げる
+     * @param futures 待ち合わせる処理
+     */
+    public static void joinAll(CompletableFuture<?>... futures) {
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * 初めて使われたときに共有の実行環境を作成します。
+     */
+    private static final class Holder {
+        private static final IoExecutor SHARED = new IoExecutor(DEFAULT_THREADS);
+    }
+
+    /**
+     * この実行環境のスレッドです。
+     */
+    private static final class IoThread extends Thread {
+        IoThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.model.Log;
+
+/**
+ * ログデータを組み込みデータベースに保存するLogRepositoryの実装です。
+ * SQLの実行に失敗した場合は、DataAccessExceptionを投げます(失敗した変更を成功として扱わないため)。
+ */
+public class JdbcLogDataAccess implements LogRepository {
+    private final JdbcStorage storage;
+
+    public JdbcLogDataAccess(JdbcStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * ログを保存します。
+     * @param log 保存するログ
+     */
+    @Override
+    public void save(Log log) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO logs (task_code, change_user_code, status, change_date) VALUES (?, ?, ?, ?)")) {
+            statement.setInt(1, log.getTaskCode());
+            statement.setInt(2, log.getChangeUserCode());
+            statement.setInt(3, log.getStatus());
+            statement.setDate(4, Date.valueOf(log.getChangeDate()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを保存できませんでした", e);
+        }
+    }
+
+    /**
+     * 複数のログを、1つのトランザクションでまとめて保存します。
+     * @param logs 保存するログ
+     */
+    @Override
+    public void saveAll(List<Log> logs) {
+        try (Connection connection = storage.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO logs (task_code, change_user_code, status, change_date) VALUES (?, ?, ?, ?)")) {
+                for (Log log : logs) {
+                    statement.setInt(1, log.getTaskCode());
+                    statement.setInt(2, log.getChangeUserCode());
+                    statement.setInt(3, log.getStatus());
+                    statement.setDate(4, Date.valueOf(log.getChangeDate()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを保存できませんでした", e);
+        }
+    }
+
+    /**
+     * すべてのログを登録順に取得します。
+     * @return すべてのログのリスト
+     */
+    @Override
+    public List<Log> findAll() {
+        List<Log> logList = new ArrayList<>();
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT task_code, change_user_code, status, change_date FROM logs ORDER BY id");
+                ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                logList.add(toLog(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを取得できませんでした", e);
+        }
+        return logList;
+    }
+
+    /**
+     * 変更日が期間内のログを取得します。
+     * logsテーブルのchange_dateインデックスを使い、該当する行だけを読み込む
+     * @param from 期間の開始日(この日を含む)
+     * @param to 期間の終了日(この日を含む)
+     * @return 該当するログのリスト(変更日の昇順。同じ日は登録順)
+     */
+    @Override
+    public List<Log> findByDateRange(LocalDate from, LocalDate to) {
+        List<Log> logList = new ArrayList<>();
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT task_code, change_user_code, status, change_date FROM logs "
+                                + "WHERE change_date BETWEEN ? AND ? ORDER BY change_date, id")) {
+            statement.setDate(1, Date.valueOf(from));
+            statement.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    logList.add(toLog(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを取得できませんでした", e);
+        }
+        return logList;
+    }
+
+    /**
+     * 指定したユーザーが変更したログを取得します。
+     * logsテーブルのchange_user_codeインデックスを使い、該当する行だけを読み込む
+     * @param changeUserCode 変更ユーザーのコード
+     * @return 該当するログのリスト(登録順)
+     */
+    @Override
+    public List<Log> findByChangeUser(int changeUserCode) {
+        List<Log> logList = new ArrayList<>();
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT task_code, change_user_code, status, change_date FROM logs "
+                                + "WHERE change_user_code = ? ORDER BY id")) {
+            statement.setInt(1, changeUserCode);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    logList.add(toLog(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを取得できませんでした", e);
+        }
+        return logList;
+    }
+
+    /**
+     * 指定したタスクコードに該当するログを削除します。
+     * logsテーブルのtask_codeインデックスを使い、該当する行だけを削除する
+     * @param taskCode 削除するログのタスクコード
+     */
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement("DELETE FROM logs WHERE task_code = ?")) {
+            statement.setInt(1, taskCode);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("ログを削除できませんでした", e);
+        }
+    }
+
+    private Log toLog(ResultSet rs) throws SQLException {
+        return new Log(rs.getInt("task_code"), rs.getInt("change_user_code"), rs.getInt("status"),
+                rs.getDate("change_date").toLocalDate());
+    }
+}
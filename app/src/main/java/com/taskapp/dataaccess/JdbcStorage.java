@@ -0,0 +1,149 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 組み込みデータベースへの接続とスキーマを管理します。
+ * サーバーを使わず、ファイルに保存するH2データベースを想定しています。
+ * SQLの実行に失敗した場合は、DataAccessExceptionを投げます(失敗した変更を成功として扱わないため)。
+ */
+public class JdbcStorage {
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS users ("
+                + "code INT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "email VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS users_email ON users(email)",
+        "CREATE TABLE IF NOT EXISTS tasks ("
+                + "code INT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "status INT NOT NULL, rep_user_code INT NOT NULL, version INT DEFAULT 0 NOT NULL)",
+        // バージョンの列を追加する前に作成したデータベースにも追加する
+        "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL",
+        "CREATE INDEX IF NOT EXISTS tasks_rep_user_code ON tasks(rep_user_code)",
+        "CREATE TABLE IF NOT EXISTS logs ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, task_code INT NOT NULL, "
+                + "change_user_code INT NOT NULL, status INT NOT NULL, change_date DATE NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS logs_task_code ON logs(task_code)",
+        "CREATE INDEX IF NOT EXISTS logs_change_date ON logs(change_date)",
+        "CREATE INDEX IF NOT EXISTS logs_change_user_code ON logs(change_user_code)",
+    };
+
+    private final String url;
+
+    /**
+     * @param url JDBCの接続URL
+     */
+    public JdbcStorage(String url) {
+        this.url = url;
+    }
+
+    /**
+     * ファイルに保存するH2データベースの接続を作成します。
+     * JVMが終了するまでデータベースを開いたままにし、操作ごとの接続を軽くする
+     * @param databasePath データベースファイルのパス(拡張子なし)
+     * @return 作成した接続
+     */
+    public static JdbcStorage h2(String databasePath) {
+        return new JdbcStorage("jdbc:h2:file:" + databasePath + ";DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * データベースへの接続を取得します。
+     * @return 接続
+     * @throws SQLException 接続に失敗した場合にスローされます
+     */
+    public Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    /**
+     * テーブルとインデックスを作成します。
+     * 既に存在するものはそのままにする
+     */
+    public void createSchema() {
+        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("テーブルを作成できませんでした", e);
+        }
+    }
+
+    /**
+     * データベースにユーザー・タスク・ログのいずれも登録されていないかを判定します。
+     * @return 何も登録されていなければtrue
+     */
+    public boolean isEmpty() {
+        try (Connection connection = getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM tasks) + (SELECT COUNT(*) FROM logs)")) {
+            return rs.next() && rs.getLong(1) == 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("データベースを確認できませんでした", e);
+        }
+    }
+
+    /**
+     * 別の保存先のデータを、1つのトランザクションでまとめて登録します。
+     * CSVからデータベースへの移行に使う
+     * 同じコードのユーザー・タスクが複数ある場合は、CSVの検索と同じく後のものを優先する
+     * @param users 移行元のユーザー
+     * @param tasks 移行元のタスク
+     * @param logs 移行元のログ
+     */
+    public void importFrom(UserRepository users, TaskRepository tasks, LogRepository logs) {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement userStatement = connection.prepareStatement(
+                        "MERGE INTO users (code, name, email, password) KEY (code) VALUES (?, ?, ?, ?)");
+                    PreparedStatement taskStatement = connection.prepareStatement(
+                        "MERGE INTO tasks (code, name, status, rep_user_code, version) KEY (code) VALUES (?, ?, ?, ?, ?)");
+                    PreparedStatement logStatement = connection.prepareStatement(
+                        "INSERT INTO logs (task_code, change_user_code, status, change_date) VALUES (?, ?, ?, ?)")) {
+                for (User user : users.findAll()) {
+                    userStatement.setInt(1, user.getCode());
+                    userStatement.setString(2, user.getName());
+                    userStatement.setString(3, user.getEmail());
+                    userStatement.setString(4, user.getPassword());
+                    userStatement.addBatch();
+                }
+                userStatement.executeBatch();
+                for (Task task : tasks.findAll()) {
+                    taskStatement.setInt(1, task.getCode());
+                    taskStatement.setString(2, task.getName());
+                    taskStatement.setInt(3, task.getStatus());
+                    taskStatement.setInt(4, task.getRepUser().getCode());
+                    taskStatement.setInt(5, task.getVersion());
+                    taskStatement.addBatch();
+                }
+                taskStatement.executeBatch();
+                for (Log log : logs.findAll()) {
+                    logStatement.setInt(1, log.getTaskCode());
+                    logStatement.setInt(2, log.getChangeUserCode());
+                    logStatement.setInt(3, log.getStatus());
+                    logStatement.setDate(4, Date.valueOf(log.getChangeDate()));
+                    logStatement.addBatch();
+                }
+                logStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("データベースに移行できませんでした", e);
+        }
+    }
+}
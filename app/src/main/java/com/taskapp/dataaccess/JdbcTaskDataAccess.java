@@ -0,0 +1,183 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.exception.StaleTaskException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクデータを組み込みデータベースに保存するTaskRepositoryの実装です。
+ * 担当ユーザーはusersテーブルと結合して1回の問い合わせで取得します。
+ * SQLの実行に失敗した場合は、DataAccessExceptionを投げます(失敗した変更を成功として扱わないため)。
+ */
+public class JdbcTaskDataAccess implements TaskRepository {
+    private static final String SELECT_TASK = "SELECT t.code, t.name, t.status, t.rep_user_code, t.version, "
+            + "u.name AS user_name, u.email, u.password "
+            + "FROM tasks t LEFT JOIN users u ON u.code = t.rep_user_code";
+
+    private final JdbcStorage storage;
+
+    public JdbcTaskDataAccess(JdbcStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * 全てのタスクデータをコード順に取得します。
+     * 同じ担当者のタスクは同じUserインスタンスを共有する
+     * @return タスクのリスト
+     */
+    @Override
+    public List<Task> findAll() {
+        List<Task> taskList = new ArrayList<>();
+        Map<Integer, User> repUsers = new HashMap<>();
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_TASK + " ORDER BY t.code");
+                ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                taskList.add(toTask(rs, repUsers));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを取得できませんでした", e);
+        }
+        return taskList;
+    }
+
+    /**
+     * タスクを保存します。
+     * @param task 保存するタスク
+     */
+    @Override
+    public void save(Task task) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO tasks (code, name, status, rep_user_code, version) VALUES (?, ?, ?, ?, ?)")) {
+            statement.setInt(1, task.getCode());
+            statement.setString(2, task.getName());
+            statement.setInt(3, task.getStatus());
+            statement.setInt(4, task.getRepUser().getCode());
+            statement.setInt(5, task.getVersion());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを保存できませんでした", e);
+        }
+    }
+
+    /**
+     * 複数のタスクを、1つのトランザクションでまとめて保存します。
+     * @param tasks 保存するタスク
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        try (Connection connection = storage.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO tasks (code, name, status, rep_user_code, version) VALUES (?, ?, ?, ?, ?)")) {
+                for (Task task : tasks) {
+                    statement.setInt(1, task.getCode());
+                    statement.setString(2, task.getName());
+                    statement.setInt(3, task.getStatus());
+                    statement.setInt(4, task.getRepUser().getCode());
+                    statement.setInt(5, task.getVersion());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを保存できませんでした", e);
+        }
+    }
+
+    /**
+     * コードを基にタスクデータを1件取得します。
+     * 主キーで検索する
+     * @param taskCode 取得するタスクのコード
+     * @return 取得したタスク
+     */
+    @Override
+    public Task findByCode(int taskCode) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_TASK + " WHERE t.code = ?")) {
+            statement.setInt(1, taskCode);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? toTask(rs, new HashMap<>()) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを取得できませんでした", e);
+        }
+    }
+
+    /**
+     * タスクデータを更新します。
+     * コードとバージョンの両方が一致する行だけを更新し、バージョンを1つ増やす
+     * 1行も更新されなかった場合は、他の更新で変更または削除されているためStaleTaskExceptionを投げる
+     * @param updateTask 更新するタスク(バージョンは読み込んだ時点のもの)
+     * @throws StaleTaskException 読み込んだ後にタスクが他の更新で変更または削除されていた場合にスローされます
+     */
+    @Override
+    public void update(Task updateTask) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE tasks SET name = ?, status = ?, rep_user_code = ?, version = version + 1 "
+                                + "WHERE code = ? AND version = ?")) {
+            statement.setString(1, updateTask.getName());
+            statement.setInt(2, updateTask.getStatus());
+            statement.setInt(3, updateTask.getRepUser().getCode());
+            statement.setInt(4, updateTask.getCode());
+            statement.setInt(5, updateTask.getVersion());
+            if (statement.executeUpdate() == 0) {
+                Integer current = findVersion(connection, updateTask.getCode());
+                throw new StaleTaskException(updateTask.getCode(), updateTask.getVersion(),
+                        current != null ? current : StaleTaskException.DELETED);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを更新できませんでした", e);
+        }
+    }
+
+    /**
+     * コードを基にタスクデータを削除します。
+     * @param code 削除するタスクのコード
+     */
+    @Override
+    public void delete(int code) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement("DELETE FROM tasks WHERE code = ?")) {
+            statement.setInt(1, code);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("タスクを削除できませんでした", e);
+        }
+    }
+
+    private Integer findVersion(Connection connection, int code) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT version FROM tasks WHERE code = ?")) {
+            statement.setInt(1, code);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private Task toTask(ResultSet rs, Map<Integer, User> repUsers) throws SQLException {
+        int repUserCode = rs.getInt("rep_user_code");
+        User repUser = repUsers.get(repUserCode);
+        if (repUser == null && rs.getString("email") != null) {
+            repUser = new User(repUserCode, rs.getString("user_name"), rs.getString("email"), rs.getString("password"));
+            repUsers.put(repUserCode, repUser);
+        }
+        return new Task(rs.getInt("code"), rs.getString("name"), rs.getInt("status"), repUser, rs.getInt("version"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.model.User;
+
+/**
+ * ユーザーデータを組み込みデータベースに保存するUserRepositoryの実装です。
+ * SQLの実行に失敗した場合は、DataAccessExceptionを投げます(失敗した変更を成功として扱わないため)。
+ */
+public class JdbcUserDataAccess implements UserRepository {
+    private final JdbcStorage storage;
+
+    public JdbcUserDataAccess(JdbcStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * メールアドレスとパスワードを基にユーザーデータを探します。
+     * usersテーブルのemailインデックスを使って検索する
+     * @param email メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー
+     */
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT code, name, email, password FROM users WHERE email = ? AND password = ?")) {
+            statement.setString(1, email);
+            statement.setString(2, password);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? toUser(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ユーザーを取得できませんでした", e);
+        }
+    }
+
+    /**
+     * コードを基にユーザーデータを取得します。
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー
+     */
+    @Override
+    public User findByCode(int code) {
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT code, name, email, password FROM users WHERE code = ?")) {
+            statement.setInt(1, code);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? toUser(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ユーザーを取得できませんでした", e);
+        }
+    }
+
+    /**
+     * すべてのユーザーをコード順に取得します。
+     * @return ユーザーのリスト
+     */
+    @Override
+    public List<User> findAll() {
+        List<User> userList = new ArrayList<>();
+        try (Connection connection = storage.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT code, name, email, password FROM users ORDER BY code");
+                ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                userList.add(toUser(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("ユーザーを取得できませんでした", e);
+        }
+        return userList;
+    }
+
+    private User toUser(ResultSet rs) throws SQLException {
+        return new User(rs.getInt("code"), rs.getString("name"), rs.getString("email"), rs.getString("password"));
+    }
+}
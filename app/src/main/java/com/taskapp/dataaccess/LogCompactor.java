@@ -0,0 +1,311 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * logs.csvを、メモリの使用量を一定に抑えたまま整理します。
+ *
+ * 削除されたタスクの行と、全く同じ内容の重複した行を取り除き、必要であればタスクコード・変更日の順に並べ替えます。
+ * 並べ替えと重複の判定は外部マージソートで行うため、ファイル全体をメモリに読み込みません。
+ * 一度にメモリに持つ行数はmaxRecordsInMemoryで指定し、それを超える分は一時ファイルに書き出してからマージします。
+ */
+public class LogCompactor {
+    public static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 1 << 20;
+
+    private static final int MERGE_FAN_IN = 64;
+
+    private static final Comparator<Record> BY_CONTENT = Comparator.comparingInt(Record::taskCode)
+            .thenComparingInt(Record::epochDay)
+            .thenComparingInt(Record::changeUserCode)
+            .thenComparingInt(Record::status)
+            .thenComparingLong(Record::seq);
+
+    private static final Comparator<Record> BY_TASK_AND_DATE = Comparator.comparingInt(Record::taskCode)
+            .thenComparingInt(Record::epochDay)
+            .thenComparingLong(Record::seq);
+
+    private static final Comparator<Record> BY_FILE_ORDER = Comparator.comparingLong(Record::seq);
+
+    private final Path workDirectory;
+
+    private final int maxRecordsInMemory;
+
+    /**
+     * @param workDirectory 一時ファイルを置くディレクトリ
+     * @param maxRecordsInMemory 一度にメモリに持つ行数
+     */
+    public LogCompactor(Path workDirectory, int maxRecordsInMemory) {
+        this.workDirectory = workDirectory;
+        this.maxRecordsInMemory = Math.max(2, maxRecordsInMemory);
+    }
+
+    /**
+     * ログのファイルを整理して書き出します。
+     * 実装の流れ
+     * 入力を1行ずつ読み、残すタスクの行だけを、ファイル内の順番を表す通し番号を付けて内容の順に外部ソートする
+     * 内容の順に並んだ行のうち、直前と同じ内容の行を重複として取り除く(最初に現れた行を残す)
+     * 残った行を、sortがtrueならタスクコード・変更日の順、falseならファイル内の順番に外部ソートして書き出す
+     * 出力は一時ファイルに書き込んでから置き換えるため、入力と同じファイルを指定してもよい
+     *
+     * @param input 入力のログファイル
+     * @param output 出力先
+     * @param keepTask 行を残すタスクコードの条件
+     * @param sort タスクコード・変更日の順に並べ替える場合はtrue
+     * @return 整理の結果
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public Result compact(Path input, Path output, IntPredicate keepTask, boolean sort) throws IOException {
+        long start = System.nanoTime();
+        long read = 0;
+        long removedDeleted = 0;
+        long malformed = 0;
+        List<Path> temporaryFiles = new ArrayList<>();
+        try {
+            Sorter byContent = new Sorter(BY_CONTENT, temporaryFiles);
+            try (BufferedReader reader = Files.newBufferedReader(input)) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    Record record = parse(line, read);
+                    read++;
+                    if (record == null) {
+                        malformed++;
+                    } else if (!keepTask.test(record.taskCode())) {
+                        removedDeleted++;
+                    } else {
+                        byContent.add(record);
+                    }
+                }
+            }
+
+            Sorter byOutputOrder = new Sorter(sort ? BY_TASK_AND_DATE : BY_FILE_ORDER, temporaryFiles);
+            long[] removedDuplicate = new long[1];
+            Record[] previous = new Record[1];
+            byContent.finish(record -> {
+                if (previous[0] != null && sameContent(previous[0], record)) {
+                    removedDuplicate[0]++;
+                    return;
+                }
+                previous[0] = record;
+                byOutputOrder.add(record);
+            });
+
+            Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+            long[] written = new long[1];
+            try (BufferedWriter w = Files.newBufferedWriter(temp)) {
+                w.write("Task_Code,Change_User_Code,Status,Change_Date");
+                byOutputOrder.finish(record -> {
+                    w.newLine();
+                    w.write(record.taskCode() + "," + record.changeUserCode() + "," + record.status() + ","
+                            + LocalDate.ofEpochDay(record.epochDay()));
+                    written[0]++;
+                });
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Result(read, removedDeleted, removedDuplicate[0], malformed, written[0],
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            for (Path file : temporaryFiles) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * CSVの1行を変換します。列の数が合わない行、数値・日付として読めない行はnullを返す
+     */
+    private static Record parse(String line, long seq) {
+        String[] v = line.split(",");
+        if (v.length != 4) return null;
+        try {
+            return new Record(Integer.parseInt(v[0]), Integer.parseInt(v[1]), Integer.parseInt(v[2]),
+                    (int) LocalDate.parse(v[3]).toEpochDay(), seq);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean sameContent(Record a, Record b) {
+        return a.taskCode() == b.taskCode() && a.changeUserCode() == b.changeUserCode()
+                && a.status() == b.status() && a.epochDay() == b.epochDay();
+    }
+
+    /**
+     * 1行のログと、入力ファイル内の順番を表す通し番号です。
+     */
+    private record Record(int taskCode, int changeUserCode, int status, int epochDay, long seq) {
+    }
+
+    private interface RecordSink {
+        void accept(Record record) throws IOException;
+    }
+
+    /**
+     * 外部マージソートを行います。
+     * 行をmaxRecordsInMemory件ずつメモリ上でソートして一時ファイル(ソート済みの列)に書き出し、
+     * finishで全ての列をマージしながら順番に渡します。
+     * 列がMERGE_FAN_INを超える場合は、先に一部の列をマージして列の数を減らします。
+     */
+    private final class Sorter {
+        private final Comparator<Record> order;
+        private final List<Path> temporaryFiles;
+        private final List<Path> runs = new ArrayList<>();
+        private Record[] buffer = new Record[Math.min(maxRecordsInMemory, 1024)];
+        private int size;
+
+        Sorter(Comparator<Record> order, List<Path> temporaryFiles) {
+            this.order = order;
+            this.temporaryFiles = temporaryFiles;
+        }
+
+        void add(Record record) throws IOException {
+            if (size == buffer.length) {
+                if (size >= maxRecordsInMemory) {
+                    spill();
+                } else {
+                    buffer = Arrays.copyOf(buffer, Math.min(maxRecordsInMemory, size * 2));
+                }
+            }
+            buffer[size++] = record;
+        }
+
+        void finish(RecordSink sink) throws IOException {
+            Arrays.sort(buffer, 0, size, order);
+            if (runs.isEmpty()) {
+                for (int i = 0; i < size; i++) {
+                    sink.accept(buffer[i]);
+                }
+                buffer = null;
+                return;
+            }
+            if (size > 0) spill();
+            buffer = null;
+            while (runs.size() > MERGE_FAN_IN) {
+                List<Path> group = new ArrayList<>(runs.subList(0, MERGE_FAN_IN));
+                runs.subList(0, MERGE_FAN_IN).clear();
+                Path merged = newTemporaryFile();
+                try (DataOutputStream out = openOutput(merged)) {
+                    merge(group, record -> write(out, record));
+                }
+                deleteAll(group);
+                runs.add(merged);
+            }
+            merge(runs, sink);
+            deleteAll(runs);
+            runs.clear();
+        }
+
+        private void spill() throws IOException {
+            Arrays.sort(buffer, 0, size, order);
+            Path run = newTemporaryFile();
+            try (DataOutputStream out = openOutput(run)) {
+                for (int i = 0; i < size; i++) {
+                    write(out, buffer[i]);
+                    buffer[i] = null;
+                }
+            }
+            runs.add(run);
+            size = 0;
+        }
+
+        private void merge(List<Path> files, RecordSink sink) throws IOException {
+            List<RunReader> readers = new ArrayList<>();
+            try {
+                PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> order.compare(a.current, b.current));
+                for (Path file : files) {
+                    RunReader reader = new RunReader(file);
+                    readers.add(reader);
+                    if (reader.advance()) queue.add(reader);
+                }
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    sink.accept(reader.current);
+                    if (reader.advance()) queue.add(reader);
+                }
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.in.close();
+                }
+            }
+        }
+
+        private Path newTemporaryFile() throws IOException {
+            Path file = Files.createTempFile(workDirectory, "log-compact-", ".run");
+            temporaryFiles.add(file);
+            return file;
+        }
+
+        private void deleteAll(List<Path> files) throws IOException {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static DataOutputStream openOutput(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    private static void write(DataOutputStream out, Record record) throws IOException {
+        out.writeInt(record.taskCode());
+        out.writeInt(record.changeUserCode());
+        out.writeInt(record.status());
+        out.writeInt(record.epochDay());
+        out.writeLong(record.seq());
+    }
+
+    /**
+     * ソート済みの列を先頭から1件ずつ読み込みます。
+     */
+    private static final class RunReader {
+        private final DataInputStream in;
+        private Record current;
+
+        RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            int taskCode;
+            try {
+                taskCode = in.readInt();
+            } catch (EOFException e) {
+                current = null;
+                return false;
+            }
+            current = new Record(taskCode, in.readInt(), in.readInt(), in.readInt(), in.readLong());
+            return true;
+        }
+    }
+
+    /**
+     * 整理の結果です。
+     * @param read 読み込んだ行数(ヘッダーを除く)
+     * @param removedDeleted 削除されたタスクの行として取り除いた行数
+     * @param removedDuplicate 重複として取り除いた行数
+     * @param malformed 形式が正しくないため取り除いた行数
+     * @param written 書き出した行数
+     * @param elapsedMillis 整理にかかった時間(ミリ秒)
+     */
+    public record Result(long read, long removedDeleted, long removedDuplicate, long malformed, long written,
+            long elapsedMillis) {
+    }
+}
@@ -2,21 +2,40 @@ package com.taskapp.dataaccess;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntPredicate;
 
+import com.taskapp.config.AppConfig;
 import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
+import com.taskapp.model.LogTable;
+
+public class LogDataAccess implements LogRepository {
+    private static final long PARALLEL_THRESHOLD = 4L << 20;
 
-public class LogDataAccess {
     private final String filePath;
 
+    private final FileIo io;
+
+    private final ParallelCsvLoader parallelLoader;
+
+    private volatile WarmTable warmTable;
+
+    private volatile LogIndex logIndex;
+
+    private final Object writeLock = new Object();
+
 
     public LogDataAccess() {
-        filePath = "app/src/main/resources/logs.csv";
+        this(AppConfig.defaults().getLogsFile(), AppConfig.defaults());
     }
 
     /**
@@ -24,7 +43,19 @@ public class LogDataAccess {
      * @param filePath
      */
     public LogDataAccess(String filePath) {
+        this(filePath, AppConfig.defaults());
+    }
+
+    /**
+     * 設定に従ってLogDataAccessを生成します。
+     * ファイルの文字コード・バッファサイズ・fsyncは設定の値を使う
+     * @param filePath
+     * @param config アプリケーションの設定
+     */
+    public LogDataAccess(String filePath, AppConfig config) {
         this.filePath = filePath;
+        this.io = new FileIo(config);
+        this.parallelLoader = new ParallelCsvLoader(config.getCharset());
     }
 
     /**
@@ -34,13 +65,108 @@ public class LogDataAccess {
      * 書き込む内容はcreateLineによりフォーマットする
      * @param log 保存するログ
      */
+    @Override
     public void save(Log log) {
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath, true))) {
-            w.newLine();
-            String line = createLine(log);
-            w.write(line);
-        } catch (IOException e) {
-            e.printStackTrace();
+        synchronized (writeLock) {
+            warmTable = null;
+            FileStamp before = FileStamp.of(filePath);
+            try (BufferedWriter w = io.writer(filePath, true)) {
+                w.newLine();
+                String line = createLine(log);
+                w.write(line);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            appendToIndex(List.of(LogRow.of(log)), before);
+        }
+    }
+
+    /**
+     * 複数のログをまとめてCSVに保存します。
+     * ファイルを1回だけ開き、全てのログを続けて書き込む
+     * @param logs 保存するログ
+     */
+    @Override
+    public void saveAll(List<Log> logs) {
+        synchronized (writeLock) {
+            warmTable = null;
+            FileStamp before = FileStamp.of(filePath);
+            try (BufferedWriter w = io.writer(filePath, true)) {
+                for (Log log : logs) {
+                    w.newLine();
+                    w.write(createLine(log));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            List<LogRow> rows = new ArrayList<>(logs.size());
+            logs.forEach(log -> rows.add(LogRow.of(log)));
+            appendToIndex(rows, before);
+        }
+    }
+
+    /**
+     * 保存したログを、変更日・変更ユーザーの索引に追加します。
+     * 書き込む前のファイルの状態が索引と一致しない場合は、他から変更されているため索引を破棄する
+     * @param rows 保存したログ
+     * @param before 書き込む前のファイルの状態
+     */
+    private void appendToIndex(List<LogRow> rows, FileStamp before) {
+        LogIndex index = logIndex;
+        if (index == null) return;
+        if (index.stamp().equals(before)) {
+            index.append(rows, FileStamp.of(filePath));
+        } else {
+            logIndex = null;
+        }
+    }
+
+    /**
+     * 変更日が期間内のログを取得します。
+     * 変更日ごとの索引から、期間内の日のログだけを読み込む
+     *
+     * @see #loadIndex()
+     * @param from 期間の開始日(この日を含む)
+     * @param to 期間の終了日(この日を含む)
+     * @return 該当するログのリスト(変更日の昇順。同じ日はファイル内の順番)
+     */
+    @Override
+    public List<Log> findByDateRange(LocalDate from, LocalDate to) {
+        return loadIndex().findByDateRange((int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    /**
+     * 指定したユーザーが変更したログを取得します。
+     * 変更ユーザーごとの索引から、該当するログだけを読み込む
+     *
+     * @see #loadIndex()
+     * @param changeUserCode 変更ユーザーのコード
+     * @return 該当するログのリスト(ファイル内の順番)
+     */
+    @Override
+    public List<Log> findByChangeUser(int changeUserCode) {
+        return loadIndex().findByChangeUser(changeUserCode);
+    }
+
+    /**
+     * 変更日・変更ユーザーの索引を返します。
+     * 索引がない、またはファイルが索引の作成後に変更されている場合は、loadTableのテーブルから作り直す
+     * @return 索引
+     */
+    private LogIndex loadIndex() {
+        LogIndex index = logIndex;
+        if (index != null && index.stamp().matches(filePath)) {
+            return index;
+        }
+        synchronized (writeLock) {
+            index = logIndex;
+            if (index != null && index.stamp().matches(filePath)) {
+                return index;
+            }
+            FileStamp stamp = FileStamp.of(filePath);
+            index = new LogIndex(loadTable(), stamp);
+            logIndex = index;
+            return index;
         }
     }
 
@@ -50,46 +176,203 @@ public class LogDataAccess {
      * csvを読み込み、カンマで分割して配列に格納する
      * if文を用いてその行に異常がないか確認する
      * logオブジェクトを作製し、logListに格納してlogListを返す。
+     * @see #loadTable()
      * @return すべてのログのリスト
      */
+    @Override
     public List<Log> findAll() {
-        List<Log> logList = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        return loadTable().toLogs();
+    }
+
+    /**
+     * すべてのログを、列ごとの配列で保持するLogTableとして取得します。
+     * 変更日はエポック日数に変換して保持する
+     * 前回読み込んだときからファイルが変更されていなければ、読み込み済みのテーブルをそのまま返す
+     * @see #readTable()
+     * @return ログのテーブル
+     */
+    public LogTable loadTable() {
+        FileStamp stamp = FileStamp.of(filePath);
+        WarmTable current = warmTable;
+        if (current != null && current.stamp().equals(stamp)) {
+            return current.table();
+        }
+        LogTable table = readTable();
+        warmTable = new WarmTable(table, stamp);
+        return table;
+    }
+
+    /**
+     * 読み込み済みのテーブルを登録します。
+     * スナップショットから復元したテーブルなど、CSVを読み込まずに用意したテーブルを使う場合に呼び出す
+     * stampがファイルの現在の状態と一致しない場合は登録しない
+     * @param table 登録するテーブル
+     * @param stamp テーブルを読み込んだときのファイルの状態
+     * @return 登録した場合はtrue
+     */
+    public boolean preload(LogTable table, FileStamp stamp) {
+        if (!stamp.matches(filePath)) return false;
+        warmTable = new WarmTable(table, stamp);
+        return true;
+    }
+
+    /**
+     * logs.csvの現在の状態を返します。
+     * @return ファイルの状態
+     */
+    public FileStamp stamp() {
+        return FileStamp.of(filePath);
+    }
+
+    /**
+     * CSVを読み込み、LogTableを作成します。
+     * ファイルサイズがPARALLEL_THRESHOLD以上のときは、ParallelCsvLoaderで複数スレッドに分けて読み込む
+     * @see com.taskapp.dataaccess.ParallelCsvLoader#load(java.nio.file.Path, java.util.function.Function)
+     * @return ログのテーブル
+     */
+    private LogTable readTable() {
+        LogTable.Builder builder = LogTable.builder();
+        if (new File(filePath).length() >= PARALLEL_THRESHOLD) {
+            try {
+                parallelLoader.load(Paths.get(filePath), LogDataAccess::parseRow).forEach(builder::add);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return builder.build();
+        }
+        try (BufferedReader reader = io.reader(filePath)) {
             reader.readLine();
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] v = line.split(",");
-                if (v.length != 4) continue;
-                Log log = new Log(Integer.parseInt(v[0]), Integer.parseInt(v[1]), Integer.parseInt(v[2]),LocalDate.parse(v[3]));
-                logList.add(log);
+                LogRow row = parseRow(line);
+                if (row == null) continue;
+                builder.add(row);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return logList;
+        return builder.build();
+    }
+
+    /**
+     * 読み込み済みのテーブルと、読み込んだときのファイルの状態の組です。
+     */
+    private record WarmTable(LogTable table, FileStamp stamp) {
+    }
+
+    /**
+     * CSVの1行をLogRowに変換します。
+     * 列の数が合わない行はnullを返す
+     * @param line CSVの1行
+     * @return 変換したレコード
+     */
+    private static LogRow parseRow(String line) {
+        String[] v = line.split(",");
+        if (v.length != 4) return null;
+        return new LogRow(Integer.parseInt(v[0]), Integer.parseInt(v[1]), Integer.parseInt(v[2]),
+                (int) LocalDate.parse(v[3]).toEpochDay());
     }
 
     /**
      * 指定したタスクコードに該当するログを削除します。
-     * findAllを呼び出し、現在のcsvをリスト化したものを取得する
-     * ファイルに書き込んでいく際、受け取ったtaskCodeと同一のオブジェクトに関して書き込みをスキップする
+     * csvを1行ずつ読み込みながら、同じディレクトリの一時ファイルに書き込んでいく
+     * 書き込む際、受け取ったtaskCodeと同一の行と、形式が正しくない行をスキップする
+     * 最後に一時ファイルで元のファイルを置き換える
+     * ファイル全体をメモリに読み込まないため、ファイルの大きさに関係なく削除できる
      *
-     * @see #findAll()
      * @param taskCode 削除するログのタスクコード
      */
+    @Override
     public void deleteByTaskCode(int taskCode) {
-        List<Log> logList = findAll();
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath))) {
-            w.write("Task_Code,Change_User_Code,Status,Change_Date");
-            String line;
-            for (Log log : logList) {
-                if (log.getTaskCode() == taskCode) continue;
-                line = createLine(log);
-                w.newLine();
-                w.write(line);
+        synchronized (writeLock) {
+            warmTable = null;
+            logIndex = null;
+            Path path = Paths.get(filePath);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (BufferedReader reader = io.reader(filePath);
+                    BufferedWriter w = io.writer(temp.toString(), false)) {
+                w.write("Task_Code,Change_User_Code,Status,Change_Date");
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    LogRow row = parseRowOrNull(line);
+                    if (row == null || row.taskCode() == taskCode) continue;
+                    w.newLine();
+                    w.write(createLine(row.toLog()));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 全てのログを、指定したログで置き換えます。
+     * 同じディレクトリの一時ファイルに全てのログを書き込み、元のファイルと置き換える
+     * @param logs 置き換え後のログ
+     */
+    @Override
+    public void replaceAll(List<Log> logs) {
+        synchronized (writeLock) {
+            warmTable = null;
+            logIndex = null;
+            Path path = Paths.get(filePath);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (BufferedWriter w = io.writer(temp.toString(), false)) {
+                w.write("Task_Code,Change_User_Code,Status,Change_Date");
+                for (Log log : logs) {
+                    w.newLine();
+                    w.write(createLine(log));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * logs.csvを整理します。
+     * 削除されたタスクの行と重複した行を取り除き、sortがtrueであればタスクコード・変更日の順に並べ替える
+     * 整理中は保存・削除を待たせる
+     *
+     * @see com.taskapp.dataaccess.LogCompactor#compact(Path, Path, IntPredicate, boolean)
+     * @param keepTask 行を残すタスクコードの条件
+     * @param sort タスクコード・変更日の順に並べ替える場合はtrue
+     * @param maxRecordsInMemory 一度にメモリに持つ行数
+     * @return 整理の結果
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public LogCompactor.Result compact(IntPredicate keepTask, boolean sort, int maxRecordsInMemory)
+            throws IOException {
+        synchronized (writeLock) {
+            warmTable = null;
+            logIndex = null;
+            Path path = Paths.get(filePath).toAbsolutePath();
+            return new LogCompactor(path.getParent(), maxRecordsInMemory).compact(path, path, keepTask, sort);
+        }
+    }
+
+    /**
+     * CSVの1行をLogRowに変換します。
+     * 列の数が合わない行、数値・日付として読めない行はnullを返す
+     */
+    private static LogRow parseRowOrNull(String line) {
+        try {
+            return parseRow(line);
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
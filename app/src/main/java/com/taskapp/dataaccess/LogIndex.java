@@ -0,0 +1,119 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
+import com.taskapp.model.LogTable;
+
+/**
+ * ログを変更日・変更ユーザーで探すための索引です。
+ * 読み込み済みのLogTableと、その後に保存されたログを行番号で参照し、
+ * 変更日ごと・変更ユーザーごとに行番号の列(ポスティングリスト)を持ちます。
+ * 検索では該当する列の行だけを読みます。
+ */
+final class LogIndex {
+    private final LogTable base;
+    private final List<LogRow> appended = new ArrayList<>();
+    private final NavigableMap<Integer, Positions> byDay = new TreeMap<>();
+    private final Map<Integer, Positions> byUser = new HashMap<>();
+    private FileStamp stamp;
+
+    /**
+     * 読み込み済みのテーブルから索引を作成します。
+     * @param base ログのテーブル
+     * @param stamp テーブルを読み込んだときのファイルの状態
+     */
+    LogIndex(LogTable base, FileStamp stamp) {
+        this.base = base;
+        this.stamp = stamp;
+        for (int i = 0; i < base.size(); i++) {
+            addPosition(i, base.changeEpochDayAt(i), base.changeUserCodeAt(i));
+        }
+    }
+
+    /**
+     * 索引を作成したとき、または最後に追加したときのファイルの状態を返します。
+     * @return ファイルの状態
+     */
+    synchronized FileStamp stamp() {
+        return stamp;
+    }
+
+    /**
+     * 保存したログを索引に追加します。
+     * @param rows 追加するログ
+     * @param newStamp 保存した後のファイルの状態
+     */
+    synchronized void append(List<LogRow> rows, FileStamp newStamp) {
+        for (LogRow row : rows) {
+            int position = base.size() + appended.size();
+            appended.add(row);
+            addPosition(position, row.changeEpochDay(), row.changeUserCode());
+        }
+        stamp = newStamp;
+    }
+
+    /**
+     * 変更日が期間内のログを、変更日・ファイル内の順番に返します。
+     * @param fromEpochDay 期間の開始日(エポック日数、この日を含む)
+     * @param toEpochDay 期間の終了日(エポック日数、この日を含む)
+     * @return 該当するログ
+     */
+    synchronized List<Log> findByDateRange(int fromEpochDay, int toEpochDay) {
+        List<Log> logs = new ArrayList<>();
+        if (fromEpochDay > toEpochDay) return logs;
+        for (Positions positions : byDay.subMap(fromEpochDay, true, toEpochDay, true).values()) {
+            collect(positions, logs);
+        }
+        return logs;
+    }
+
+    /**
+     * 変更ユーザーが一致するログを、ファイル内の順番に返します。
+     * @param changeUserCode 変更ユーザーのコード
+     * @return 該当するログ
+     */
+    synchronized List<Log> findByChangeUser(int changeUserCode) {
+        List<Log> logs = new ArrayList<>();
+        Positions positions = byUser.get(changeUserCode);
+        if (positions != null) {
+            collect(positions, logs);
+        }
+        return logs;
+    }
+
+    private void addPosition(int position, int epochDay, int changeUserCode) {
+        byDay.computeIfAbsent(epochDay, d -> new Positions()).add(position);
+        byUser.computeIfAbsent(changeUserCode, u -> new Positions()).add(position);
+    }
+
+    private void collect(Positions positions, List<Log> logs) {
+        for (int i = 0; i < positions.size; i++) {
+            int position = positions.values[i];
+            LogRow row = position < base.size() ? base.get(position) : appended.get(position - base.size());
+            logs.add(row.toLog());
+        }
+    }
+
+    /**
+     * 行番号を追加順に並べた列です。
+     */
+    private static final class Positions {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログデータの保存先を表すインターフェースです。
+ */
+public interface LogRepository {
+
+    /**
+     * ログを保存します。
+     * @param log 保存するログ
+     */
+    void save(Log log);
+
+    /**
+     * 複数のログをまとめて保存します。
+     * 既定の実装では1件ずつsaveを呼び出す
+     * @param logs 保存するログ
+     */
+    default void saveAll(List<Log> logs) {
+        logs.forEach(this::save);
+    }
+
+    /**
+     * すべてのログを取得します。
+     * @return すべてのログのリスト
+     */
+    List<Log> findAll();
+
+    /**
+     * 変更日が期間内のログを取得します。
+     * 既定の実装ではfindAllの結果を絞り込み、変更日の順に並べる
+     * @param from 期間の開始日(この日を含む)
+     * @param to 期間の終了日(この日を含む)
+     * @return 該当するログのリスト(変更日の昇順)
+     */
+    default List<Log> findByDateRange(LocalDate from, LocalDate to) {
+        return findAll().stream()
+                .filter(log -> !log.getChangeDate().isBefore(from) && !log.getChangeDate().isAfter(to))
+                .sorted(Comparator.comparing(Log::getChangeDate))
+                .toList();
+    }
+
+    /**
+     * 指定したユーザーが変更したログを取得します。
+     * 既定の実装ではfindAllの結果を絞り込む
+     * @param changeUserCode 変更ユーザーのコード
+     * @return 該当するログのリスト
+     */
+    default List<Log> findByChangeUser(int changeUserCode) {
+        return findAll().stream().filter(log -> log.getChangeUserCode() == changeUserCode).toList();
+    }
+
+    /**
+     * 全てのログを、指定したログで置き換えます。
+     * 既定の実装では既存のログをタスクコードごとに削除してからsaveAllを呼び出す
+     * @param logs 置き換え後のログ
+     */
+    default void replaceAll(List<Log> logs) {
+        findAll().stream().map(Log::getTaskCode).distinct().forEach(this::deleteByTaskCode);
+        saveAll(logs);
+    }
+
+    /**
+     * 指定したタスクコードに該当するログを削除します。
+     * @param taskCode 削除するログのタスクコード
+     */
+    void deleteByTaskCode(int taskCode);
+
+    /**
+     * ログを、IoExecutorのスレッドで保存します。
+     * @see #save(Log)
+     * @param log 保存するログ
+     * @return 保存の完了
+     */
+    default CompletableFuture<Void> saveAsync(Log log) {
+        return IoExecutor.shared().run(() -> save(log));
+    }
+
+    /**
+     * すべてのログを、IoExecutorのスレッドで取得します。
+     * @see #findAll()
+     * @return すべてのログのリスト
+     */
+    default CompletableFuture<List<Log>> findAllAsync() {
+        return IoExecutor.shared().supply(this::findAll);
+    }
+}
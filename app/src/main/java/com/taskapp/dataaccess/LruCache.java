@@ -0,0 +1,106 @@
+package com.taskapp.dataaccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 件数の上限と有効期限を指定できるLRUキャッシュです。
+ * 上限を超えた場合は、最も長く参照されていないエントリから破棄します。
+ * ヒット・ミス・破棄の件数を記録し、clearしても記録は引き継ぎます。
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize 保持するエントリの上限数
+     * @param ttlMillis エントリの有効期限(ミリ秒)。0以下の場合は期限なし
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * キャッシュから値を取得します。
+     * キャッシュにない、または有効期限が切れている場合はnullを返す
+     * @param key キー
+     * @return 値。キャッシュにない場合はnull
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    /**
+     * 値をキャッシュに登録します。
+     * @param key キー
+     * @param value 値
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    /**
+     * 全てのエントリを破棄します。
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 現在の統計を返します。
+     * @return キャッシュの統計
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, entries.size());
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt() > ttlMillis;
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+
+    /**
+     * キャッシュの統計です。
+     * @param hits キャッシュから返した回数
+     * @param misses 値を読み込んだ回数
+     * @param evictions 上限を超えたため破棄した回数
+     * @param size 現在のエントリ数
+     */
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+
+        /**
+         * ヒット率を返します。
+         * @return ヒット率(0.0~1.0)。一度も参照されていない場合は0.0
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
+
+/**
+ * LsmLogStoreにログを保存するLogRepositoryです。
+ * findAllは、ログを(タスクコード, 変更日, 登録順)の順に返します。
+ */
+public class LsmLogDataAccess implements LogRepository {
+    private final LsmLogStore store;
+
+    public LsmLogDataAccess(LsmLogStore store) {
+        this.store = store;
+    }
+
+    /**
+     * ログを保存します。
+     * @param log 保存するログ
+     */
+    @Override
+    public void save(Log log) {
+        try {
+            store.append(LogRow.of(log));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 複数のログをまとめて保存します。
+     * @param logs 保存するログ
+     */
+    @Override
+    public void saveAll(List<Log> logs) {
+        List<LogRow> rows = new ArrayList<>(logs.size());
+        logs.forEach(log -> rows.add(LogRow.of(log)));
+        try {
+            store.appendAll(rows);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * すべてのログを取得します。
+     * @return すべてのログのリスト
+     */
+    @Override
+    public List<Log> findAll() {
+        return toLogs(store.scan());
+    }
+
+    /**
+     * 指定したタスクの、変更日が期間内のログを取得します。
+     *
+     * @see com.taskapp.dataaccess.LsmLogStore#range(int, int, int)
+     * @param taskCode タスクコード
+     * @param from 期間の開始日(この日を含む)
+     * @param to 期間の終了日(この日を含む)
+     * @return 該当するログ(変更日の昇順)
+     */
+    public List<Log> findByTaskCode(int taskCode, LocalDate from, LocalDate to) {
+        return toLogs(store.range(taskCode, (int) from.toEpochDay(), (int) to.toEpochDay()));
+    }
+
+    /**
+     * 指定したタスクコードに該当するログを削除します。
+     * @param taskCode 削除するログのタスクコード
+     */
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        try {
+            store.deleteTask(taskCode);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private List<Log> toLogs(List<LogRow> rows) {
+        List<Log> logs = new ArrayList<>(rows.size());
+        rows.forEach(row -> logs.add(row.toLog()));
+        return logs;
+    }
+}
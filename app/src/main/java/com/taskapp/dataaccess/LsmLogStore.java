@@ -0,0 +1,697 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.model.LogRow;
+
+/**
+ * ログを(タスクコード, 変更日)の順に並べて保持する、LSM方式のログストアです。
+ *
+ * 書き込みはまずWAL(追記専用のファイル)に記録し、メモリ上のソート済みバッファ(memtable)に追加します。
+ * memtableが一定の件数を超えると、ソート済みの変更できないファイル(run)として書き出し、WALを空にします。
+ * runが一定の数を超えると、バックグラウンドで全てのrunを1つにマージします。
+ * runは固定長のレコードを並べた形式で、メモリマップして二分探索するため、
+ * 1つのタスクの期間指定の検索はrunの数×log(件数)で済みます。
+ *
+ * タスク単位の削除は、そのタスクの削除時点より前のログを隠す「削除の印」(tombstone)として記録し、
+ * マージのときに実際に取り除きます。
+ * 同じタスク・同じ変更日のログは、到着順を表す通し番号で区別します。
+ * 設定のfsyncがalwaysの場合は、追加・削除のたびにWALをディスクへ書き出してから戻ります。
+ */
+public class LsmLogStore implements AutoCloseable {
+    public static final int DEFAULT_MEMTABLE_LIMIT = 4096;
+
+    public static final int DEFAULT_MERGE_THRESHOLD = 4;
+
+    private static final int MAGIC = 0x4c534d52;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final int TOMBSTONE_SIZE = 12;
+
+    private static final int RECORD_SIZE = 24;
+
+    private static final byte WAL_PUT = 1;
+
+    private static final byte WAL_DELETE = 2;
+
+    private final Path directory;
+
+    private final int memtableLimit;
+
+    private final int mergeThreshold;
+
+    private final ExecutorService merger;
+
+    private TreeSet<Entry> memtable = new TreeSet<>();
+
+    private final Map<Integer, Long> tombstones = new HashMap<>();
+
+    private List<Run> runs = new ArrayList<>();
+
+    private final boolean fsync;
+
+    private final boolean created;
+
+    private DataOutputStream wal;
+
+    private FileChannel walChannel;
+
+    private long nextSeq;
+
+    private long nextRunId;
+
+    private boolean mergeScheduled;
+
+    /**
+     * 既定の設定でストアを開きます。
+     * @param directory ストアのファイルを置くディレクトリ
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public LsmLogStore(Path directory) throws IOException {
+        this(directory, AppConfig.defaults());
+    }
+
+    /**
+     * 既定のmemtable・マージの設定でストアを開きます。
+     * @param directory ストアのファイルを置くディレクトリ
+     * @param config アプリケーションの設定(fsyncの設定を使う)
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public LsmLogStore(Path directory, AppConfig config) throws IOException {
+        this(directory, DEFAULT_MEMTABLE_LIMIT, DEFAULT_MERGE_THRESHOLD, config);
+    }
+
+    /**
+     * 既定の設定(fsyncしない)でストアを開きます。
+     * @see #LsmLogStore(Path, int, int, AppConfig)
+     * @param directory ストアのファイルを置くディレクトリ
+     * @param memtableLimit runとして書き出すmemtableの件数
+     * @param mergeThreshold マージを始めるrunの数
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public LsmLogStore(Path directory, int memtableLimit, int mergeThreshold) throws IOException {
+        this(directory, memtableLimit, mergeThreshold, AppConfig.defaults());
+    }
+
+    /**
+     * ストアを開きます。
+     * 実装の流れ
+     * ディレクトリのrunを読み込み、書き込み途中で残った一時ファイルを削除する
+     * WALに残っている記録をmemtableに再適用し、runとして書き出してからWALを新しく作り直す
+     * (途中まで書かれた最後の記録は捨てる)
+     *
+     * @param directory ストアのファイルを置くディレクトリ
+     * @param memtableLimit runとして書き出すmemtableの件数
+     * @param mergeThreshold マージを始めるrunの数
+     * @param config アプリケーションの設定(fsyncの設定を使う)
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public LsmLogStore(Path directory, int memtableLimit, int mergeThreshold, AppConfig config)
+            throws IOException {
+        this.directory = directory;
+        this.fsync = new FileIo(config).fsync();
+        this.memtableLimit = memtableLimit;
+        this.mergeThreshold = Math.max(2, mergeThreshold);
+        this.merger = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "lsm-log-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                } else if (name.startsWith("run-") && name.endsWith(".dat")) {
+                    Run run = Run.open(file);
+                    runs.add(run);
+                    tombstones.putAll(run.tombstones);
+                    nextSeq = Math.max(nextSeq, run.maxSeq + 1);
+                    nextRunId = Math.max(nextRunId, Long.parseLong(name.substring(4, name.length() - 4)) + 1);
+                }
+            }
+        }
+        // runもWALもなければ、このストアで初めて作成したディレクトリ
+        created = runs.isEmpty() && !Files.exists(directory.resolve("wal.log"));
+        if (replayWal()) {
+            flushMemtable();
+        }
+        wal = openWal(true);
+    }
+
+    /**
+     * ログを1件追加します。
+     * @param row 追加するログ
+     * @throws IOException WALへの書き込みに失敗した場合にスローされます
+     */
+    public synchronized void append(LogRow row) throws IOException {
+        putEntry(row);
+        syncWal();
+        flushIfFull();
+    }
+
+    /**
+     * 複数のログをまとめて追加します。
+     * WALへの書き出し(fsyncがalwaysの場合はディスクへの書き出し)は最後に1回だけ行う
+     * @param rows 追加するログ
+     * @throws IOException WALへの書き込みに失敗した場合にスローされます
+     */
+    public synchronized void appendAll(List<LogRow> rows) throws IOException {
+        for (LogRow row : rows) {
+            putEntry(row);
+            if (memtable.size() >= memtableLimit) {
+                wal.flush();
+                flushIfFull();
+            }
+        }
+        syncWal();
+        flushIfFull();
+    }
+
+    /**
+     * 指定したタスクのログを全て削除します。
+     * memtableからはすぐに取り除き、run上のログは削除の印で隠す
+     * @param taskCode タスクコード
+     * @throws IOException WALへの書き込みに失敗した場合にスローされます
+     */
+    public synchronized void deleteTask(int taskCode) throws IOException {
+        long seq = nextSeq++;
+        wal.writeByte(WAL_DELETE);
+        wal.writeInt(taskCode);
+        wal.writeLong(seq);
+        syncWal();
+        applyDelete(taskCode, seq);
+    }
+
+    /**
+     * 全てのログを(タスクコード, 変更日, 到着順)の順に返します。
+     * @return 全てのログ
+     */
+    public List<LogRow> scan() {
+        View view;
+        synchronized (this) {
+            view = new View(new ArrayList<>(memtable), List.copyOf(runs), new HashMap<>(tombstones));
+        }
+        List<Cursor> cursors = new ArrayList<>();
+        cursors.add(new ListCursor(view.memtable()));
+        for (Run run : view.runs()) {
+            cursors.add(new RunCursor(run, 0, run.count));
+        }
+        List<LogRow> result = new ArrayList<>();
+        merge(cursors, view.tombstones(), e -> result.add(e.toRow()));
+        return result;
+    }
+
+    /**
+     * 指定したタスクの、変更日が期間内のログを変更日・到着順に返します。
+     * memtableと各runで範囲の先頭を二分探索し、範囲内だけをたどってマージする
+     * @param taskCode タスクコード
+     * @param fromEpochDay 期間の開始日(エポック日数、この日を含む)
+     * @param toEpochDay 期間の終了日(エポック日数、この日を含む)
+     * @return 該当するログ
+     */
+    public List<LogRow> range(int taskCode, int fromEpochDay, int toEpochDay) {
+        Entry from = new Entry(taskCode, fromEpochDay, Long.MIN_VALUE, 0, 0);
+        Entry to = new Entry(taskCode, toEpochDay, Long.MAX_VALUE, 0, 0);
+        View view;
+        synchronized (this) {
+            List<Entry> memtableRange = fromEpochDay > toEpochDay ? List.of()
+                    : new ArrayList<>(memtable.subSet(from, true, to, true));
+            Long tombstone = tombstones.get(taskCode);
+            view = new View(memtableRange, List.copyOf(runs),
+                    tombstone == null ? Map.of() : Map.of(taskCode, tombstone));
+        }
+        List<LogRow> result = new ArrayList<>();
+        if (fromEpochDay > toEpochDay) return result;
+        List<Cursor> cursors = new ArrayList<>();
+        cursors.add(new ListCursor(view.memtable()));
+        for (Run run : view.runs()) {
+            cursors.add(new RunCursor(run, run.lowerBound(from), run.lowerBound(to)));
+        }
+        merge(cursors, view.tombstones(), e -> result.add(e.toRow()));
+        return result;
+    }
+
+    /**
+     * memtableの内容を、件数に関係なくrunとして書き出します。
+     * @throws IOException 書き込みに失敗した場合にスローされます
+     */
+    public synchronized void flush() throws IOException {
+        if (memtable.isEmpty()) return;
+        flushMemtable();
+        wal.close();
+        wal = openWal(true);
+        scheduleMerge();
+    }
+
+    /**
+     * 全てのrunを1つにマージし、完了するまで待ちます。
+     * @throws IOException マージに失敗した場合にスローされます
+     */
+    public void compact() throws IOException {
+        try {
+            merger.submit(() -> {
+                mergeRuns();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("compaction was interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 現在のrunの数を返します。
+     * @return runの数
+     */
+    public synchronized int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * 開いたときに、ディレクトリにrunもWALもなかったかを判定します。
+     * 全てのログを削除したストアはisEmptyがtrueになるが、このメソッドはfalseを返すため、
+     * 他の保存先からの移行を一度だけ行う判定に使う
+     * @return 新しく作成したストアであればtrue
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * ストアにログが1件もないかを判定します。
+     * @return ログがなければtrue
+     */
+    public boolean isEmpty() {
+        synchronized (this) {
+            if (!memtable.isEmpty()) return false;
+            if (runs.stream().allMatch(r -> r.count == 0)) return true;
+        }
+        return scan().isEmpty();
+    }
+
+    /**
+     * WALを閉じ、実行中のマージの完了を待ちます。
+     * memtableの内容はWALに残っているため、次に開いたときに復元される
+     */
+    @Override
+    public void close() throws IOException {
+        merger.shutdown();
+        try {
+            merger.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            wal.close();
+        }
+    }
+
+    private void putEntry(LogRow row) throws IOException {
+        long seq = nextSeq++;
+        wal.writeByte(WAL_PUT);
+        wal.writeInt(row.taskCode());
+        wal.writeInt(row.changeEpochDay());
+        wal.writeLong(seq);
+        wal.writeInt(row.changeUserCode());
+        wal.writeInt(row.status());
+        memtable.add(new Entry(row.taskCode(), row.changeEpochDay(), seq, row.changeUserCode(), row.status()));
+    }
+
+    /**
+     * WALのバッファを書き出します。
+     * fsyncがalwaysの場合は、OSのキャッシュからディスクへの書き出しも待つ
+     */
+    private void syncWal() throws IOException {
+        wal.flush();
+        if (fsync) walChannel.force(false);
+    }
+
+    private void applyDelete(int taskCode, long seq) {
+        tombstones.merge(taskCode, seq, Math::max);
+        memtable.subSet(new Entry(taskCode, Integer.MIN_VALUE, Long.MIN_VALUE, 0, 0), true,
+                new Entry(taskCode, Integer.MAX_VALUE, Long.MAX_VALUE, 0, 0), true).clear();
+    }
+
+    private void flushIfFull() throws IOException {
+        if (memtable.size() >= memtableLimit) {
+            flush();
+        }
+    }
+
+    /**
+     * memtableと現在の削除の印をrunとして書き出し、memtableを空にします。
+     */
+    private void flushMemtable() throws IOException {
+        long maxSeq = nextSeq - 1;
+        Path path = runPath(nextRunId++);
+        Run run = Run.write(path, tombstones, maxSeq, memtable::forEach);
+        runs = append(runs, run);
+        memtable = new TreeSet<>();
+    }
+
+    private void scheduleMerge() {
+        if (runs.size() < mergeThreshold || mergeScheduled) return;
+        mergeScheduled = true;
+        merger.execute(() -> {
+            try {
+                mergeRuns();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * その時点の全てのrunを1つのrunにマージします。マージ用のスレッドで実行する
+     * 実装の流れ
+     * runの一覧と削除の印を取得し、ロックを外してからマージ後のrunを書き出す
+     * 削除の印に該当するログと、異常終了で重複したログはここで取り除く
+     * マージ中に追加されたrunを残したまま、マージしたrunを置き換え、古いファイルを削除する
+     * マージしたrunに含まれる削除の印は、もう必要ないため破棄する
+     */
+    private void mergeRuns() throws IOException {
+        List<Run> merging;
+        Map<Integer, Long> mergeTombstones;
+        Path path;
+        synchronized (this) {
+            mergeScheduled = false;
+            merging = List.copyOf(runs);
+            if (merging.size() < 2) return;
+            mergeTombstones = new HashMap<>(tombstones);
+            path = runPath(nextRunId++);
+        }
+
+        long maxSeq = merging.stream().mapToLong(r -> r.maxSeq).max().orElse(-1);
+        Run merged = Run.write(path, Map.of(), maxSeq, sink -> {
+            List<Cursor> cursors = new ArrayList<>();
+            for (Run run : merging) {
+                cursors.add(new RunCursor(run, 0, run.count));
+            }
+            merge(cursors, mergeTombstones, sink);
+        });
+
+        synchronized (this) {
+            List<Run> remaining = new ArrayList<>(runs);
+            remaining.removeAll(merging);
+            remaining.add(0, merged);
+            runs = remaining;
+            tombstones.values().removeIf(seq -> seq <= maxSeq);
+            scheduleMerge();
+        }
+        for (Run run : merging) {
+            Files.deleteIfExists(run.path);
+        }
+    }
+
+    /**
+     * WALに残っている記録をmemtableと削除の印に再適用します。
+     * @return 再適用した記録があればtrue
+     */
+    private boolean replayWal() throws IOException {
+        Path path = directory.resolve("wal.log");
+        if (!Files.exists(path)) return false;
+        boolean replayed = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == WAL_PUT) {
+                    Entry entry = new Entry(in.readInt(), in.readInt(), in.readLong(), in.readInt(), in.readInt());
+                    memtable.add(entry);
+                    nextSeq = Math.max(nextSeq, entry.seq() + 1);
+                } else if (type == WAL_DELETE) {
+                    int taskCode = in.readInt();
+                    long seq = in.readLong();
+                    applyDelete(taskCode, seq);
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                } else {
+                    break;
+                }
+                replayed = true;
+            }
+        } catch (EOFException e) {
+            // 書き込み途中で終了した最後の記録は捨てる
+        }
+        return replayed;
+    }
+
+    private DataOutputStream openWal(boolean truncate) throws IOException {
+        walChannel = FileChannel.open(directory.resolve("wal.log"), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(walChannel)));
+    }
+
+    private Path runPath(long id) {
+        return directory.resolve(String.format("run-%012d.dat", id));
+    }
+
+    private static List<Run> append(List<Run> runs, Run run) {
+        List<Run> next = new ArrayList<>(runs);
+        next.add(run);
+        return next;
+    }
+
+    /**
+     * 複数のカーソルをキーの順にマージし、削除の印で隠されたログと重複したログを除いて渡します。
+     */
+    private static void merge(List<Cursor> cursors, Map<Integer, Long> tombstones,
+            Consumer<Entry> sink) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> a.peek().compareTo(b.peek()));
+        for (Cursor cursor : cursors) {
+            if (cursor.peek() != null) queue.add(cursor);
+        }
+        Entry last = null;
+        while (!queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            Entry entry = cursor.peek();
+            cursor.advance();
+            if (cursor.peek() != null) queue.add(cursor);
+            if (last != null && last.compareTo(entry) == 0) continue;
+            last = entry;
+            Long deletedBefore = tombstones.get(entry.taskCode());
+            if (deletedBefore != null && entry.seq() < deletedBefore) continue;
+            sink.accept(entry);
+        }
+    }
+
+    /**
+     * ストアの1件のログです。(タスクコード, 変更日, 通し番号)の順に並びます。
+     */
+    private record Entry(int taskCode, int epochDay, long seq, int changeUserCode, int status)
+            implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            int c = Integer.compare(taskCode, other.taskCode);
+            if (c != 0) return c;
+            c = Integer.compare(epochDay, other.epochDay);
+            if (c != 0) return c;
+            return Long.compare(seq, other.seq);
+        }
+
+        LogRow toRow() {
+            return new LogRow(taskCode, changeUserCode, status, epochDay);
+        }
+    }
+
+    /**
+     * 検索のためにロックの中で取得した、memtable・run・削除の印の組です。
+     */
+    private record View(List<Entry> memtable, List<Run> runs, Map<Integer, Long> tombstones) {
+    }
+
+    private interface Cursor {
+        Entry peek();
+
+        void advance();
+    }
+
+    private static final class ListCursor implements Cursor {
+        private final List<Entry> entries;
+        private int index;
+
+        ListCursor(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Entry peek() {
+            return index < entries.size() ? entries.get(index) : null;
+        }
+
+        @Override
+        public void advance() {
+            index++;
+        }
+    }
+
+    private static final class RunCursor implements Cursor {
+        private final Run run;
+        private final int end;
+        private int index;
+        private Entry current;
+
+        RunCursor(Run run, int start, int end) {
+            this.run = run;
+            this.index = start;
+            this.end = end;
+            this.current = start < end ? run.entryAt(start) : null;
+        }
+
+        @Override
+        public Entry peek() {
+            return current;
+        }
+
+        @Override
+        public void advance() {
+            index++;
+            current = index < end ? run.entryAt(index) : null;
+        }
+    }
+
+    /**
+     * ソート済みの変更できないファイルです。
+     * ヘッダー、削除の印、固定長のログの順に並び、読み込みはメモリマップで行います。
+     */
+    private static final class Run {
+        private final Path path;
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int entriesOffset;
+        private final long maxSeq;
+        private final Map<Integer, Long> tombstones;
+
+        private Run(Path path, ByteBuffer buffer, int count, int entriesOffset, long maxSeq,
+                Map<Integer, Long> tombstones) {
+            this.path = path;
+            this.buffer = buffer;
+            this.count = count;
+            this.entriesOffset = entriesOffset;
+            this.maxSeq = maxSeq;
+            this.tombstones = tombstones;
+        }
+
+        static Run open(Path path) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("run format is not supported: " + path);
+            }
+            int count = buffer.getInt(8);
+            int tombstoneCount = buffer.getInt(12);
+            long maxSeq = buffer.getLong(16);
+            Map<Integer, Long> tombstones = new HashMap<>();
+            for (int i = 0; i < tombstoneCount; i++) {
+                int offset = HEADER_SIZE + i * TOMBSTONE_SIZE;
+                tombstones.put(buffer.getInt(offset), buffer.getLong(offset + 4));
+            }
+            int entriesOffset = HEADER_SIZE + tombstoneCount * TOMBSTONE_SIZE;
+            if ((long) entriesOffset + (long) count * RECORD_SIZE != buffer.capacity()) {
+                throw new IOException("run is truncated: " + path);
+            }
+            return new Run(path, buffer, count, entriesOffset, maxSeq, tombstones);
+        }
+
+        /**
+         * runを書き出して開きます。
+         * 件数はログを書き終えてからヘッダーに書き込み、一時ファイルに書き込んでから置き換える
+         * @param writer ログをキーの順に渡す処理
+         */
+        static Run write(Path path, Map<Integer, Long> tombstones, long maxSeq,
+                Consumer<Consumer<Entry>> writer) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            int[] count = new int[1];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(0);
+                out.writeInt(tombstones.size());
+                out.writeLong(maxSeq);
+                for (Map.Entry<Integer, Long> t : tombstones.entrySet()) {
+                    out.writeInt(t.getKey());
+                    out.writeLong(t.getValue());
+                }
+                IOException[] failure = new IOException[1];
+                writer.accept(e -> {
+                    if (failure[0] != null) return;
+                    try {
+                        out.writeInt(e.taskCode());
+                        out.writeInt(e.epochDay());
+                        out.writeLong(e.seq());
+                        out.writeInt(e.changeUserCode());
+                        out.writeInt(e.status());
+                        count[0]++;
+                    } catch (IOException ex) {
+                        failure[0] = ex;
+                    }
+                });
+                if (failure[0] != null) throw failure[0];
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, count[0]), 8);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return open(path);
+        }
+
+        Entry entryAt(int index) {
+            int offset = entriesOffset + index * RECORD_SIZE;
+            return new Entry(buffer.getInt(offset), buffer.getInt(offset + 4), buffer.getLong(offset + 8),
+                    buffer.getInt(offset + 16), buffer.getInt(offset + 20));
+        }
+
+        /**
+         * key以上の最初のログの位置を二分探索で返します。
+         */
+        int lowerBound(Entry key) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entryAt(mid).compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.taskapp.dataaccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 繰り返し現れる文字列を共有インスタンスにまとめるための上限付き辞書です。
+ * 上限を超えた場合は、最も長く参照されていない文字列から破棄します。
+ */
+public class NameDictionary {
+    private final Map<String, String> entries;
+
+    /**
+     * @param maxEntries 保持する文字列の上限数
+     */
+    public NameDictionary(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 文字列を辞書に登録し、共有インスタンスを返します。
+     * 既に同じ内容の文字列が登録されていれば、そのインスタンスを返す
+     * @param value 登録する文字列
+     * @return 共有インスタンス
+     */
+    public synchronized String intern(String value) {
+        if (value == null) return null;
+        String shared = entries.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    /**
+     * 現在辞書に登録されている文字列の数を返します。
+     * @return 登録数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
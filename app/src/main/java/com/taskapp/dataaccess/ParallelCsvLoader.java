@@ -0,0 +1,163 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * 大きなCSVファイルを複数スレッドで読み込むためのローダーです。
+ * ファイルを行の境界に揃えたバイト範囲に分割し、ForkJoinPool上で範囲ごとに解析したあと、
+ * ファイル内の順番どおりに結果を結合します。
+ */
+public class ParallelCsvLoader {
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+
+    private final ForkJoinPool pool;
+
+    private final Charset charset;
+
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ファイルの文字コードを指定してローダーを生成します。
+     * 改行を1バイトの0x0Aで表す文字コードのみ使える
+     * @param charset ファイルの文字コード
+     */
+    public ParallelCsvLoader(Charset charset) {
+        this(ForkJoinPool.commonPool(), charset);
+    }
+
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this(pool, StandardCharsets.UTF_8);
+    }
+
+    public ParallelCsvLoader(ForkJoinPool pool, Charset charset) {
+        this.pool = pool;
+        this.charset = charset;
+    }
+
+    /**
+     * ヘッダー行を除いた全ての行を解析して返します。
+     * parserがnullを返した行は結果に含めない
+     * @param path 読み込むCSVファイル
+     * @param parser 1行を解析する関数
+     * @return 解析結果のリスト(ファイル内の順番どおり)
+     * @throws IOException ファイルの読み込みに失敗した場合にスローされます
+     */
+    public <T> List<T> load(Path path, Function<String, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // ヘッダー行の次の行から読み込む
+            long start = nextLineStart(channel, 1, size);
+            if (start >= size) return new ArrayList<>();
+
+            long chunkSize = (size - start) / (pool.getParallelism() * 4L) + 1;
+            chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, chunkSize));
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(start);
+            long position = start;
+            while (position < size) {
+                position = nextLineStart(channel, Math.min(size, position + chunkSize), size);
+                bounds.add(position);
+            }
+            try {
+                return pool.invoke(new ChunkTask<>(channel, bounds, 0, bounds.size() - 1, parser));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * 指定した位置以降で最初に始まる行の先頭位置を返します。
+     * 指定した位置の直前が改行であれば、その位置をそのまま返す
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) return size;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return offset + i + 1;
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /**
+     * 分割したバイト範囲のまとまりを解析するタスクです。
+     * 範囲が1つになるまで二分し、左右の結果を順番どおりに結合する
+     */
+    private class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private final FileChannel channel;
+        private final List<Long> bounds;
+        private final int from;
+        private final int to;
+        private final Function<String, T> parser;
+
+        ChunkTask(FileChannel channel, List<Long> bounds, int from, int to, Function<String, T> parser) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from <= 1) {
+                return parseRange(bounds.get(from), bounds.get(to));
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(channel, bounds, from, middle, parser);
+            ChunkTask<T> right = new ChunkTask<>(channel, bounds, middle, to, parser);
+            left.fork();
+            List<T> rightResult = right.compute();
+            List<T> result = left.join();
+            result.addAll(rightResult);
+            return result;
+        }
+
+        private List<T> parseRange(long start, long end) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String text = new String(buffer.array(), 0, buffer.position(), charset);
+            List<T> result = new ArrayList<>();
+            int lineStart = 0;
+            while (lineStart < text.length()) {
+                int lineEnd = text.indexOf('\n', lineStart);
+                if (lineEnd < 0) lineEnd = text.length();
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && text.charAt(contentEnd - 1) == '\r') contentEnd--;
+                T value = parser.apply(text.substring(lineStart, contentEnd));
+                if (value != null) result.add(value);
+                lineStart = lineEnd + 1;
+            }
+            return result;
+        }
+    }
+}
@@ -2,24 +2,80 @@ package com.taskapp.dataaccess;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.taskapp.config.AppConfig;
+import com.taskapp.exception.StaleTaskException;
 import com.taskapp.model.Task;
+import com.taskapp.model.TaskRow;
+import com.taskapp.model.TaskTable;
 import com.taskapp.model.User;
 
-public class TaskDataAccess {
+/**
+ * tasks.csvにタスクを保存します。
+ *
+ * ファイルの1行目はヘッダー「Code,Name,Status,Rep_User_Code」で、2行目以降が1行1件のタスクです。
+ * 行には5列目としてタスクのバージョンを書くことがあります(ヘッダーには含めない任意の列)。
+ * 索引を使わない場合(既定)は一度でも更新されたタスクだけ、索引を使う場合はバージョン0のタスクも5列目を書きます。
+ * 5列目がない行はバージョン0として扱うため、バージョンを導入する前のファイルや、先頭の4列だけを読む処理もそのまま使えます。
+ *
+ * 書き換えはwriteLockで1件ずつ行います。異なるタスクの更新でも書き込みは順番に行われ、並行できるのは読み込みだけです。
+ */
+public class TaskDataAccess implements TaskRepository {
+    private static final long PARALLEL_THRESHOLD = 4L << 20;
 
     private final String filePath;
 
     private final UserDataAccess userDataAccess;
 
+    private final FileIo io;
+
+    private final NameDictionary nameDictionary;
+
+    private final ParallelCsvLoader parallelLoader;
+
+    /**
+     * ファイルを書き換える処理を1つずつ行うためのロックです。
+     * updateのバージョンの確認と書き込みの間に、他の書き込みが入らないようにする
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * tasks.csvと同じ場所のtasks.csv.idxに保存する、コードの索引です。
+     * 索引を使わない設定の場合はnull
+     * 索引を使う処理は、索引とCSVの状態を合わせて確認・変更するため、このオブジェクトでロックする
+     * (writeLockも取得する場合は、writeLockを先に取得する)
+     */
+    private final TaskIndexFile index;
+
+    private volatile WarmTable warmTable;
+
     public TaskDataAccess() {
-        filePath = "app/src/main/resources/tasks.csv";
-        userDataAccess = new UserDataAccess();
+        this(AppConfig.defaults().getTasksFile(), new UserDataAccess(), AppConfig.defaults());
+    }
+
+    /**
+     * 担当ユーザーの取得に使うUserDataAccessを指定してTaskDataAccessを生成します。
+     * ファイルは既定のtasks.csvを使う
+     * @param userDataAccess
+     */
+    public TaskDataAccess(UserDataAccess userDataAccess) {
+        this(AppConfig.defaults().getTasksFile(), userDataAccess, AppConfig.defaults());
     }
 
     /**
@@ -28,8 +84,26 @@ public class TaskDataAccess {
      * @param userDataAccess
      */
     public TaskDataAccess(String filePath, UserDataAccess userDataAccess) {
+        this(filePath, userDataAccess, AppConfig.defaults());
+    }
+
+    /**
+     * 設定に従ってTaskDataAccessを生成します。
+     * ファイルの文字コード・バッファサイズ・fsyncと、タスク名の辞書の大きさは設定の値を使う
+     * 索引を使う設定の場合は、CSVのパスに「.idx」を付けたファイルを索引にする
+     * @param filePath
+     * @param userDataAccess
+     * @param config アプリケーションの設定
+     */
+    public TaskDataAccess(String filePath, UserDataAccess userDataAccess, AppConfig config) {
         this.filePath = filePath;
         this.userDataAccess = userDataAccess;
+        this.io = new FileIo(config);
+        this.nameDictionary = new NameDictionary(config.getTaskNameCacheSize());
+        this.parallelLoader = new ParallelCsvLoader(config.getCharset());
+        this.index = config.isTaskIndexEnabled()
+                ? new TaskIndexFile(Paths.get(filePath + ".idx"), config.getTaskIndexCachePages())
+                : null;
     }
 
     /**
@@ -41,27 +115,100 @@ public class TaskDataAccess {
      * 最後にリストを返す
      * Taskオブジェクト生成の際、repUserオブジェクトが必要になるので、
      * UserDataAccessのfindByCodeメソッドを呼び出してrepUserを取得する
+     * 同じ担当者のタスクは同じUserインスタンスを共有し、findByCodeは担当者ごとに1回だけ呼び出す
      *
+     * @see #loadTable()
      * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
      * @return タスクのリスト
      */
+    @Override
     public List<Task> findAll() {
-        List<Task> taskList = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        Map<Integer, User> repUsers = new HashMap<>();
+        return loadTable().toTasks(repUserCode -> resolveRepUser(repUsers, repUserCode));
+    }
+
+    /**
+     * CSVから全てのタスクデータを、列ごとの配列で保持するTaskTableとして取得します。
+     * 担当ユーザーはユーザーコードのまま保持し、users.csvは読み込まない
+     * タスク名はnameDictionaryを通して共有インスタンスにまとめる
+     * 前回読み込んだときからファイルが変更されていなければ、読み込み済みのテーブルをそのまま返す
+     * @see #readTable()
+     * @return タスクのテーブル
+     */
+    public TaskTable loadTable() {
+        FileStamp stamp = FileStamp.of(filePath);
+        WarmTable current = warmTable;
+        if (current != null && current.stamp().equals(stamp)) {
+            return current.table();
+        }
+        TaskTable table = readTable();
+        warmTable = new WarmTable(table, stamp);
+        return table;
+    }
+
+    /**
+     * 読み込み済みのテーブルを登録します。
+     * スナップショットから復元したテーブルなど、CSVを読み込まずに用意したテーブルを使う場合に呼び出す
+     * stampがファイルの現在の状態と一致しない場合は登録しない
+     * @param table 登録するテーブル
+     * @param stamp テーブルを読み込んだときのファイルの状態
+     * @return 登録した場合はtrue
+     */
+    public boolean preload(TaskTable table, FileStamp stamp) {
+        if (!stamp.matches(filePath)) return false;
+        warmTable = new WarmTable(table, stamp);
+        return true;
+    }
+
+    /**
+     * tasks.csvの現在の状態を返します。
+     * @return ファイルの状態
+     */
+    public FileStamp stamp() {
+        return FileStamp.of(filePath);
+    }
+
+    /**
+     * tasks.csvのサイズ・更新日時・識別子から、保存先の状態を表す文字列を返します。
+     * @return 保存先の状態
+     */
+    @Override
+    public String changeStamp() {
+        FileStamp stamp = stamp();
+        return stamp.size() + "." + stamp.lastModified() + "." + stamp.fileKey();
+    }
+
+    /**
+     * CSVを読み込み、TaskTableを作成します。
+     * ファイルサイズがPARALLEL_THRESHOLD以上のときは、ParallelCsvLoaderで複数スレッドに分けて読み込む
+     * @see com.taskapp.dataaccess.ParallelCsvLoader#load(java.nio.file.Path, java.util.function.Function)
+     * @return タスクのテーブル
+     */
+    private TaskTable readTable() {
+        TaskTable.Builder builder = TaskTable.builder();
+        if (new File(filePath).length() >= PARALLEL_THRESHOLD) {
+            try {
+                for (TaskRow row : parallelLoader.load(Paths.get(filePath), TaskDataAccess::parseRow)) {
+                    builder.add(row.code(), nameDictionary.intern(row.name()), row.status(), row.repUserCode(),
+                            row.version());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return builder.build();
+        }
+        try (BufferedReader reader = io.reader(filePath)) {
             reader.readLine();
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] v = line.split(",");
-                if (v.length != 4) continue;
-                int repUserCode = Integer.parseInt(v[3]);
-                User repUser = userDataAccess.findByCode(repUserCode);
-                Task task = new Task(Integer.parseInt(v[0]), v[1], Integer.parseInt(v[2]), repUser);
-                taskList.add(task);
+                TaskRow row = parseRow(line);
+                if (row == null) continue;
+                builder.add(row.code(), nameDictionary.intern(row.name()), row.status(), row.repUserCode(), row.version());
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return taskList;
+        return builder.build();
     }
 
     /**
@@ -70,13 +217,110 @@ public class TaskDataAccess {
      * 新しい行を作製し、createLineメソッドでフォーマットした文字列を書き込む
      * @param task 保存するタスク
      */
+    @Override
     public void save(Task task) {
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath, true))) {
-            w.newLine();
-            String line = createLine(task);
-            w.write(line);
+        append(List.of(task));
+    }
+
+    /**
+     * 複数のタスクをまとめてCSVに保存します。
+     * ファイルを1回だけ開き、全てのタスクを続けて書き込む
+     * @param tasks 保存するタスク
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        append(tasks);
+    }
+
+    /**
+     * タスクの行をCSVの末尾に追加します。
+     * 索引を使う場合は、追加する前の索引がCSVと一致していれば、追加した行の位置を索引に登録する
+     * 一致していない場合と、登録済みのコードを追加した場合は登録せず、次に索引を使うときに作り直す
+     * @param tasks 追加するタスク
+     */
+    private void append(List<Task> tasks) {
+        synchronized (writeLock) {
+            warmTable = null;
+            if (index == null) {
+                writeLines(tasks);
+                return;
+            }
+            synchronized (index) {
+                long end = new File(filePath).length();
+                boolean current = index.isCurrent(stamp());
+                List<String> lines = writeLines(tasks);
+                if (!current || lines == null) return;
+                try {
+                    int separatorLength = System.lineSeparator().getBytes(io.charset()).length;
+                    for (int i = 0; i < lines.size(); i++) {
+                        long offset = end + separatorLength;
+                        int length = lines.get(i).getBytes(io.charset()).length;
+                        if (index.put(tasks.get(i).getCode(), offset, length)) {
+                            index.invalidate();
+                            return;
+                        }
+                        end = offset + length;
+                    }
+                    index.commit(stamp());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    index.invalidate();
+                }
+            }
+        }
+    }
+
+    /**
+     * ファイルを1回だけ開き、全てのタスクを改行に続けて書き込みます。
+     * @param tasks 書き込むタスク
+     * @return 書き込んだ行(書き込みに失敗した場合はnull)
+     */
+    private List<String> writeLines(List<Task> tasks) {
+        List<String> lines = new ArrayList<>(tasks.size());
+        try (BufferedWriter w = io.writer(filePath, true)) {
+            for (Task task : tasks) {
+                String line = createLine(task);
+                w.newLine();
+                w.write(line);
+                lines.add(line);
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            return null;
+        }
+        return lines;
+    }
+
+    /**
+     * 全てのタスクを、指定したタスクで置き換えます。
+     * タスクのバージョンはそのまま書き込む
+     * @see #rewrite(List)
+     * @param tasks 置き換え後のタスク
+     */
+    @Override
+    public void replaceAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            lines.add(createLine(task));
+        }
+        synchronized (writeLock) {
+            rewrite(lines);
+        }
+    }
+
+    /**
+     * 全てのタスクを、テーブルの行で置き換えます。
+     * 担当ユーザーを取得せず、ユーザーコードとバージョンをそのまま書き込む(別の形式からの変換に使う)
+     * @see #rewrite(List)
+     * @param table 置き換え後のタスクのテーブル
+     */
+    public void replaceTable(TaskTable table) {
+        List<String> lines = new ArrayList<>(table.size());
+        for (int i = 0; i < table.size(); i++) {
+            lines.add(createLine(table.get(i)));
+        }
+        synchronized (writeLock) {
+            rewrite(lines);
         }
     }
 
@@ -84,22 +328,40 @@ public class TaskDataAccess {
      * コードを基にタスクデータを1件取得します。
      * csvを読み込み、カンマで分割して配列に格納する
      * 取得したいtaskCodeがあるとき、その行のデータをもとにtaskオブジェクトを生成して返す
+     * 5列目のバージョンがない行はバージョン0として扱う
      * codeが該当しない場合、nullを返す
+     * 索引を使う場合は、索引で探した位置の1行だけを読む
+     * @see #locate(int)
      * @param code 取得するタスクのコード
      * @return 取得したタスク
      */
+    @Override
     public Task findByCode(int taskCode) {
+        if (index != null) {
+            IndexedRow found;
+            synchronized (index) {
+                found = locate(taskCode);
+            }
+            if (found != null) {
+                TaskRow row = found.row();
+                return row == null ? null
+                        : new Task(row.code(), row.name(), row.status(), userDataAccess.findByCode(row.repUserCode()),
+                                row.version());
+            }
+        }
         Task task = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = io.reader(filePath)) {
             reader.readLine();
             String line;
             while ((line = reader.readLine()) != null) {
                 String[] v = line.split(",");
+                // 追記の途中の行は列が足りないため、コードを変換する前に読み飛ばす
+                if (v.length != 4 && v.length != 5) continue;
                 int csvCode = Integer.parseInt(v[0]);
-                if (v.length != 4) continue;
                 if (csvCode != taskCode) continue;
                 User user = userDataAccess.findByCode(Integer.parseInt(v[3]));
-                task = new Task(csvCode, v[1], Integer.parseInt(v[2]), user);
+                int version = v.length == 5 ? Integer.parseInt(v[4]) : 0;
+                task = new Task(csvCode, v[1], Integer.parseInt(v[2]), user, version);
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -109,29 +371,39 @@ public class TaskDataAccess {
 
     /**
      * タスクデータを更新します。
-     * findAllでtaskListを取得する
-     * 拡張for文を用いて書き込みをしていく
-     * そのとき、taskListのtaskCodeとupdateTaskのtaskCodeが一致するときは、
-     * updateTaskの内容をcsvに書き込む。
-     * そうでないときは、taskListの内容を書き込んでいく
-     * @param updateTask 更新するタスク
+     * 実装の流れ
+     * writeLockを取得し、ファイルから現在のテーブルを読み込む
+     * updateTaskと同じコードの行のバージョンが、updateTaskのバージョンと異なる場合、または行が削除されていた場合は、
+     * 読み込んだ後に他の更新があったため、書き込まずにStaleTaskExceptionを投げる
+     * 一致する場合は、その行をバージョンを1つ増やしたupdateTaskの内容で、それ以外の行はそのままの内容で書き込んでいく
+     * 書き込みはrewriteで行うため、ロックを取らずに読み込んでいる処理が書き込み途中のファイルを読むことはない
+     * 索引を使う場合は、テーブルを読み込まずにupdateIndexedで更新する
+     * @param updateTask 更新するタスク(バージョンは読み込んだ時点のもの)
+     * @throws StaleTaskException 読み込んだ後にタスクが他の更新で変更または削除されていた場合にスローされます
      */
+    @Override
     public void update(Task updateTask) {
-        List<Task> taskList = findAll();
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath))) {
-            w.write("Code,Name,Status,Rep_User_Code");
-            String line;
-            for (Task task : taskList) {
-                if (task.getCode() == updateTask.getCode()) {
-                    line = createLine(updateTask);
+        synchronized (writeLock) {
+            if (index != null && updateIndexed(updateTask)) return;
+            TaskTable table = readTable();
+            int currentVersion = StaleTaskException.DELETED;
+            for (int i = 0; i < table.size(); i++) {
+                if (table.codeAt(i) == updateTask.getCode()) currentVersion = table.versionAt(i);
+            }
+            if (currentVersion != updateTask.getVersion()) {
+                throw new StaleTaskException(updateTask.getCode(), updateTask.getVersion(), currentVersion);
+            }
+            Task updated = new Task(updateTask.getCode(), updateTask.getName(), updateTask.getStatus(),
+                    updateTask.getRepUser(), updateTask.getVersion() + 1);
+            List<String> lines = new ArrayList<>(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                if (table.codeAt(i) == updateTask.getCode()) {
+                    lines.add(createLine(updated));
                 } else {
-                    line = createLine(task);
+                    lines.add(createLine(table.get(i)));
                 }
-                w.newLine();
-                w.write(line);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            rewrite(lines);
         }
     }
 
@@ -139,33 +411,339 @@ public class TaskDataAccess {
      * コードを基にタスクデータを削除します。
      * findAllで現在のcsvをListにしたものを取得する
      * 新たにfileに書き込みをしていく
-     * 引数として受け取ったcodeと、taskListのあるオブジェクトのcodeが一致する場合は、そのtaskの書き込みをスキップする
+     * 引数として受け取ったcodeと、テーブルのある行のcodeが一致する場合は、その行の書き込みをスキップする
+     * 索引を使う場合は、テーブルを読み込まずにdeleteIndexedで削除する
      * @param code 削除するタスクのコード
      */
+    @Override
     public void delete(int code) {
-        List<Task> taskList = findAll();
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath))) {
+        synchronized (writeLock) {
+            if (index != null && deleteIndexed(code)) return;
+            TaskTable table = readTable();
+            List<String> lines = new ArrayList<>(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                if (table.codeAt(i) == code) continue;
+                lines.add(createLine(table.get(i)));
+            }
+            rewrite(lines);
+        }
+    }
+
+    /**
+     * ヘッダーと指定した行で、ファイル全体を置き換えます。
+     * 同じディレクトリの一時ファイルに書き込んでから元のファイルと置き換えるため、
+     * 置き換えの途中で読み込まれても、置き換え前か後のどちらかの内容が読まれる
+     * writeLockを取得してから呼び出す
+     * @param lines ヘッダーを除いた行
+     */
+    private void rewrite(List<String> lines) {
+        warmTable = null;
+        Path path = Paths.get(filePath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter w = io.writer(temp.toString(), false)) {
             w.write("Code,Name,Status,Rep_User_Code");
-            String line;
-            for (Task task : taskList) {
-                if (task.getCode() == code) continue;
-                line = createLine(task);
+            for (String line : lines) {
                 w.newLine();
                 w.write(line);
             }
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (index != null) {
+            synchronized (index) {
+                index.invalidate();
+            }
+        }
+    }
+
+    /**
+     * 索引で探した行を更新します。
+     * 実装の流れ
+     * 行のバージョンを確認する(updateと同じく、異なる場合や行がない場合はStaleTaskExceptionを投げる)
+     * その行のバイトだけを新しい行に置き換えたファイルを作成し、元のファイルと置き換える(他の行は変換しない)
+     * 索引の行の長さを更新し、行の長さが変わった場合は後ろの行の位置をずらす
+     * writeLockを取得してから呼び出す
+     * @param updateTask 更新するタスク
+     * @return 索引を使えなかった場合はfalse
+     */
+    private boolean updateIndexed(Task updateTask) {
+        synchronized (index) {
+            IndexedRow found = locate(updateTask.getCode());
+            if (found == null) return false;
+            int currentVersion = found.row() == null ? StaleTaskException.DELETED : found.row().version();
+            if (currentVersion != updateTask.getVersion()) {
+                throw new StaleTaskException(updateTask.getCode(), updateTask.getVersion(), currentVersion);
+            }
+            Task updated = new Task(updateTask.getCode(), updateTask.getName(), updateTask.getStatus(),
+                    updateTask.getRepUser(), updateTask.getVersion() + 1);
+            byte[] line = createLine(updated).getBytes(io.charset());
+            TaskIndexFile.Location location = found.location();
+            try {
+                splice(location.offset(), location.offset() + location.length(), line);
+                index.put(updated.getCode(), location.offset(), line.length);
+                index.shift(location.offset(), line.length - location.length());
+                index.commit(stamp());
+            } catch (IOException e) {
+                e.printStackTrace();
+                index.invalidate();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 索引で探した行を、直前の改行とともに削除します。
+     * 行がない場合は何もしない
+     * writeLockを取得してから呼び出す
+     * @param code 削除するタスクのコード
+     * @return 索引を使えなかった場合はfalse
+     */
+    private boolean deleteIndexed(int code) {
+        synchronized (index) {
+            IndexedRow found = locate(code);
+            if (found == null) return false;
+            if (found.row() == null) return true;
+            TaskIndexFile.Location location = found.location();
+            try {
+                long start = separatorStart(location.offset());
+                long end = location.offset() + location.length();
+                splice(start, end, new byte[0]);
+                index.remove(code);
+                index.shift(location.offset(), start - end);
+                index.commit(stamp());
+            } catch (IOException e) {
+                e.printStackTrace();
+                index.invalidate();
+            }
+            return true;
         }
     }
 
+    /**
+     * 索引を使ってコードの行を探します。
+     * 実装の流れ
+     * 索引がCSVの現在の状態から作成したものでなければ、作り直す
+     * 索引で見つかった位置の1行を読み、コードが一致しない場合は索引とCSVが食い違っているため、作り直してもう1回探す
+     * CSVに同じコードの行が複数ある場合と、索引ファイルの読み書きに失敗した場合は、索引を使わない
+     * indexのロックを取得してから呼び出す
+     * @param code タスクコード
+     * @return 探した結果(行がない場合はrowがnull)。索引を使えない場合はnull
+     */
+    private IndexedRow locate(int code) {
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                FileStamp stamp = stamp();
+                if (!index.isCurrent(stamp)) {
+                    index.rebuild(this::scanRows, stamp);
+                }
+                if (index.hasDuplicates()) return null;
+                TaskIndexFile.Location location = index.find(code);
+                if (location == null) return new IndexedRow(null, null);
+                TaskRow row = readRowAt(location);
+                if (row != null && row.code() == code) return new IndexedRow(location, row);
+                index.invalidate();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            index.invalidate();
+        }
+        return null;
+    }
+
+    /**
+     * 索引を作り直すために、CSVを先頭から読み、データ行ごとにコードとバイト位置を渡します。
+     * 文字列に変換する前に改行のバイト(0x0A)で行を分け、行末の\rは行のバイト数に含めない
+     * 1行目のヘッダーと、parseRowで変換できない行は渡さない
+     * @param sink 索引への登録先
+     * @throws IOException CSVの読み込みに失敗した場合にスローされます
+     */
+    private void scanRows(TaskIndexFile.Sink sink) throws IOException {
+        Charset charset = io.charset();
+        byte[] chunk = new byte[64 * 1024];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = 0;
+        long position = 0;
+        boolean header = true;
+        try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] != '\n') continue;
+                    line = appendBytes(line, lineLength, chunk, from, i - from);
+                    lineLength += i - from;
+                    if (!header) scanRow(sink, line, lineLength, lineStart, charset);
+                    header = false;
+                    lineStart = position + i + 1;
+                    lineLength = 0;
+                    from = i + 1;
+                }
+                line = appendBytes(line, lineLength, chunk, from, read - from);
+                lineLength += read - from;
+                position += read;
+            }
+        }
+        if (!header && lineLength > 0) scanRow(sink, line, lineLength, lineStart, charset);
+    }
+
+    private static void scanRow(TaskIndexFile.Sink sink, byte[] line, int lineLength, long lineStart, Charset charset)
+            throws IOException {
+        int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        TaskRow row = tryParseRow(new String(line, 0, length, charset));
+        if (row != null) sink.accept(row.code(), lineStart, length);
+    }
+
+    private static byte[] appendBytes(byte[] line, int lineLength, byte[] chunk, int from, int count) {
+        if (lineLength + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + count));
+        }
+        System.arraycopy(chunk, from, line, lineLength, count);
+        return line;
+    }
+
+    /**
+     * 索引で探した位置の1行を読み込みます。
+     * @param location 行の位置
+     * @return 読み込んだ行(ファイルが短い場合や変換できない場合はnull)
+     * @throws IOException CSVの読み込みに失敗した場合にスローされます
+     */
+    private TaskRow readRowAt(TaskIndexFile.Location location) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(location.length());
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, location.offset() + bytes.position()) < 0) return null;
+            }
+        }
+        return tryParseRow(new String(bytes.array(), io.charset()));
+    }
+
+    /**
+     * 行の直前の改行(\nまたは\r\n)の先頭のバイト位置を返します。
+     */
+    private long separatorStart(long offset) throws IOException {
+        if (offset < 2) return offset - 1;
+        ByteBuffer before = ByteBuffer.allocate(2);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            while (before.hasRemaining()) {
+                if (channel.read(before, offset - 2 + before.position()) < 0) break;
+            }
+        }
+        return before.get(0) == '\r' && before.get(1) == '\n' ? offset - 2 : offset - 1;
+    }
+
+    /**
+     * ファイルの[start, end)のバイトを、指定したバイトに置き換えます。
+     * rewriteと同じく一時ファイルに書き込んでから元のファイルと置き換えるが、他の行は変換せずにバイトのまま写す
+     * @param start 置き換える範囲の先頭
+     * @param end 置き換える範囲の末尾(含まない)
+     * @param replacement 置き換え後のバイト
+     * @throws IOException 書き込みに失敗した場合にスローされます
+     */
+    private void splice(long start, long end, byte[] replacement) throws IOException {
+        warmTable = null;
+        Path path = Paths.get(filePath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            transfer(in, 0, start, out);
+            ByteBuffer bytes = ByteBuffer.wrap(replacement);
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            transfer(in, end, in.size() - end, out);
+            if (io.fsync()) out.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = in.transferTo(position + done, count - done, out);
+            if (transferred <= 0) throw new IOException("ファイルが途中で終わっています: " + (position + done));
+            done += transferred;
+        }
+    }
+
+    /**
+     * 索引で探した結果です。
+     * @param location 行の位置(行がない場合はnull)
+     * @param row 行の内容(行がない場合はnull)
+     */
+    private record IndexedRow(TaskIndexFile.Location location, TaskRow row) {
+    }
+
+    /**
+     * 読み込み済みのテーブルと、読み込んだときのファイルの状態の組です。
+     */
+    private record WarmTable(TaskTable table, FileStamp stamp) {
+    }
+
+    /**
+     * CSVの1行をTaskRowに変換します。
+     * 5列目のバージョンがない行はバージョン0として扱い、列の数が合わない行はnullを返す
+     * @param line CSVの1行
+     * @return 変換したレコード
+     */
+    private static TaskRow parseRow(String line) {
+        String[] v = line.split(",");
+        if (v.length != 4 && v.length != 5) return null;
+        return new TaskRow(Integer.parseInt(v[0]), v[1], Integer.parseInt(v[2]), Integer.parseInt(v[3]),
+                v.length == 5 ? Integer.parseInt(v[4]) : 0);
+    }
+
+    /**
+     * CSVの1行をTaskRowに変換します。数値に変換できない列がある行もnullを返す
+     */
+    private static TaskRow tryParseRow(String line) {
+        try {
+            return parseRow(line);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 担当ユーザーを取得します。
+     * 1回の読み込みの中で既に取得済みのユーザーコードであれば、同じUserインスタンスを返す
+     * 存在しないユーザーコードもnullとして記録し、同じコードで再度検索しないようにする
+     * @param repUsers 取得済みの担当ユーザー
+     * @param repUserCode 担当ユーザーコード
+     * @return 担当ユーザー
+     */
+    private User resolveRepUser(Map<Integer, User> repUsers, int repUserCode) {
+        if (repUsers.containsKey(repUserCode)) {
+            return repUsers.get(repUserCode);
+        }
+        User repUser = userDataAccess.findByCode(repUserCode);
+        repUsers.put(repUserCode, repUser);
+        return repUser;
+    }
+
     /**
      * タスクデータをCSVに書き込むためのフォーマットを作成します。
      * Taskオブジェクトのアクセサを用いてcsvに書き込むようにカンマで繋いでフォーマットする
+     * バージョンは一度でも更新されたタスク(0より大きい場合)だけ5列目に書き込む
+     * 索引を使う場合は、0の場合も5列目に書き込む
+     * (ステータスの変更で行の長さが変わらないため、索引を使う更新で後ろの行の位置をずらさずに済む)
      * @param task フォーマットを作成するタスク
      * @return CSVに書き込むためのフォーマット文字列
      */
     private String createLine(Task task) {
         String line = task.getCode() + "," + task.getName() + "," + task.getStatus() + "," + task.getRepUser().getCode();
-        return line;
+        return task.getVersion() > 0 || index != null ? line + "," + task.getVersion() : line;
+    }
+
+    private String createLine(TaskRow row) {
+        String line = row.code() + "," + row.name() + "," + row.status() + "," + row.repUserCode();
+        return row.version() > 0 || index != null ? line + "," + row.version() : line;
     }
 }
\ No newline at end of file
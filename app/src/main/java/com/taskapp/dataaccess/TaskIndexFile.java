@@ -0,0 +1,576 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * tasks.csvの行の位置を、タスクコードで探すための索引ファイルです。
+ *
+ * 索引は固定長の頁に分けたB+木で、葉の頁にはコードの順に「コード・行の先頭のバイト位置・行のバイト数」を並べ、
+ * 内部の頁には子の頁を選ぶためのコードを並べます。1件の検索で読む頁は木の高さ(数百万件でも3~4頁)だけで、
+ * 読んだ頁は件数を指定したLruCacheに保持します。
+ * 索引を作成したときのCSVの状態(FileStamp)を先頭の頁に記録し、CSVと一致しない場合は使わずに作り直します。
+ * 書き込みでは、CSVを書き換えてから索引の頁を書き換え、最後に先頭の頁にCSVの状態を記録します。
+ * 途中で終了しても、記録したCSVの状態が一致しなくなるため、次に使うときに作り直されます。
+ * スレッドセーフではないため、呼び出し側で排他します。
+ */
+final class TaskIndexFile {
+    static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private static final int MAGIC = 0x54494458;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_PAGE = 0;
+
+    private static final byte LEAF = 1;
+    private static final byte INNER = 2;
+
+    // 頁の先頭: 種類(1バイト)・予備(3バイト)・件数(4バイト)・葉は次の葉の頁、内部の頁は最初の子の頁(4バイト)
+    private static final int TYPE = 0;
+    private static final int COUNT = 4;
+    private static final int LINK = 8;
+    private static final int ENTRIES = 12;
+
+    // 葉の1件: コード(4バイト)・行の位置(8バイト)・行のバイト数(4バイト)
+    private static final int LEAF_ENTRY = 16;
+    // 内部の頁の1件: コード(4バイト)・そのコード以上の子の頁(4バイト)
+    private static final int INNER_ENTRY = 8;
+
+    private final Path path;
+
+    private final int pageSize;
+
+    private final int leafCapacity;
+
+    private final int innerCapacity;
+
+    private final LruCache<Integer, ByteBuffer> cache;
+
+    private boolean loaded;
+
+    private int rootPage;
+
+    private int pageCount;
+
+    private long entryCount;
+
+    private boolean duplicates;
+
+    private FileStamp csvStamp;
+
+    /**
+     * @param path 索引ファイルのパス
+     * @param cachePages メモリに保持する頁の数
+     */
+    TaskIndexFile(Path path, int cachePages) {
+        this(path, cachePages, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * 頁の大きさを指定して生成します。
+     * 頁の分割を少ない件数で確かめるために使う
+     * @param path 索引ファイルのパス
+     * @param cachePages メモリに保持する頁の数
+     * @param pageSize 頁のバイト数(64以上)
+     */
+    TaskIndexFile(Path path, int cachePages, int pageSize) {
+        if (pageSize < 64) {
+            throw new IllegalArgumentException("pageSize must be at least 64: " + pageSize);
+        }
+        this.path = path;
+        this.pageSize = pageSize;
+        this.leafCapacity = (pageSize - ENTRIES) / LEAF_ENTRY;
+        this.innerCapacity = (pageSize - ENTRIES) / INNER_ENTRY;
+        this.cache = new LruCache<>(cachePages, 0);
+    }
+
+    /**
+     * 索引が、指定した状態のCSVから作成したものかを判定します。
+     * 初めて呼び出したときに、ファイルの先頭の頁を読み込む
+     * 形式が異なる、または壊れている索引ファイルは一致しないものとして扱う
+     * @param stamp CSVの現在の状態
+     * @return 一致すればtrue
+     */
+    boolean isCurrent(FileStamp stamp) {
+        if (!loaded) {
+            loaded = true;
+            try {
+                readHeader();
+            } catch (IOException e) {
+                csvStamp = null;
+            }
+        }
+        return csvStamp != null && csvStamp.equals(stamp);
+    }
+
+    /**
+     * 索引を作成したCSVに、同じコードの行が複数あったかを返します。
+     * その場合、索引には最後の行だけが登録されている
+     * @return 同じコードの行があればtrue
+     */
+    boolean hasDuplicates() {
+        return duplicates;
+    }
+
+    long size() {
+        return entryCount;
+    }
+
+    LruCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * 索引を使えない状態にします。
+     * 次のisCurrentはfalseを返すため、呼び出し側で作り直す
+     */
+    void invalidate() {
+        csvStamp = null;
+        cache.clear();
+    }
+
+    /**
+     * 索引を空にしてから作り直します。
+     * 実装の流れ
+     * ファイルを空にし、先頭の頁と空の葉(根)の頁を書き込む
+     * scannerが渡すCSVの行を1件ずつ登録し、最後にCSVの状態を先頭の頁に記録する
+     * 同じコードが複数回渡された場合は最後の位置を登録し、hasDuplicatesをtrueにする
+     * @param scanner CSVの行を読み、コードと位置を渡す処理
+     * @param stamp 読み込みを始める前のCSVの状態
+     * @throws IOException 索引ファイルまたはCSVの読み書きに失敗した場合にスローされます
+     */
+    void rebuild(Scanner scanner, FileStamp stamp) throws IOException {
+        invalidate();
+        loaded = true;
+        try (FileChannel channel = open()) {
+            channel.truncate(0);
+            rootPage = 1;
+            pageCount = 2;
+            entryCount = 0;
+            duplicates = false;
+            ByteBuffer root = newPage(LEAF);
+            root.putInt(LINK, -1);
+            writePage(channel, rootPage, root);
+            scanner.scan((code, offset, length) -> {
+                if (insert(channel, code, offset, length)) duplicates = true;
+            });
+            writeHeader(channel, stamp);
+        }
+    }
+
+    /**
+     * コードに対応する行の位置を探します。
+     * @param code タスクコード
+     * @return 行の位置(登録されていない場合はnull)
+     * @throws IOException 索引ファイルの読み込みに失敗した場合にスローされます
+     */
+    Location find(int code) throws IOException {
+        try (FileChannel channel = open()) {
+            ByteBuffer leaf = page(channel, findLeaf(channel, code));
+            int index = search(leaf, code);
+            if (index < 0) return null;
+            int at = ENTRIES + index * LEAF_ENTRY;
+            return new Location(leaf.getLong(at + 4), leaf.getInt(at + 12));
+        }
+    }
+
+    /**
+     * コードに対応する行の位置を登録します。既に登録されている場合は置き換える
+     * @param code タスクコード
+     * @param offset 行の先頭のバイト位置
+     * @param length 行のバイト数(改行を含まない)
+     * @return 既に登録されていた場合はtrue
+     * @throws IOException 索引ファイルの読み書きに失敗した場合にスローされます
+     */
+    boolean put(int code, long offset, int length) throws IOException {
+        try (FileChannel channel = open()) {
+            return insert(channel, code, offset, length);
+        }
+    }
+
+    /**
+     * コードを索引から取り除きます。
+     * 頁の併合はしないため、空になった葉もそのまま残る(作り直すと詰められる)
+     * @param code タスクコード
+     * @return 登録されていた場合はtrue
+     * @throws IOException 索引ファイルの読み書きに失敗した場合にスローされます
+     */
+    boolean remove(int code) throws IOException {
+        try (FileChannel channel = open()) {
+            int pageNo = findLeaf(channel, code);
+            ByteBuffer leaf = page(channel, pageNo);
+            int index = search(leaf, code);
+            if (index < 0) return false;
+            int count = leaf.getInt(COUNT);
+            int at = ENTRIES + index * LEAF_ENTRY;
+            System.arraycopy(leaf.array(), at + LEAF_ENTRY, leaf.array(), at, (count - index - 1) * LEAF_ENTRY);
+            leaf.putInt(COUNT, count - 1);
+            writePage(channel, pageNo, leaf);
+            entryCount--;
+            return true;
+        }
+    }
+
+    /**
+     * 指定した位置より後ろにある行の位置を、まとめてずらします。
+     * CSVの途中の行の長さが変わったときに呼び出す
+     * 行の位置はコードの順に並んでいないため、全ての葉を左から順に読む
+     * @param after この位置より後ろ(この位置を含まない)の行をずらす
+     * @param delta ずらすバイト数
+     * @throws IOException 索引ファイルの読み書きに失敗した場合にスローされます
+     */
+    void shift(long after, long delta) throws IOException {
+        if (delta == 0) return;
+        try (FileChannel channel = open()) {
+            int pageNo = rootPage;
+            ByteBuffer node = page(channel, pageNo);
+            while (node.get(TYPE) == INNER) {
+                pageNo = node.getInt(LINK);
+                node = page(channel, pageNo);
+            }
+            while (true) {
+                boolean changed = false;
+                int count = node.getInt(COUNT);
+                for (int i = 0; i < count; i++) {
+                    int at = ENTRIES + i * LEAF_ENTRY + 4;
+                    long offset = node.getLong(at);
+                    if (offset > after) {
+                        node.putLong(at, offset + delta);
+                        changed = true;
+                    }
+                }
+                if (changed) writePage(channel, pageNo, node);
+                pageNo = node.getInt(LINK);
+                if (pageNo < 0) break;
+                node = page(channel, pageNo);
+            }
+        }
+    }
+
+    /**
+     * 書き込みが終わった後のCSVの状態を先頭の頁に記録します。
+     * @param stamp CSVの現在の状態
+     * @throws IOException 索引ファイルの書き込みに失敗した場合にスローされます
+     */
+    void commit(FileStamp stamp) throws IOException {
+        try (FileChannel channel = open()) {
+            writeHeader(channel, stamp);
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    /**
+     * 先頭の頁を読み込みます。
+     * 識別子・形式・頁の大きさ・頁の数がファイルと合わない場合は、索引がないものとして扱う
+     */
+    private void readHeader() throws IOException {
+        csvStamp = null;
+        if (!Files.exists(path) || Files.size(path) < pageSize) return;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(pageSize);
+            readFully(channel, HEADER_PAGE, header);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION || header.getInt(8) != pageSize) return;
+            int pages = header.getInt(16);
+            if (channel.size() != (long) pages * pageSize) return;
+            rootPage = header.getInt(12);
+            pageCount = pages;
+            entryCount = header.getLong(24);
+            duplicates = header.get(48) != 0;
+            csvStamp = new FileStamp(header.getLong(32), header.getLong(40), header.getLong(56));
+        }
+    }
+
+    private void writeHeader(FileChannel channel, FileStamp stamp) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(pageSize);
+        header.putInt(0, MAGIC);
+        header.putInt(4, FORMAT_VERSION);
+        header.putInt(8, pageSize);
+        header.putInt(12, rootPage);
+        header.putInt(16, pageCount);
+        header.putLong(24, entryCount);
+        header.putLong(32, stamp.size());
+        header.putLong(40, stamp.lastModified());
+        header.put(48, (byte) (duplicates ? 1 : 0));
+        header.putLong(56, stamp.fileKey());
+        writeFully(channel, HEADER_PAGE, header);
+        csvStamp = stamp;
+    }
+
+    /**
+     * 根から内部の頁をたどり、コードが含まれる葉の頁を返します。
+     */
+    private int findLeaf(FileChannel channel, int code) throws IOException {
+        int pageNo = rootPage;
+        ByteBuffer node = page(channel, pageNo);
+        while (node.get(TYPE) == INNER) {
+            pageNo = childFor(node, code);
+            node = page(channel, pageNo);
+        }
+        return pageNo;
+    }
+
+    /**
+     * 内部の頁から、コードを含む子の頁を返します。
+     * コード以下の最後のキーの右の子を返し、全てのキーより小さい場合は最初の子を返す
+     */
+    private int childFor(ByteBuffer node, int code) {
+        int slot = childSlot(node, code);
+        return slot == 0 ? node.getInt(LINK) : node.getInt(ENTRIES + (slot - 1) * INNER_ENTRY + 4);
+    }
+
+    /**
+     * 内部の頁で、コードを含む子の番号(0が最初の子)を返します。
+     */
+    private int childSlot(ByteBuffer node, int code) {
+        int low = 0;
+        int high = node.getInt(COUNT);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (node.getInt(ENTRIES + mid * INNER_ENTRY) <= code) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 葉の頁でコードを探します。
+     * @return 見つかった場合はその番号、見つからない場合は(-(挿入する番号) - 1)
+     */
+    private int search(ByteBuffer leaf, int code) {
+        int low = 0;
+        int high = leaf.getInt(COUNT) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int key = leaf.getInt(ENTRIES + mid * LEAF_ENTRY);
+            if (key < code) {
+                low = mid + 1;
+            } else if (key > code) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * コードを登録し、根が分割された場合は新しい根を作成します。
+     * @return 既に登録されていた場合はtrue
+     */
+    private boolean insert(FileChannel channel, int code, long offset, int length) throws IOException {
+        Insertion result = insert(channel, rootPage, code, offset, length);
+        if (!result.replaced()) entryCount++;
+        if (result.split() != null) {
+            int newRoot = pageCount++;
+            ByteBuffer root = newPage(INNER);
+            root.putInt(COUNT, 1);
+            root.putInt(LINK, rootPage);
+            root.putInt(ENTRIES, result.split().key());
+            root.putInt(ENTRIES + 4, result.split().page());
+            writePage(channel, newRoot, root);
+            rootPage = newRoot;
+        }
+        return result.replaced();
+    }
+
+    /**
+     * 頁以下の部分木にコードを登録します。
+     * 実装の流れ
+     * 内部の頁では、コードを含む子に登録し、子が分割された場合は新しい子へのキーをこの頁に加える
+     * 葉では、コードの順を保つ位置に加える(登録済みのコードは位置を置き換える)
+     * 頁が一杯の場合は、新しい頁を作成して後ろ半分を移し、新しい頁の最初のキーを親に返す
+     * 末尾への追加で分割する場合は、前の頁を一杯のままにして新しい頁に追加分だけを置く
+     * (コードは通常昇順に増えるため、頁が半分ずつ空いたままにならないようにする)
+     */
+    private Insertion insert(FileChannel channel, int pageNo, int code, long offset, int length) throws IOException {
+        ByteBuffer node = page(channel, pageNo);
+        if (node.get(TYPE) == LEAF) {
+            return insertIntoLeaf(channel, pageNo, node, code, offset, length);
+        }
+        int slot = childSlot(node, code);
+        int child = slot == 0 ? node.getInt(LINK) : node.getInt(ENTRIES + (slot - 1) * INNER_ENTRY + 4);
+        Insertion result = insert(channel, child, code, offset, length);
+        if (result.split() == null) return result;
+        return new Insertion(result.replaced(), insertIntoInner(channel, pageNo, node, slot, result.split()));
+    }
+
+    private Insertion insertIntoLeaf(FileChannel channel, int pageNo, ByteBuffer leaf, int code, long offset,
+            int length) throws IOException {
+        int index = search(leaf, code);
+        if (index >= 0) {
+            int at = ENTRIES + index * LEAF_ENTRY;
+            leaf.putLong(at + 4, offset);
+            leaf.putInt(at + 12, length);
+            writePage(channel, pageNo, leaf);
+            return new Insertion(true, null);
+        }
+        index = -index - 1;
+        int count = leaf.getInt(COUNT);
+        if (count < leafCapacity) {
+            putLeafEntry(leaf, count, index, code, offset, length);
+            writePage(channel, pageNo, leaf);
+            return new Insertion(false, null);
+        }
+        int splitAt = index == count ? count : count / 2;
+        int rightPageNo = pageCount++;
+        ByteBuffer right = newPage(LEAF);
+        System.arraycopy(leaf.array(), ENTRIES + splitAt * LEAF_ENTRY, right.array(), ENTRIES,
+                (count - splitAt) * LEAF_ENTRY);
+        right.putInt(COUNT, count - splitAt);
+        right.putInt(LINK, leaf.getInt(LINK));
+        leaf.putInt(COUNT, splitAt);
+        leaf.putInt(LINK, rightPageNo);
+        if (index < splitAt) {
+            putLeafEntry(leaf, splitAt, index, code, offset, length);
+        } else {
+            putLeafEntry(right, count - splitAt, index - splitAt, code, offset, length);
+        }
+        writePage(channel, rightPageNo, right);
+        writePage(channel, pageNo, leaf);
+        return new Insertion(false, new Split(right.getInt(ENTRIES), rightPageNo));
+    }
+
+    private void putLeafEntry(ByteBuffer leaf, int count, int index, int code, long offset, int length) {
+        int at = ENTRIES + index * LEAF_ENTRY;
+        System.arraycopy(leaf.array(), at, leaf.array(), at + LEAF_ENTRY, (count - index) * LEAF_ENTRY);
+        leaf.putInt(at, code);
+        leaf.putLong(at + 4, offset);
+        leaf.putInt(at + 12, length);
+        leaf.putInt(COUNT, count + 1);
+    }
+
+    /**
+     * 分割された子へのキーを、内部の頁のslot番目の子の直後に加えます。
+     * 頁が一杯の場合は分割し、中央のキーを親に返す(中央のキーはどちらの頁にも残さない)
+     */
+    private Split insertIntoInner(FileChannel channel, int pageNo, ByteBuffer node, int slot, Split split)
+            throws IOException {
+        int count = node.getInt(COUNT);
+        if (count < innerCapacity) {
+            int at = ENTRIES + slot * INNER_ENTRY;
+            System.arraycopy(node.array(), at, node.array(), at + INNER_ENTRY, (count - slot) * INNER_ENTRY);
+            node.putInt(at, split.key());
+            node.putInt(at + 4, split.page());
+            node.putInt(COUNT, count + 1);
+            writePage(channel, pageNo, node);
+            return null;
+        }
+        int[] keys = new int[count + 1];
+        int[] children = new int[count + 2];
+        children[0] = node.getInt(LINK);
+        for (int i = 0, j = 0; i <= count; i++) {
+            if (i == slot) {
+                keys[i] = split.key();
+                children[i + 1] = split.page();
+            } else {
+                int at = ENTRIES + j++ * INNER_ENTRY;
+                keys[i] = node.getInt(at);
+                children[i + 1] = node.getInt(at + 4);
+            }
+        }
+        int middle = slot == count ? count : (count + 1) / 2;
+        int rightPageNo = pageCount++;
+        ByteBuffer right = newPage(INNER);
+        fillInner(node, keys, children, 0, middle);
+        fillInner(right, keys, children, middle + 1, keys.length);
+        writePage(channel, rightPageNo, right);
+        writePage(channel, pageNo, node);
+        return new Split(keys[middle], rightPageNo);
+    }
+
+    /**
+     * 内部の頁を、keys[from, to)と、その左右の子で埋めます。
+     */
+    private void fillInner(ByteBuffer node, int[] keys, int[] children, int from, int to) {
+        node.putInt(COUNT, to - from);
+        node.putInt(LINK, children[from]);
+        for (int i = from; i < to; i++) {
+            int at = ENTRIES + (i - from) * INNER_ENTRY;
+            node.putInt(at, keys[i]);
+            node.putInt(at + 4, children[i + 1]);
+        }
+    }
+
+    private ByteBuffer newPage(byte type) {
+        ByteBuffer page = ByteBuffer.allocate(pageSize);
+        page.put(TYPE, type);
+        return page;
+    }
+
+    /**
+     * 頁を取得します。キャッシュにない場合はファイルから読み込み、キャッシュに登録する
+     */
+    private ByteBuffer page(FileChannel channel, int pageNo) throws IOException {
+        ByteBuffer page = cache.getIfPresent(pageNo);
+        if (page != null) return page;
+        page = ByteBuffer.allocate(pageSize);
+        readFully(channel, pageNo, page);
+        cache.put(pageNo, page);
+        return page;
+    }
+
+    /**
+     * 頁をファイルに書き込み、キャッシュにも登録します。
+     */
+    private void writePage(FileChannel channel, int pageNo, ByteBuffer page) throws IOException {
+        writeFully(channel, pageNo, page);
+        cache.put(pageNo, page);
+    }
+
+    private void readFully(FileChannel channel, int pageNo, ByteBuffer page) throws IOException {
+        ByteBuffer view = page.duplicate().clear();
+        long position = (long) pageNo * pageSize;
+        while (view.hasRemaining()) {
+            if (channel.read(view, position + view.position()) < 0) {
+                throw new IOException("索引ファイルが途中で終わっています: " + path + " page " + pageNo);
+            }
+        }
+    }
+
+    private void writeFully(FileChannel channel, int pageNo, ByteBuffer page) throws IOException {
+        ByteBuffer view = page.duplicate().clear();
+        long position = (long) pageNo * pageSize;
+        while (view.hasRemaining()) {
+            channel.write(view, position + view.position());
+        }
+    }
+
+    /**
+     * CSVの行の位置です。
+     * @param offset 行の先頭のバイト位置
+     * @param length 行のバイト数(改行を含まない)
+     */
+    record Location(long offset, int length) {
+    }
+
+    /**
+     * 索引を作り直すときに、CSVの行を読んで登録先に渡す処理です。
+     */
+    @FunctionalInterface
+    interface Scanner {
+        void scan(Sink sink) throws IOException;
+    }
+
+    /**
+     * 作り直す索引への登録先です。
+     */
+    @FunctionalInterface
+    interface Sink {
+        void accept(int code, long offset, int length) throws IOException;
+    }
+
+    private record Split(int key, int page) {
+    }
+
+    private record Insertion(boolean replaced, Split split) {
+    }
+}
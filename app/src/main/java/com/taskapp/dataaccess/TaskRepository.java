@@ -0,0 +1,114 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクデータの保存先を表すインターフェースです。
+ */
+public interface TaskRepository {
+
+    /**
+     * 全てのタスクデータを取得します。
+     * @return タスクのリスト
+     */
+    List<Task> findAll();
+
+    /**
+     * タスクを保存します。
+     * @param task 保存するタスク
+     */
+    void save(Task task);
+
+    /**
+     * 複数のタスクをまとめて保存します。
+     * 既定の実装では1件ずつsaveを呼び出す
+     * @param tasks 保存するタスク
+     */
+    default void saveAll(List<Task> tasks) {
+        tasks.forEach(this::save);
+    }
+
+    /**
+     * 全てのタスクを、指定したタスクで置き換えます。
+     * 既定の実装では既存のタスクを1件ずつ削除してからsaveAllを呼び出す
+     * @param tasks 置き換え後のタスク
+     */
+    default void replaceAll(List<Task> tasks) {
+        findAll().forEach(task -> delete(task.getCode()));
+        saveAll(tasks);
+    }
+
+    /**
+     * コードを基にタスクデータを1件取得します。
+     * @param taskCode 取得するタスクのコード
+     * @return 取得したタスク。該当しない場合はnull
+     */
+    Task findByCode(int taskCode);
+
+    /**
+     * タスクデータを更新します。
+     * 保存されているタスクのバージョンがupdateTaskのバージョンと一致する場合だけ更新し、バージョンを1つ増やす
+     * @param updateTask 更新するタスク(バージョンは読み込んだ時点のもの)
+     * @throws com.taskapp.exception.StaleTaskException 読み込んだ後にタスクが他の更新で変更または削除されていた場合にスローされます
+     */
+    void update(Task updateTask);
+
+    /**
+     * コードを基にタスクデータを削除します。
+     * @param code 削除するタスクのコード
+     */
+    void delete(int code);
+
+    /**
+     * 保存先の現在の状態を表す文字列を返します。
+     * 他のプロセスや別のDataAccessから保存先が変更された場合にも値が変わる
+     * 既定の実装では、状態を判定できないものとして空文字を返す
+     * @return 保存先の状態
+     */
+    default String changeStamp() {
+        return "";
+    }
+
+    /**
+     * 全てのタスクデータを、IoExecutorのスレッドで取得します。
+     * @see #findAll()
+     * @return タスクのリスト
+     */
+    default CompletableFuture<List<Task>> findAllAsync() {
+        return IoExecutor.shared().supply(this::findAll);
+    }
+
+    /**
+     * コードを基にタスクデータを1件、IoExecutorのスレッドで取得します。
+     * @see #findByCode(int)
+     * @param taskCode 取得するタスクのコード
+     * @return 取得したタスク。該当しない場合はnull
+     */
+    default CompletableFuture<Task> findByCodeAsync(int taskCode) {
+        return IoExecutor.shared().supply(() -> findByCode(taskCode));
+    }
+
+    /**
+     * タスクを、IoExecutorのスレッドで保存します。
+     * @see #save(Task)
+     * @param task 保存するタスク
+     * @return 保存の完了
+     */
+    default CompletableFuture<Void> saveAsync(Task task) {
+        return IoExecutor.shared().run(() -> save(task));
+    }
+
+    /**
+     * タスクデータを、IoExecutorのスレッドで更新します。
+     * 他の更新と競合した場合は、StaleTaskExceptionで例外的に完了する
+     * @see #update(Task)
+     * @param updateTask 更新するタスク(バージョンは読み込んだ時点のもの)
+     * @return 更新の完了
+     */
+    default CompletableFuture<Void> updateAsync(Task updateTask) {
+        return IoExecutor.shared().run(() -> update(updateTask));
+    }
+}
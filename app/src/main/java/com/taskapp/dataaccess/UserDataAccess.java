@@ -1,16 +1,29 @@
 package com.taskapp.dataaccess;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import com.taskapp.config.AppConfig;
 import com.taskapp.model.User;
 
-public class UserDataAccess {
+public class UserDataAccess implements UserRepository {
     private final String filePath;
 
+    private final FileIo io;
+
+    private final LruCache<Integer, Optional<User>> codeCache;
+
+    private volatile FileStamp cacheStamp;
+
+    private volatile WarmIndex warmIndex;
+
     public UserDataAccess() {
-        filePath = "app/src/main/resources/users.csv";
+        this(AppConfig.defaults().getUsersFile(), AppConfig.defaults());
     }
 
     /**
@@ -18,7 +31,31 @@ public class UserDataAccess {
      * @param filePath
      */
     public UserDataAccess(String filePath) {
+        this(filePath, AppConfig.defaults());
+    }
+
+    /**
+     * 設定に従ってUserDataAccessを生成します。
+     * ファイルの文字コード・バッファサイズと、findByCodeのキャッシュの大きさ・有効期限は設定の値を使う
+     * @param filePath
+     * @param config アプリケーションの設定
+     */
+    public UserDataAccess(String filePath, AppConfig config) {
         this.filePath = filePath;
+        this.io = new FileIo(config);
+        this.codeCache = new LruCache<>(config.getUserCacheSize(), config.getUserCacheTtlMillis());
+    }
+
+    /**
+     * findByCodeのキャッシュの大きさを指定してUserDataAccessを生成します。
+     * @param filePath
+     * @param cacheSize キャッシュするユーザーの上限数
+     * @param cacheTtlMillis キャッシュの有効期限(ミリ秒)。0以下の場合は期限なし
+     */
+    public UserDataAccess(String filePath, int cacheSize, long cacheTtlMillis) {
+        this.filePath = filePath;
+        this.io = new FileIo(AppConfig.defaults());
+        this.codeCache = new LruCache<>(cacheSize, cacheTtlMillis);
     }
 
     /**
@@ -26,13 +63,20 @@ public class UserDataAccess {
      * users.csvを読み込み、1行をカンマで分割して配列に格納する
      * 格納した要素のうち、メールアドレスとパスワードにあたる要素を、引数のメールアドレスとパスワードが一致するとき、
      * loginUserのオブジェクトを生成して返す
+     * 事前読み込みした索引がファイルの現在の状態と一致する場合は、ファイルを読まずに索引から探す
      * @param email メールアドレス
      * @param password パスワード
      * @return 見つかったユーザー
      */
+    @Override
     public User findByEmailAndPassword(String email, String password) {
+        WarmIndex index = currentWarmIndex();
+        if (index != null) {
+            User user = index.byEmail().get(email);
+            return user != null && user.getPassword().equals(password) ? user : null;
+        }
         User loginUser = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = io.reader(filePath)) {
             String line;
             reader.readLine();
             while ((line = reader.readLine()) != null) {
@@ -49,21 +93,54 @@ public class UserDataAccess {
 
     /**
      * コードを基にユーザーデータを取得します。
+     * キャッシュにあればキャッシュから返し、なければreadByCodeでファイルから読み込んでキャッシュに登録する
+     * 存在しないコードもキャッシュに登録し、同じコードで再度ファイルを読まないようにする
+     * users.csvの状態(FileStamp)が前回から変わっていれば、キャッシュを全て破棄してから探す
+     *
+     * @see #readByCode(int)
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー
+     */
+    @Override
+    public User findByCode(int code) {
+        FileStamp stamp = validateCache();
+        Optional<User> cached = codeCache.getIfPresent(code);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        User repUser = readByCode(code);
+        // 読み込み中にファイルが変更された場合は、古い内容をキャッシュに残さない
+        if (stamp.matches(filePath)) {
+            codeCache.put(code, Optional.ofNullable(repUser));
+        }
+        return repUser;
+    }
+
+    /**
+     * findByCodeのキャッシュの統計を返します。
+     * @return キャッシュの統計
+     */
+    public LruCache.CacheStats cacheStats() {
+        return codeCache.stats();
+    }
+
+    /**
+     * コードを基にユーザーデータをファイルから読み込みます。
      * users.csvを読みこみ、1行を分割して配列に格納する
      * 配列のインデックス0の要素をintに変換し、findByCodeメソッドの引数と一致するとき、
      * その行でUserオブジェクトを生成し、それを返す
      * @param code 取得するユーザーのコード
      * @return 見つかったユーザー
      */
-    public User findByCode(int code) {
+    private User readByCode(int code) {
         User repUser = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = io.reader(filePath)) {
             reader.readLine();
             String line;
             while ((line = reader.readLine()) != null) {
                 String[] v = line.split(",");
-                int csvCode = Integer.parseInt(v[0]);
                 if (v.length != 4) continue;
+                int csvCode = Integer.parseInt(v[0]);
                 if (csvCode != code) continue;
                 repUser = new User(csvCode, v[1], v[2], v[3]);
             }
@@ -72,4 +149,92 @@ public class UserDataAccess {
         }
         return repUser;
     }
+
+    /**
+     * users.csvの現在の状態を取得し、キャッシュしたときの状態と異なる場合はキャッシュを破棄します。
+     * @return users.csvの現在の状態
+     */
+    private FileStamp validateCache() {
+        FileStamp stamp = FileStamp.of(filePath);
+        if (!stamp.equals(cacheStamp)) {
+            synchronized (codeCache) {
+                if (!stamp.equals(cacheStamp)) {
+                    codeCache.clear();
+                    cacheStamp = stamp;
+                }
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * すべてのユーザーを取得します。
+     * users.csvを読み込み、1行ごとにUserオブジェクトを生成してリストに格納する
+     * @return ユーザーのリスト
+     */
+    @Override
+    public List<User> findAll() {
+        List<User> userList = new ArrayList<>();
+        try (BufferedReader reader = io.reader(filePath)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] v = line.split(",");
+                if (v.length != 4) continue;
+                userList.add(new User(Integer.parseInt(v[0]), v[1], v[2], v[3]));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return userList;
+    }
+
+    /**
+     * 読み込み済みのユーザーを、findByCodeのキャッシュとメールアドレスの索引に登録します。
+     * stampがファイルの現在の状態と一致しない場合は登録しない
+     * 同じコード・メールアドレスの行が複数ある場合は、ファイルの検索と同じく後の行を優先する
+     * キャッシュの上限を超える分は、古いものから破棄される
+     * @param users 登録するユーザー
+     * @param stamp ユーザーを読み込んだときのファイルの状態
+     * @return 登録した場合はtrue
+     */
+    public boolean preload(List<User> users, FileStamp stamp) {
+        if (!stamp.equals(validateCache())) return false;
+        Map<String, User> byEmail = new HashMap<>();
+        for (User user : users) {
+            codeCache.put(user.getCode(), Optional.of(user));
+            byEmail.put(user.getEmail(), user);
+        }
+        warmIndex = new WarmIndex(byEmail, stamp);
+        return true;
+    }
+
+    /**
+     * users.csvの現在の状態を返します。
+     * @return ファイルの状態
+     */
+    public FileStamp stamp() {
+        return FileStamp.of(filePath);
+    }
+
+    /**
+     * ファイルの現在の状態と一致する索引を返します。
+     * 一致しない場合は索引を破棄してnullを返す
+     * @return 索引
+     */
+    private WarmIndex currentWarmIndex() {
+        WarmIndex index = warmIndex;
+        if (index == null) return null;
+        if (!index.stamp().matches(filePath)) {
+            warmIndex = null;
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * 事前読み込みしたメールアドレスの索引と、読み込んだときのファイルの状態の組です。
+     */
+    private record WarmIndex(Map<String, User> byEmail, FileStamp stamp) {
+    }
 }
@@ -0,0 +1,52 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーデータの保存先を表すインターフェースです。
+ */
+public interface UserRepository {
+
+    /**
+     * メールアドレスとパスワードを基にユーザーデータを探します。
+     * @param email メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー。該当しない場合はnull
+     */
+    User findByEmailAndPassword(String email, String password);
+
+    /**
+     * コードを基にユーザーデータを取得します。
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー。該当しない場合はnull
+     */
+    User findByCode(int code);
+
+    /**
+     * すべてのユーザーを取得します。
+     * @return ユーザーのリスト
+     */
+    List<User> findAll();
+
+    /**
+     * コードを基にユーザーデータを、IoExecutorのスレッドで取得します。
+     * @see #findByCode(int)
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー。該当しない場合はnull
+     */
+    default CompletableFuture<User> findByCodeAsync(int code) {
+        return IoExecutor.shared().supply(() -> findByCode(code));
+    }
+
+    /**
+     * すべてのユーザーを、IoExecutorのスレッドで取得します。
+     * @see #findAll()
+     * @return ユーザーのリスト
+     */
+    default CompletableFuture<List<User>> findAllAsync() {
+        return IoExecutor.shared().supply(this::findAll);
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskapp.event;
+
+import java.time.LocalDate;
+
+/**
+ * タスクの変更を表すイベントです。
+ * TaskLogicの保存・ステータス変更・削除が成功したときに発行されます。
+ */
+public sealed interface TaskEvent permits TaskEvent.TaskCreated, TaskEvent.StatusChanged, TaskEvent.TaskDeleted {
+
+    /**
+     * 対象のタスクコードを返します。
+     * @return タスクコード
+     */
+    int code();
+
+    /**
+     * タスクが新規登録されたことを表すイベントです。
+     */
+    record TaskCreated(int code, String name, int repUserCode, int changeUserCode, LocalDate changeDate)
+            implements TaskEvent {
+    }
+
+    /**
+     * タスクのステータスが変更されたことを表すイベントです。
+     */
+    record StatusChanged(int code, int oldStatus, int newStatus, int changeUserCode, LocalDate changeDate)
+            implements TaskEvent {
+    }
+
+    /**
+     * タスクが削除されたことを表すイベントです。
+     */
+    record TaskDeleted(int code) implements TaskEvent {
+    }
+}
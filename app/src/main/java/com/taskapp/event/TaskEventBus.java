@@ -0,0 +1,222 @@
+package com.taskapp.event;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * プロセス内でTaskEventを配信するイベントバスです。
+ * 購読者ごとに上限付きのリングバッファ(ArrayBlockingQueue)と配信用スレッドを持ち、
+ * 発行側はバッファへの追加だけを行うため、購読者の処理を待たずに戻ります。
+ * バッファが一杯のときはイベントを破棄し、その件数を購読者ごとに記録します。
+ * 破棄した場合は、次のイベントを配信する前に(次のイベントがなければバッファが空になったときに)、
+ * 破棄した件数を購読者のonOverflowに渡します。イベントから作った集計などは、そこで全体を読み込み直します。
+ * イベントを1件も失えない処理(レプリケーションなど)は、発行したスレッドで直接呼び出されるリスナーを使います。
+ */
+public class TaskEventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<? super TaskEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * イベントを全てのリスナーと購読者に発行します。
+     * リスナーは発行したスレッドで順番に呼び出し、購読者にはバッファへ追加するだけで戻る
+     * 購読者がいない場合は何もしない
+     * @param event 発行するイベント
+     */
+    public void publish(TaskEvent event) {
+        for (Consumer<? super TaskEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * 発行したスレッドで直接呼び出されるリスナーを登録します。
+     * イベントは破棄されず、発行された順番に届く
+     * 発行側を待たせるため、listenerの処理は短くする
+     * @param listener イベントを受け取る処理
+     */
+    public void addListener(Consumer<? super TaskEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 登録したリスナーを解除します。
+     * @param listener 解除するリスナー
+     */
+    public void removeListener(Consumer<? super TaskEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 既定の容量で購読を開始します。
+     * @see #subscribe(Consumer, int)
+     * @param listener イベントを受け取る処理
+     * @return 購読
+     */
+    public Subscription subscribe(Consumer<? super TaskEvent> listener) {
+        return subscribe(listener, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 購読を開始します。
+     * 破棄したイベントの通知は受け取らない(getDroppedCountで確認する)
+     * @see #subscribe(Consumer, LongConsumer, int)
+     * @param listener イベントを受け取る処理
+     * @param capacity バッファに保持できるイベントの数
+     * @return 購読
+     */
+    public Subscription subscribe(Consumer<? super TaskEvent> listener, int capacity) {
+        return subscribe(listener, dropped -> {
+        }, capacity);
+    }
+
+    /**
+     * 購読を開始します。
+     * listenerは購読ごとの配信用スレッドで、発行された順番に呼び出される
+     * バッファが一杯でイベントを破棄した場合は、破棄した位置でonOverflowに破棄した件数を渡す
+     * (onOverflowより前に届いたイベントは破棄より前に、後に届いたイベントは破棄より後に発行されたもの)
+     * @param listener イベントを受け取る処理
+     * @param onOverflow 破棄したイベントの件数を受け取る処理
+     * @param capacity バッファに保持できるイベントの数
+     * @return 購読
+     */
+    public Subscription subscribe(Consumer<? super TaskEvent> listener, LongConsumer onOverflow, int capacity) {
+        Subscription subscription = new Subscription(listener, onOverflow, capacity);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * イベントバスへの購読を表します。
+     * closeすると、それ以降のイベントは配信されません。
+     */
+    public class Subscription implements AutoCloseable {
+        private final Consumer<? super TaskEvent> listener;
+        private final LongConsumer onOverflow;
+        private final BlockingQueue<Delivery> buffer;
+        private final Thread dispatcher;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+        // 前回バッファに追加できてから破棄したイベントの数
+        private long pendingDrops;
+
+        private Subscription(Consumer<? super TaskEvent> listener, LongConsumer onOverflow, int capacity) {
+            this.listener = listener;
+            this.onOverflow = onOverflow;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+            this.dispatcher = new Thread(this::dispatch, "task-event-dispatcher");
+            this.dispatcher.setDaemon(true);
+        }
+
+        private void start() {
+            dispatcher.start();
+        }
+
+        /**
+         * イベントをバッファに追加します。
+         * 直前に破棄したイベントがあれば、その件数をイベントと一緒に追加する
+         */
+        private synchronized void offer(TaskEvent event) {
+            if (closed) return;
+            if (buffer.offer(new Delivery(event, pendingDrops))) {
+                pendingDrops = 0;
+            } else {
+                pendingDrops++;
+                dropped.incrementAndGet();
+            }
+        }
+
+        private synchronized long takePendingDrops() {
+            long drops = pendingDrops;
+            pendingDrops = 0;
+            return drops;
+        }
+
+        private void dispatch() {
+            while (!closed || !buffer.isEmpty()) {
+                try {
+                    Delivery delivery = buffer.poll(100, TimeUnit.MILLISECONDS);
+                    if (delivery == null) {
+                        // 破棄した後にイベントが発行されていなくても、通知は届ける
+                        notifyOverflow(takePendingDrops());
+                        continue;
+                    }
+                    notifyOverflow(delivery.droppedBefore());
+                    listener.accept(delivery.event());
+                    delivered.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            // 最後のイベントより後に破棄したものがあれば、終了する前に通知する
+            notifyOverflow(takePendingDrops());
+        }
+
+        private void notifyOverflow(long drops) {
+            if (drops == 0) return;
+            try {
+                onOverflow.accept(drops);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * 購読者に配信したイベントの数を返します。
+         * @return 配信したイベントの数
+         */
+        public long getDeliveredCount() {
+            return delivered.get();
+        }
+
+        /**
+         * バッファが一杯で破棄したイベントの数を返します。
+         * @return 破棄したイベントの数
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        /**
+         * 購読を終了します。
+         * バッファに残っているイベントを配信し終えてから配信用スレッドを停止する
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            if (Thread.currentThread() == dispatcher) return;
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * バッファに追加したイベントと、その直前に破棄したイベントの数です。
+     */
+    private record Delivery(TaskEvent event, long droppedBefore) {
+    }
+}
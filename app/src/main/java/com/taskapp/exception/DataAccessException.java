@@ -0,0 +1,12 @@
+package com.taskapp.exception;
+
+/**
+ * データベースなどの保存先の読み書きに失敗した場合にスローされる例外です。
+ * 保存できなかった変更を成功として扱わないように、呼び出し元まで伝えます。
+ * 呼び出し元で回復できないことが多いため、検査例外にはしていません。
+ */
+public class DataAccessException extends RuntimeException {
+    public DataAccessException(String message, Throwable cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskapp.exception;
+
+/**
+ * タスクを読み込んでから更新するまでの間に、他の更新が行われていた場合にスローされる例外です。
+ * 読み込み直してから更新をやり直せるため、検査例外にはしていません。
+ */
+public class StaleTaskException extends RuntimeException {
+    /** タスクが削除されていた場合の、現在のバージョン */
+    public static final int DELETED = -1;
+
+    private final int code;
+
+    private final int expectedVersion;
+
+    private final int actualVersion;
+
+    public StaleTaskException(int code, int expectedVersion, int actualVersion) {
+        super("タスクが他の更新によって変更されています: code=" + code + ", version=" + expectedVersion + ", current="
+                + actualVersion);
+        this.code = code;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,106 @@
+package com.taskapp.load;
+
+/**
+ * 処理時間(ナノ秒)の分布を記録するヒストグラムです。
+ *
+ * 値を2のべき乗ごとの区間に分け、各区間をさらに64等分したバケットで数えるため、
+ * 記録する値の大きさにかかわらず、パーセンタイルの誤差は約1.6%以内になります。
+ * 1つのセッションのスレッドだけで記録し、集計するときにaddでまとめる想定のため、スレッドセーフではありません。
+ */
+public final class LatencyHistogram {
+    // 128未満の値は1ずつ、それ以上の値は2のべき乗の区間ごとに64個のバケットで数える
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long count;
+
+    private long sum;
+
+    private long max;
+
+    /**
+     * 値を1件記録します。負の値は0として記録する
+     * @param nanos 処理時間(ナノ秒)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 他のヒストグラムの記録を、このヒストグラムに加えます。
+     * @param other 加えるヒストグラム
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * 平均値を返します。
+     * @return 平均値(記録がない場合は0)
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * 指定した割合の記録がその値以下になる値を返します。
+     * 値を含むバケットの上限を返すため、実際の値より最大で約1.6%大きくなる(記録した最大値は超えない)
+     * @param quantile 割合(0.5で中央値、0.99で99パーセンタイル)
+     * @return パーセンタイルの値(記録がない場合は0)
+     */
+    public long percentile(double quantile) {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 値を数えるバケットの番号を返します。
+     * 128以上の値は、最上位ビットの位置で区間を決め、その下の6ビットで区間内のバケットを決める
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (sub - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * バケットに数える値の上限を返します。
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long sub = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        long highest = ((sub + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,577 @@
+package com.taskapp.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 複数のユーザーが同時に操作したときの性能と、データが壊れないことを確かめる負荷テストです。
+ *
+ * 空のデータディレクトリにセッションの数だけユーザーを作成し、セッションごとに1つのスレッドから、
+ * 1つのUserLogicとTaskLogicを共有して、ログイン・一覧・登録・ステータス変更・削除を指定した割合で繰り返します。
+ * ステータス変更と削除は、全てのセッションが最近登録したタスクから選ぶため、同じタスクへの操作が競合します。
+ *
+ * 終了後、操作ごとの件数・スループット・p50/p99/p999の処理時間を集計し、CSVファイルを読み込み直して、
+ * 成功した操作の結果とファイルの内容が一致するか(データが壊れていないか)を検査します。
+ *
+ * <pre>
+ * --sessions &lt;数&gt;          同時に操作するセッションの数(既定は8)
+ * --duration &lt;秒&gt;          実行する時間(既定は10秒)
+ * --operations &lt;数&gt;        時間の代わりに、セッションごとの操作の数を指定する
+ * --mix &lt;操作=割合,...&gt;    操作の割合(既定はlogin=5,list=30,create=25,change=30,delete=10)
+ * --seed &lt;数&gt;              乱数の種
+ * --dir &lt;ディレクトリ&gt;      データディレクトリを作成する場所(既定は一時ディレクトリ)
+ * </pre>
+ */
+public class LoadGenerator {
+    public static final String DEFAULT_MIX = "login=5,list=30,create=25,change=30,delete=10";
+
+    // ステータス変更・削除の対象を選ぶ、最近登録したタスクの数(2のべき乗)
+    private static final int RECENT_SIZE = 1024;
+
+    private static final int MAX_ERROR_MESSAGES = 10;
+
+    /**
+     * 負荷テストで行う操作です。
+     */
+    public enum Operation {
+        /** メールアドレスとパスワードで認証する */
+        LOGIN,
+        /** 全てのタスクを取得する */
+        LIST,
+        /** タスクコードを自動で採番してタスクを登録する */
+        CREATE,
+        /** 最近登録したタスクのステータスを1つ進める */
+        CHANGE,
+        /** 最近登録したタスクを削除する(完了していないタスクは拒否される) */
+        DELETE
+    }
+
+    private final Path dataDirectory;
+
+    private final AppConfig config;
+
+    private final int sessions;
+
+    private final Map<Operation, Integer> mix;
+
+    private final long seed;
+
+    private final Map<Integer, TaskState> states = new ConcurrentHashMap<>();
+
+    private final AtomicIntegerArray recent = new AtomicIntegerArray(RECENT_SIZE);
+
+    private final AtomicLong recentCount = new AtomicLong();
+
+    private final List<String> errorMessages = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 負荷テストを生成します。
+     * @param dataDirectory データディレクトリ(users.csv・tasks.csv・logs.csvを作り直す)
+     * @param config 入出力の設定
+     * @param sessions 同時に操作するセッションの数
+     * @param mix 操作の割合
+     * @param seed 乱数の種
+     */
+    public LoadGenerator(Path dataDirectory, AppConfig config, int sessions, Map<Operation, Integer> mix, long seed) {
+        this.dataDirectory = dataDirectory;
+        this.config = config.withDataDirectory(dataDirectory);
+        this.sessions = sessions;
+        this.mix = new EnumMap<>(mix);
+        this.seed = seed;
+    }
+
+    /**
+     * 操作の割合を「操作=割合」のカンマ区切りから変換します。
+     * @param text 操作の割合(例: login=5,list=30,create=25,change=30,delete=10)
+     * @return 操作ごとの割合
+     * @throws AppException 形式が正しくない場合にスローされます
+     */
+    public static Map<Operation, Integer> parseMix(String text) throws AppException {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : text.split(",")) {
+            String[] v = entry.trim().split("=");
+            try {
+                Operation operation = Operation.valueOf(v[0].trim().toUpperCase(Locale.ROOT));
+                int weight = Integer.parseInt(v[1].trim());
+                if (v.length != 2 || weight < 0) throw new IllegalArgumentException();
+                mix.put(operation, weight);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new AppException("操作の割合は「login=5,list=30」の形式で指定してください: " + entry);
+            }
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new AppException("少なくとも1つの操作の割合を1以上にしてください");
+        }
+        return mix;
+    }
+
+    /**
+     * 負荷テストを実行します。
+     * 実装の流れ
+     * データディレクトリにセッションの数だけユーザーを作成し、タスクとログを空にする
+     * 全てのセッションのスレッドを同時に開始し、時間または操作の数に達するまで操作を繰り返す
+     * 操作ごとに処理時間を記録し、業務上の理由で拒否された操作(AppException)と、予期しない例外を分けて数える
+     * 全てのセッションが終わったら、データを読み込み直して検査する
+     *
+     * @param durationMillis 実行する時間(ミリ秒)。operationsPerSessionを指定する場合は0
+     * @param operationsPerSession セッションごとの操作の数。時間を指定する場合は0
+     * @return 負荷テストの結果
+     * @throws IOException データディレクトリを作成できなかった場合にスローされます
+     * @throws InterruptedException 完了を待っている間に割り込まれた場合にスローされます
+     */
+    public Result run(long durationMillis, long operationsPerSession) throws IOException, InterruptedException {
+        prepareData();
+        UserDataAccess userDataAccess = new UserDataAccess(config.getUsersFile(), config);
+        UserLogic userLogic = new UserLogic(userDataAccess);
+        TaskLogic taskLogic = new TaskLogic(new TaskDataAccess(config.getTasksFile(), userDataAccess, config),
+                new LogDataAccess(config.getLogsFile(), config), userDataAccess);
+
+        List<Session> sessionList = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 1; i <= sessions; i++) {
+            Session session = new Session(i, userLogic, taskLogic, new SplittableRandom(seed + i));
+            sessionList.add(session);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    session.run(durationMillis, operationsPerSession);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "load-session-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            OperationStats merged = new OperationStats();
+            for (Session session : sessionList) {
+                merged.add(session.stats.get(operation));
+            }
+            stats.put(operation, merged);
+        }
+        return new Result(sessions, elapsedNanos, stats, verify(taskLogic), List.copyOf(errorMessages));
+    }
+
+    /**
+     * データディレクトリに、セッションの数のユーザーと、空のタスク・ログのファイルを作成します。
+     * セッションiのユーザーは、コードi・メールアドレスload{i}@example.com・パスワードpassword
+     */
+    private void prepareData() throws IOException {
+        Files.createDirectories(dataDirectory);
+        List<String> users = new ArrayList<>();
+        users.add("Code,Name,Email,Password");
+        for (int i = 1; i <= sessions; i++) {
+            users.add(i + ",load" + i + "," + email(i) + ",password");
+        }
+        Files.write(Paths.get(config.getUsersFile()), users, config.getCharset());
+        Files.writeString(Paths.get(config.getTasksFile()), "Code,Name,Status,Rep_User_Code", config.getCharset());
+        Files.writeString(Paths.get(config.getLogsFile()), "Task_Code,Change_User_Code,Status,Change_Date",
+                config.getCharset());
+    }
+
+    private static String email(int userCode) {
+        return "load" + userCode + "@example.com";
+    }
+
+    /**
+     * 成功した操作の結果と、CSVファイルの内容を照合します。
+     * 実装の流れ
+     * 新しいDataAccessでファイルを読み込み直し、読み込み済みのテーブルを使わずに検査する
+     * tasks.csvの全ての行が正しい形式で、タスクコードが重複していないことを確かめる
+     * 登録に成功したタスクについて、削除に成功していれば存在しないこと、
+     * そうでなければステータスとバージョンがステータス変更の成功回数と一致し、ログが0から現在のステータスまで1件ずつあることを確かめる
+     * 登録していないタスクや、存在しないタスクのログがないことを確かめる
+     * 最後に、TaskLogicから取得した一覧がファイルの内容と一致することを確かめる
+     *
+     * @return 見つかった不整合(なければ空)
+     */
+    private List<String> verify(TaskLogic taskLogic) throws IOException {
+        List<String> violations = new ArrayList<>();
+        List<String> lines = Files.readAllLines(Paths.get(config.getTasksFile()), config.getCharset());
+        for (int i = 1; i < lines.size(); i++) {
+            String[] v = lines.get(i).split(",");
+            boolean valid = v.length == 4 || v.length == 5;
+            for (int c = 0; valid && c < v.length; c++) {
+                valid = c == 1 || v[c].matches("\\d+");
+            }
+            if (!valid) violations.add("tasks.csvの" + (i + 1) + "行目の形式が正しくありません: " + lines.get(i));
+        }
+
+        UserDataAccess userDataAccess = new UserDataAccess(config.getUsersFile(), config);
+        List<Task> tasks = new TaskDataAccess(config.getTasksFile(), userDataAccess, config).findAll();
+        Map<Integer, Task> taskByCode = new HashMap<>();
+        for (Task task : tasks) {
+            if (taskByCode.put(task.getCode(), task) != null) {
+                violations.add("タスクコードが重複しています: " + task.getCode());
+            }
+        }
+        Map<Integer, List<Integer>> logStatuses = new HashMap<>();
+        for (Log log : new LogDataAccess(config.getLogsFile(), config).findAll()) {
+            logStatuses.computeIfAbsent(log.getTaskCode(), k -> new ArrayList<>()).add(log.getStatus());
+        }
+
+        for (Map.Entry<Integer, TaskState> entry : states.entrySet()) {
+            int code = entry.getKey();
+            TaskState state = entry.getValue();
+            Task task = taskByCode.get(code);
+            if (state.deleted) {
+                if (task != null) violations.add("削除したタスクが残っています: " + code);
+                if (logStatuses.containsKey(code)) violations.add("削除したタスクのログが残っています: " + code);
+                continue;
+            }
+            int changes = state.changes.get();
+            if (task == null) {
+                violations.add("登録したタスクがありません: " + code);
+                continue;
+            }
+            if (task.getStatus() != changes || task.getVersion() != changes) {
+                violations.add("タスク" + code + "のステータス・バージョンが一致しません(期待値: " + changes + ", ステータス: "
+                        + task.getStatus() + ", バージョン: " + task.getVersion() + ")");
+            }
+            List<Integer> statuses = new ArrayList<>(logStatuses.getOrDefault(code, List.of()));
+            Collections.sort(statuses);
+            List<Integer> expected = new ArrayList<>();
+            for (int s = 0; s <= changes; s++) {
+                expected.add(s);
+            }
+            if (!statuses.equals(expected)) {
+                violations.add("タスク" + code + "のログが一致しません(期待値: " + expected + ", ログ: " + statuses + ")");
+            }
+        }
+        for (Task task : tasks) {
+            if (!states.containsKey(task.getCode())) violations.add("登録していないタスクがあります: " + task.getCode());
+        }
+        for (int code : logStatuses.keySet()) {
+            if (!taskByCode.containsKey(code) && !states.containsKey(code)) {
+                violations.add("存在しないタスクのログがあります: " + code);
+            }
+        }
+
+        Set<String> fromLogic = taskLogic.findAll().stream().map(LoadGenerator::describe).collect(Collectors.toSet());
+        Set<String> fromFile = tasks.stream().map(LoadGenerator::describe).collect(Collectors.toCollection(HashSet::new));
+        if (!fromLogic.equals(fromFile)) {
+            violations.add("TaskLogicの一覧がファイルの内容と一致しません(TaskLogic: " + fromLogic.size() + "件, ファイル: "
+                    + fromFile.size() + "件)");
+        }
+        return violations;
+    }
+
+    private static String describe(Task task) {
+        return task.getCode() + ":" + task.getStatus() + ":" + task.getVersion();
+    }
+
+    /**
+     * 登録したタスクについて、成功した操作を記録します。
+     */
+    private static final class TaskState {
+        private final AtomicInteger changes = new AtomicInteger();
+        private volatile boolean deleted;
+    }
+
+    /**
+     * 1つのセッション(1人のユーザー)の操作です。
+     * 記録はセッションのスレッドだけで行い、全てのセッションが終わってから集計する
+     */
+    private final class Session {
+        private final int userCode;
+        private final UserLogic userLogic;
+        private final TaskLogic taskLogic;
+        private final SplittableRandom random;
+        private final Operation[] choices;
+        private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        private User loginUser;
+        private int created;
+
+        Session(int userCode, UserLogic userLogic, TaskLogic taskLogic, SplittableRandom random) {
+            this.userCode = userCode;
+            this.userLogic = userLogic;
+            this.taskLogic = taskLogic;
+            this.random = random;
+            List<Operation> weighted = new ArrayList<>();
+            mix.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    weighted.add(operation);
+                }
+            });
+            this.choices = weighted.toArray(Operation[]::new);
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new OperationStats());
+            }
+        }
+
+        void run(long durationMillis, long operationsPerSession) {
+            long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+            for (long n = 0; operationsPerSession > 0 ? n < operationsPerSession : System.nanoTime() < deadline; n++) {
+                Operation operation = loginUser == null ? Operation.LOGIN : choices[random.nextInt(choices.length)];
+                OperationStats stat = stats.get(operation);
+                long startNanos = System.nanoTime();
+                try {
+                    execute(operation);
+                    stat.ok++;
+                } catch (AppException e) {
+                    stat.rejected++;
+                } catch (RuntimeException e) {
+                    stat.errors++;
+                    if (errorMessages.size() < MAX_ERROR_MESSAGES) errorMessages.add(operation + ": " + e);
+                }
+                stat.latency.record(System.nanoTime() - startNanos);
+            }
+        }
+
+        private void execute(Operation operation) throws AppException {
+            switch (operation) {
+                case LOGIN -> {
+                    loginUser = userLogic.authenticate(email(userCode), "password");
+                    if (loginUser == null) throw new IllegalStateException("ログインできません: " + email(userCode));
+                }
+                case LIST -> taskLogic.findAll();
+                case CREATE -> {
+                    int repUserCode = 1 + random.nextInt(sessions);
+                    int code = taskLogic.save("load-" + userCode + "-" + (++created), repUserCode, loginUser);
+                    states.put(code, new TaskState());
+                    recent.set((int) (recentCount.getAndIncrement() & (RECENT_SIZE - 1)), code);
+                }
+                case CHANGE -> {
+                    int code = pickRecent();
+                    Task task = taskLogic.findByCode(code);
+                    if (task == null || task.getStatus() == 2) {
+                        throw new AppException("変更できるタスクではありません: " + code);
+                    }
+                    taskLogic.changeStatus(code, task.getStatus() + 1, loginUser);
+                    states.get(code).changes.incrementAndGet();
+                }
+                case DELETE -> {
+                    int code = pickRecent();
+                    taskLogic.delete(code);
+                    states.get(code).deleted = true;
+                }
+            }
+        }
+
+        /**
+         * 全てのセッションが最近登録したタスクから1つ選びます。
+         * まだ登録されていない場合はAppExceptionを投げる
+         */
+        private int pickRecent() throws AppException {
+            long count = Math.min(recentCount.get(), RECENT_SIZE);
+            int code = count == 0 ? 0 : recent.get(random.nextInt((int) count));
+            if (code == 0) throw new AppException("操作できるタスクがありません");
+            return code;
+        }
+    }
+
+    /**
+     * 1種類の操作の結果です。
+     */
+    public static final class OperationStats {
+        private long ok;
+        private long rejected;
+        private long errors;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void add(OperationStats other) {
+            ok += other.ok;
+            rejected += other.rejected;
+            errors += other.errors;
+            latency.add(other.latency);
+        }
+
+        /** 成功した操作の数 */
+        public long ok() {
+            return ok;
+        }
+
+        /** 業務上の理由(ステータスの順番、競合した更新など)で拒否された操作の数 */
+        public long rejected() {
+            return rejected;
+        }
+
+        /** 予期しない例外が発生した操作の数 */
+        public long errors() {
+            return errors;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+    }
+
+    /**
+     * 負荷テストの結果です。
+     * @param sessions セッションの数
+     * @param elapsedNanos 全てのセッションが終わるまでの時間(ナノ秒)
+     * @param stats 操作ごとの結果
+     * @param violations データの不整合(なければ空)
+     * @param errorMessages 予期しない例外のメッセージ(最大10件)
+     */
+    public record Result(int sessions, long elapsedNanos, Map<Operation, OperationStats> stats,
+            List<String> violations, List<String> errorMessages) {
+
+        public long totalOperations() {
+            return stats.values().stream().mapToLong(s -> s.ok() + s.rejected() + s.errors()).sum();
+        }
+
+        public long totalErrors() {
+            return stats.values().stream().mapToLong(OperationStats::errors).sum();
+        }
+
+        /**
+         * 1秒あたりの操作の数を返します。
+         */
+        public double throughput() {
+            return elapsedNanos == 0 ? 0 : totalOperations() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * 全ての操作の処理時間をまとめたヒストグラムを返します。
+         */
+        public LatencyHistogram overallLatency() {
+            LatencyHistogram overall = new LatencyHistogram();
+            stats.values().forEach(s -> overall.add(s.latency()));
+            return overall;
+        }
+
+        /**
+         * 結果を表形式で出力します。処理時間はミリ秒で表示する
+         * @param out 出力先
+         */
+        public void print(PrintStream out) {
+            out.printf("セッション: %d, 操作: %d件, 時間: %.1f秒, スループット: %.1f件/秒%n", sessions, totalOperations(),
+                    elapsedNanos / 1e9, throughput());
+            out.printf("%-8s %9s %9s %7s %9s %9s %9s %9s%n", "操作", "成功", "拒否", "エラー", "p50", "p99", "p999", "最大");
+            stats.forEach((operation, s) -> printRow(out, operation.name().toLowerCase(Locale.ROOT), s.ok(),
+                    s.rejected(), s.errors(), s.latency()));
+            printRow(out, "all", stats.values().stream().mapToLong(OperationStats::ok).sum(),
+                    stats.values().stream().mapToLong(OperationStats::rejected).sum(), totalErrors(), overallLatency());
+            errorMessages.forEach(message -> out.println("エラー: " + message));
+            if (violations.isEmpty()) {
+                out.println("データの検査: 問題はありません");
+            } else {
+                out.println("データの検査: " + violations.size() + "件の不整合があります");
+                violations.forEach(v -> out.println("  " + v));
+            }
+        }
+
+        private static void printRow(PrintStream out, String name, long ok, long rejected, long errors,
+                LatencyHistogram latency) {
+            out.printf("%-8s %9d %9d %7d %9.3f %9.3f %9.3f %9.3f%n", name, ok, rejected, errors,
+                    latency.percentile(0.50) / 1e6, latency.percentile(0.99) / 1e6, latency.percentile(0.999) / 1e6,
+                    latency.max() / 1e6);
+        }
+    }
+
+    /**
+     * 負荷テストを実行し、結果を出力します。
+     * 入出力の設定はアプリケーションと同じく、設定ファイル(既定はtaskapp.properties)と環境変数から読み込む
+     * データに不整合があった場合、または予期しない例外が発生した場合は、終了コード1で終了する
+     * @param args コマンドライン引数
+     */
+    public static void main(String[] args) {
+        int sessions = 8;
+        long durationMillis = 10_000;
+        long operations = 0;
+        String mixText = DEFAULT_MIX;
+        long seed = System.nanoTime();
+        Path parent = null;
+        String configPath = System.getenv().getOrDefault("TASKAPP_CONFIG", "taskapp.properties");
+        Map<Operation, Integer> mix;
+        AppConfig config;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--sessions") && i + 1 < args.length) {
+                    sessions = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--duration") && i + 1 < args.length) {
+                    durationMillis = Long.parseLong(args[++i]) * 1000;
+                } else if (args[i].equals("--operations") && i + 1 < args.length) {
+                    operations = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--mix") && i + 1 < args.length) {
+                    mixText = args[++i];
+                } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--dir") && i + 1 < args.length) {
+                    parent = Paths.get(args[++i]);
+                } else if (args[i].equals("--config") && i + 1 < args.length) {
+                    configPath = args[++i];
+                }
+            }
+            if (sessions < 1) throw new AppException("--sessionsは1以上で指定してください");
+            mix = parseMix(mixText);
+            config = AppConfig.load(Paths.get(configPath), System.getenv());
+        } catch (NumberFormatException e) {
+            System.out.println("数値は半角の数字で指定してください: " + e.getMessage());
+            return;
+        } catch (AppException e) {
+            System.out.println(e.getMessage());
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        PrintStream out = System.out;
+        Result result;
+        try {
+            Path directory = parent == null ? Files.createTempDirectory("taskapp-load")
+                    : Files.createTempDirectory(Files.createDirectories(parent), "taskapp-load");
+            out.println("データディレクトリ: " + directory + " (seed=" + seed + ")");
+            // TaskLogicの削除完了のメッセージなど、操作ごとの出力は捨てる
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                result = new LoadGenerator(directory, config, sessions, mix, seed)
+                        .run(operations > 0 ? 0 : durationMillis, operations);
+            } finally {
+                System.setOut(out);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        result.print(out);
+        if (!result.violations().isEmpty() || result.totalErrors() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.taskapp.logic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+
+/**
+ * プロジェクトごとに分けたデータ(シャード)を選びます。
+ * 各プロジェクトは「ルートのディレクトリ/プロジェクト名」にtasks.csvとlogs.csvを持ち、
+ * DataAccess・キャッシュ・ロック・TaskLogicをプロジェクトごとに別々に持ちます。
+ * そのため、異なるプロジェクトへの操作はお互いを待たずに並行して処理できます。
+ * ユーザーは全てのプロジェクトで共通のusers.csvを使いますが、キャッシュはプロジェクトごとに持ちます。
+ */
+public class ShardRouter {
+    private static final Pattern PROJECT_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path root;
+
+    private final String usersFilePath;
+
+    private final AppConfig config;
+
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+
+    /**
+     * @param root プロジェクトのディレクトリを置くディレクトリ
+     * @param usersFilePath 全てのプロジェクトで共通のusers.csvのパス
+     */
+    public ShardRouter(Path root, String usersFilePath) {
+        this(root, usersFilePath, AppConfig.defaults());
+    }
+
+    /**
+     * 設定に従ってShardRouterを生成します。
+     * users.csvは設定のデータのディレクトリのものを使い、各プロジェクトのファイルも設定の入出力・キャッシュの設定で使う
+     * @param root プロジェクトのディレクトリを置くディレクトリ
+     * @param config アプリケーションの設定
+     */
+    public ShardRouter(Path root, AppConfig config) {
+        this(root, config.getUsersFile(), config);
+    }
+
+    private ShardRouter(Path root, String usersFilePath, AppConfig config) {
+        this.root = root;
+        this.usersFilePath = usersFilePath;
+        this.config = config;
+    }
+
+    /**
+     * プロジェクトのシャードを返します。
+     * 初めて使うプロジェクトの場合は、ディレクトリと空のtasks.csv・logs.csvを作成する
+     * 同じプロジェクトには常に同じシャードを返す
+     *
+     * @param project プロジェクト名(半角英数字・「-」・「_」の64文字以内)
+     * @return プロジェクトのシャード
+     * @throws AppException プロジェクト名が正しくない、またはディレクトリを作成できない場合にスローされます
+     */
+    public Shard shard(String project) throws AppException {
+        if (project == null || !PROJECT_NAME.matcher(project).matches()) {
+            throw new AppException("プロジェクト名は半角英数字・「-」・「_」の64文字以内で入力してください");
+        }
+        Shard shard = shards.get(project);
+        if (shard != null) return shard;
+        synchronized (shards) {
+            shard = shards.get(project);
+            if (shard == null) {
+                try {
+                    shard = open(project);
+                } catch (IOException e) {
+                    throw new AppException("プロジェクトのデータを作成できませんでした: " + e.getMessage());
+                }
+                shards.put(project, shard);
+            }
+            return shard;
+        }
+    }
+
+    /**
+     * データのディレクトリがあるプロジェクトの名前を返します。
+     * @return プロジェクト名のリスト(名前の昇順)
+     */
+    public List<String> projects() {
+        if (!Files.isDirectory(root)) return List.of();
+        try (Stream<Path> files = Files.list(root)) {
+            return files.filter(Files::isDirectory)
+                    .map(p -> p.getFileName().toString())
+                    .filter(name -> PROJECT_NAME.matcher(name).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private Shard open(String project) throws IOException {
+        Path directory = root.resolve(project);
+        Files.createDirectories(directory);
+        Path tasksPath = createIfAbsent(directory.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code");
+        Path logsPath = createIfAbsent(directory.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date");
+
+        UserDataAccess userDataAccess = new UserDataAccess(usersFilePath, config);
+        TaskDataAccess taskDataAccess = new TaskDataAccess(tasksPath.toString(), userDataAccess, config);
+        LogDataAccess logDataAccess = new LogDataAccess(logsPath.toString(), config);
+        return new Shard(project, directory, userDataAccess, taskDataAccess, logDataAccess,
+                new UserLogic(userDataAccess), new TaskLogic(taskDataAccess, logDataAccess, userDataAccess));
+    }
+
+    private static Path createIfAbsent(Path path, String header) throws IOException {
+        if (!Files.exists(path)) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temp, header);
+            Files.move(temp, path);
+        }
+        return path;
+    }
+
+    /**
+     * 1つのプロジェクトのデータと、それを操作するロジックの組です。
+     */
+    public record Shard(String project, Path directory, UserDataAccess userDataAccess,
+            TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserLogic userLogic, TaskLogic taskLogic) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.taskapp.logic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 新しいタスクコードを採番します。
+ * 全体の採番位置はAtomicIntegerで管理し、ロックを使わずにブロック単位で予約します。
+ * 各セッションは予約したブロックの中から順番にコードを払い出すため、セッション同士で競合しません。
+ * 予約したまま使われなかったコードは欠番になります。
+ */
+public class TaskCodeAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private final TaskCodeIndex codeIndex;
+    private final int blockSize;
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    /**
+     * @param codeIndex 登録済みのタスクコードの索引
+     * @param blockSize 1回に予約するコードの数
+     */
+    public TaskCodeAllocator(TaskCodeIndex codeIndex, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.codeIndex = codeIndex;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 新しいセッションを開始します。
+     * @return セッション
+     */
+    public Session openSession() {
+        return new Session();
+    }
+
+    /**
+     * コードのブロックを予約します。
+     * 最初の予約のときに、登録済みのタスクコードの最大値の次から採番を始める
+     * @return 予約したブロックの先頭のコード
+     */
+    private int reserveBlock() {
+        if (next.get() == 0) {
+            next.compareAndSet(0, codeIndex.maxCode() + 1);
+        }
+        return next.getAndAdd(blockSize);
+    }
+
+    /**
+     * 予約したブロックからコードを払い出すセッションです。
+     * 1つのセッションを複数のスレッドで使う場合は、セッションごとに同期します。
+     */
+    public class Session {
+        private int nextCode;
+        private int end;
+
+        private Session() {
+        }
+
+        /**
+         * 次のタスクコードを払い出します。
+         * ブロックを使い切った場合は新しいブロックを予約する
+         * 手入力などで既に登録されているコードは読み飛ばす
+         * @return 払い出したタスクコード
+         */
+        public synchronized int nextCode() {
+            while (true) {
+                if (nextCode == end) {
+                    nextCode = reserveBlock();
+                    end = nextCode + blockSize;
+                }
+                int code = nextCode++;
+                if (!codeIndex.contains(code)) {
+                    return code;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.taskapp.logic;
+
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.model.Task;
+import com.taskapp.util.IntHashSet;
+
+/**
+ * 登録済みのタスクコードをメモリ上に保持する索引です。
+ * 最初に使われたときに1回だけタスクを読み込み、以降はTaskLogicの保存・削除に合わせて更新します。
+ * タスクコードの重複確認と、次に使えるコードの取得をファイルを読まずに行えます。
+ */
+public class TaskCodeIndex {
+    private final TaskRepository taskDataAccess;
+    private IntHashSet codes;
+    private int maxCode;
+
+    public TaskCodeIndex(TaskRepository taskDataAccess) {
+        this.taskDataAccess = taskDataAccess;
+    }
+
+    /**
+     * タスクコードが登録済みかを判定します。
+     * @param code タスクコード
+     * @return 登録済みであればtrue
+     */
+    public synchronized boolean contains(int code) {
+        return loaded().contains(code);
+    }
+
+    /**
+     * タスクコードを索引に追加します。
+     * 確認と追加を1回のロックで行うため、同じコードを同時に追加しようとした場合は一方だけが成功する
+     * @param code タスクコード
+     * @return 追加した場合はtrue、既に登録済みの場合はfalse
+     */
+    public synchronized boolean add(int code) {
+        if (!loaded().add(code)) return false;
+        maxCode = Math.max(maxCode, code);
+        return true;
+    }
+
+    /**
+     * 削除したタスクコードを索引から取り除きます。
+     * @param code タスクコード
+     */
+    public synchronized void remove(int code) {
+        loaded().remove(code);
+    }
+
+    /**
+     * 登録済みのタスクコードの最大値を返します。
+     * 削除によって最大値が小さくなることはない
+     * @return タスクコードの最大値。タスクがない場合は0
+     */
+    public synchronized int maxCode() {
+        loaded();
+        return maxCode;
+    }
+
+    /**
+     * 次に使えるタスクコードを返します。
+     * これまでに登録されたタスクコードの最大値の次の値を返すため、削除されたコードは再利用しない
+     * @return 次に使えるタスクコード
+     */
+    public synchronized int nextFreeCode() {
+        return maxCode() + 1;
+    }
+
+    /**
+     * 登録済みのタスクコードの数を返します。
+     * @return タスクコードの数
+     */
+    public synchronized int size() {
+        return loaded().size();
+    }
+
+    /**
+     * 索引を破棄します。
+     * TaskLogicを通さずにタスクを登録・削除した場合に呼び出し、次に使われたときに読み込み直す
+     * 読み込み直しても最大値は小さくならない
+     */
+    public synchronized void invalidate() {
+        codes = null;
+    }
+
+    /**
+     * 索引を返します。まだ読み込んでいなければ、全てのタスクを読み込んで作成する
+     */
+    private IntHashSet loaded() {
+        if (codes == null) {
+            IntHashSet loadedCodes = new IntHashSet();
+            int max = 0;
+            for (Task task : taskDataAccess.findAll()) {
+                loadedCodes.add(task.getCode());
+                max = Math.max(max, task.getCode());
+            }
+            codes = loadedCodes;
+            maxCode = Math.max(maxCode, max);
+        }
+        return codes;
+    }
+}
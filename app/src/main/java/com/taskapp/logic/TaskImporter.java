@@ -0,0 +1,192 @@
+package com.taskapp.logic;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.event.TaskEvent;
+import com.taskapp.event.TaskEventBus;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+import com.taskapp.util.IntHashSet;
+
+/**
+ * CSVファイルからタスクをまとめて登録します。
+ * 入力は「Code,Name,Rep_User_Code」の形式で、1行目はヘッダーとして読み飛ばします。
+ * 登録できなかった行は、理由と一緒に別のファイルに書き出します。
+ */
+public class TaskImporter {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final TaskRepository taskDataAccess;
+    private final LogRepository logDataAccess;
+    private final UserRepository userDataAccess;
+    private final TaskEventBus eventBus;
+
+    public TaskImporter(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess,
+            TaskEventBus eventBus) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * 入力ファイルのタスクを登録します。
+     * 実装の流れ
+     * ユーザーと既存のタスクコードを1回だけ読み込み、メモリ上の索引を作る
+     * 入力をBATCH_SIZE行ずつ読み込み、各行の検証を並列に行う
+     * 検証を通った行は、ファイル内の順番どおりにタスクコードの重複を確認する
+     * 登録するタスクと初期状態のログを、それぞれsaveAllでまとめて書き込む
+     * 登録できなかった行はrejectPathに書き出す
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#saveAll(List)
+     * @see com.taskapp.dataaccess.LogRepository#saveAll(List)
+     * @param input 入力ファイル
+     * @param rejectPath 登録できなかった行の書き出し先
+     * @param loginUser ログインユーザー
+     * @return 登録の結果
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public Result importTasks(Path input, Path rejectPath, User loginUser) throws IOException {
+        long start = System.nanoTime();
+        Map<Integer, User> users = new HashMap<>();
+        userDataAccess.findAll().forEach(u -> users.put(u.getCode(), u));
+        IntHashSet taskCodes = new IntHashSet();
+        taskDataAccess.findAll().forEach(t -> taskCodes.add(t.getCode()));
+
+        int imported = 0;
+        int rejected = 0;
+        LocalDate changeDate = LocalDate.now();
+        try (BufferedReader reader = Files.newBufferedReader(input);
+                BufferedWriter rejects = Files.newBufferedWriter(rejectPath)) {
+            rejects.write("Line,Reason,Input");
+            reader.readLine();
+            int lineNumber = 1;
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while (true) {
+                line = reader.readLine();
+                if (line != null) batch.add(line);
+                if (batch.size() < BATCH_SIZE && line != null) continue;
+                if (batch.isEmpty()) break;
+
+                Row[] rows = validate(batch, lineNumber + 1, users);
+                lineNumber += batch.size();
+                batch.clear();
+
+                List<Task> tasks = new ArrayList<>();
+                List<Log> logs = new ArrayList<>();
+                for (Row row : rows) {
+                    String reason = row.reason();
+                    if (reason == null && !taskCodes.add(row.task().getCode())) {
+                        reason = "タスクコードが重複しています";
+                    }
+                    if (reason != null) {
+                        rejects.newLine();
+                        rejects.write(row.lineNumber() + "," + reason + "," + row.line());
+                        rejected++;
+                        continue;
+                    }
+                    tasks.add(row.task());
+                    logs.add(new Log(row.task().getCode(), loginUser.getCode(), 0, changeDate));
+                }
+                taskDataAccess.saveAll(tasks);
+                logDataAccess.saveAll(logs);
+                for (Task task : tasks) {
+                    eventBus.publish(new TaskEvent.TaskCreated(task.getCode(), task.getName(),
+                            task.getRepUser().getCode(), loginUser.getCode(), changeDate));
+                }
+                imported += tasks.size();
+                if (line == null) break;
+            }
+        }
+        return new Result(imported, rejected, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 行ごとの検証を並列に行います。
+     * 結果は入力と同じ順番で返す
+     * @param lines 検証する行
+     * @param firstLineNumber 最初の行の行番号
+     * @param users ユーザーコードの索引
+     * @return 検証結果
+     */
+    private Row[] validate(List<String> lines, int firstLineNumber, Map<Integer, User> users) {
+        Row[] rows = new Row[lines.size()];
+        IntStream.range(0, rows.length).parallel()
+                .forEach(i -> rows[i] = validateLine(lines.get(i), firstLineNumber + i, users));
+        return rows;
+    }
+
+    /**
+     * 1行を検証し、タスクを生成します。
+     * TaskUI.inputNewInformationと同じく、コードは半角数字、タスク名は10文字以内とする
+     * @param line 入力の1行
+     * @param lineNumber 行番号
+     * @param users ユーザーコードの索引
+     * @return 検証結果
+     */
+    private Row validateLine(String line, int lineNumber, Map<Integer, User> users) {
+        String[] v = line.split(",", -1);
+        if (v.length != 3) {
+            return new Row(lineNumber, line, null, "列の数が正しくありません");
+        }
+        Integer code = parseCode(v[0]);
+        if (code == null) {
+            return new Row(lineNumber, line, null, "コードは半角の数字で入力してください");
+        }
+        if (v[1].isEmpty() || v[1].length() > 10) {
+            return new Row(lineNumber, line, null, "タスク名は10文字以内で入力してください");
+        }
+        Integer repUserCode = parseCode(v[2]);
+        if (repUserCode == null) {
+            return new Row(lineNumber, line, null, "ユーザーのコードは半角の数字で入力してください");
+        }
+        User repUser = users.get(repUserCode);
+        if (repUser == null) {
+            return new Row(lineNumber, line, null, "存在するユーザーコードを入力してください");
+        }
+        return new Row(lineNumber, line, new Task(code, v[1], 0, repUser), null);
+    }
+
+    /**
+     * 半角数字のみからなる文字列をintに変換します。
+     * 空文字、数字以外を含む場合、intの範囲を超える場合はnullを返す
+     */
+    private Integer parseCode(String value) {
+        if (value.isEmpty() || !value.chars().allMatch(c -> c >= '0' && c <= '9')) return null;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 1行の検証結果です。登録できる場合はtask、できない場合はreasonが設定されます。
+     */
+    private record Row(int lineNumber, String line, Task task, String reason) {
+    }
+
+    /**
+     * 登録の結果です。
+     * @param imported 登録した件数
+     * @param rejected 登録できなかった件数
+     * @param elapsedMillis 登録にかかった時間(ミリ秒)
+     */
+    public record Result(int imported, int rejected, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.taskapp.logic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクの一覧を、指定した形式の文字列に変換して書き込みます。
+ *
+ * ステータスの表示と行末は形式ごとに事前に作成し、担当者の表示は1回の書き込みの中で担当者ごとに1回だけ作成します。
+ * 行は再利用する1つのStringBuilderに追加していき、一定の長さになったらまとめてWriterに書き込むため、
+ * 行ごとに文字列を作成しません。文字コードへの変換は、Writer(OutputStreamWriter)がまとめて行います。
+ * 1つのインスタンスを繰り返し使えますが、スレッドセーフではありません。
+ */
+public final class TaskListRenderer {
+    private static final String[] STATUS_LABELS = { "未着手", "着手中", "完了" };
+
+    // この文字数を超えたら、まとめてWriterに書き込む
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * 一覧の形式です。
+     */
+    public enum Format {
+        /** 画面に表示する形式(showAllの表示) */
+        PLAIN,
+        /** タブ区切り。1行目は列名 */
+        TSV,
+        /** 1行に1つのJSONオブジェクト */
+        JSONL;
+
+        /**
+         * 名前から形式を取得します。大文字と小文字は区別しない
+         * @param name 形式の名前(plain・tsv・jsonl)
+         * @return 形式
+         * @throws AppException 該当する形式がない場合にスローされます
+         */
+        public static Format parse(String name) throws AppException {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new AppException("一覧の形式はplain・tsv・jsonlのいずれかを指定してください: " + name);
+            }
+        }
+    }
+
+    private final Format format;
+
+    private final String loginUserName;
+
+    private final String lineSeparator;
+
+    // ステータスごとの行末(ステータスの表示から改行まで)
+    private final String[] statusSuffixes = new String[STATUS_LABELS.length];
+
+    // 1回の書き込みの中で作成した担当者の表示
+    private final Map<User, String> repUserParts = new IdentityHashMap<>();
+
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE + 256);
+
+    private char[] chunk = new char[CHUNK_SIZE + 256];
+
+    /**
+     * @param format 一覧の形式
+     * @param loginUser ログインユーザー(PLAINで、自分が担当しているタスクの表示に使う)
+     */
+    public TaskListRenderer(Format format, User loginUser) {
+        this(format, loginUser, System.lineSeparator());
+    }
+
+    /**
+     * @param format 一覧の形式
+     * @param loginUser ログインユーザー(PLAINで、自分が担当しているタスクの表示に使う)
+     * @param lineSeparator 行末の文字列
+     */
+    public TaskListRenderer(Format format, User loginUser, String lineSeparator) {
+        this.format = format;
+        this.loginUserName = loginUser == null ? null : loginUser.getName();
+        this.lineSeparator = lineSeparator;
+        for (int status = 0; status < STATUS_LABELS.length; status++) {
+            statusSuffixes[status] = switch (format) {
+                case PLAIN -> ", ステータス：" + STATUS_LABELS[status] + lineSeparator;
+                case TSV -> "\t" + status + "\t" + STATUS_LABELS[status];
+                case JSONL -> ",\"status\":" + status + ",\"statusLabel\":\"" + STATUS_LABELS[status] + "\"";
+            };
+        }
+    }
+
+    /**
+     * タスクの一覧を書き込みます。
+     * 書き込み後にWriterをflushするが、closeはしない
+     * @param tasks タスクの一覧
+     * @param out 書き込み先
+     * @throws IOException 書き込みに失敗した場合にスローされます
+     */
+    public void render(List<Task> tasks, Writer out) throws IOException {
+        repUserParts.clear();
+        buffer.setLength(0);
+        if (format == Format.TSV) {
+            buffer.append("code\tname\tstatus\tstatus_label\trep_user_code\trep_user_name").append(lineSeparator);
+        }
+        for (Task task : tasks) {
+            switch (format) {
+                case PLAIN -> appendPlain(task);
+                case TSV -> appendTsv(task);
+                case JSONL -> appendJson(task);
+            }
+            if (buffer.length() >= CHUNK_SIZE) {
+                drain(out);
+            }
+        }
+        drain(out);
+        out.flush();
+        repUserParts.clear();
+    }
+
+    /**
+     * 画面に表示する形式の1行を追加します。
+     * 担当者の名前がログインユーザーの名前と同じ場合は「あなたが担当しています」と表示する
+     * 0・1・2以外のステータスは、未着手として表示する
+     */
+    private void appendPlain(Task task) {
+        User repUser = task.getRepUser();
+        String repUserPart = repUserParts.get(repUser);
+        if (repUserPart == null) {
+            String repUserName = repUser == null ? null : repUser.getName();
+            repUserPart = Objects.equals(repUserName, loginUserName) ? ", 担当者名：あなたが担当しています"
+                    : ", 担当者名：" + repUserName + "が担当しています";
+            repUserParts.put(repUser, repUserPart);
+        }
+        buffer.append(task.getCode()).append(". タスク名：").append(task.getName())
+                .append(repUserPart)
+                .append(statusSuffixes[statusIndex(task.getStatus())]);
+    }
+
+    /**
+     * タブ区切りの1行を追加します。
+     * タスク名と担当者名のタブ・改行・バックスラッシュは、「\t」「\n」「\r」「\\」に置き換える
+     */
+    private void appendTsv(Task task) {
+        User repUser = task.getRepUser();
+        buffer.append(task.getCode()).append('\t');
+        appendEscaped(task.getName(), false);
+        if (task.getStatus() == statusIndex(task.getStatus())) {
+            buffer.append(statusSuffixes[task.getStatus()]);
+        } else {
+            buffer.append('\t').append(task.getStatus()).append('\t').append(STATUS_LABELS[0]);
+        }
+        buffer.append('\t');
+        if (repUser != null) {
+            buffer.append(repUser.getCode()).append('\t');
+            appendEscaped(repUser.getName(), false);
+        } else {
+            buffer.append('\t');
+        }
+        buffer.append(lineSeparator);
+    }
+
+    /**
+     * JSONオブジェクトの1行を追加します。
+     * 項目はAPIのタスクと同じ名前にし、ステータスの表示をstatusLabelとして加える
+     */
+    private void appendJson(Task task) {
+        User repUser = task.getRepUser();
+        buffer.append("{\"code\":").append(task.getCode()).append(",\"name\":");
+        appendEscaped(task.getName(), true);
+        if (task.getStatus() == statusIndex(task.getStatus())) {
+            buffer.append(statusSuffixes[task.getStatus()]);
+        } else {
+            buffer.append(",\"status\":").append(task.getStatus()).append(",\"statusLabel\":\"")
+                    .append(STATUS_LABELS[0]).append('"');
+        }
+        buffer.append(",\"repUserCode\":");
+        if (repUser == null) {
+            buffer.append("null");
+        } else {
+            buffer.append(repUser.getCode());
+        }
+        buffer.append(",\"repUserName\":");
+        appendEscaped(repUser == null ? null : repUser.getName(), true);
+        buffer.append('}').append(lineSeparator);
+    }
+
+    private static int statusIndex(int status) {
+        return status == 1 || status == 2 ? status : 0;
+    }
+
+    /**
+     * 文字列を、TSVまたはJSONの文字列リテラルとして追加します。
+     * JSONではnullをnullリテラルに、TSVでは空文字にする
+     */
+    private void appendEscaped(String value, boolean json) {
+        if (value == null) {
+            if (json) buffer.append("null");
+            return;
+        }
+        if (json) buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append(json ? "\\\"" : "\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (json && c < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+                }
+            }
+        }
+        if (json) buffer.append('"');
+    }
+
+    /**
+     * 追加した行をWriterに書き込み、StringBuilderを空にします。
+     * 文字列を作成しないよう、再利用する配列に写してから書き込む
+     */
+    private void drain(Writer out) throws IOException {
+        int length = buffer.length();
+        if (length == 0) return;
+        if (chunk.length < length) {
+            chunk = new char[length];
+        }
+        buffer.getChars(0, length, chunk, 0);
+        out.write(chunk, 0, length);
+        buffer.setLength(0);
+    }
+}
@@ -1,26 +1,60 @@
 package com.taskapp.logic;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.taskapp.config.AppConfig;
 import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.event.TaskEvent;
+import com.taskapp.event.TaskEventBus;
 import com.taskapp.exception.AppException;
+import com.taskapp.exception.StaleTaskException;
 import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
 import com.taskapp.model.Task;
+import com.taskapp.model.TaskRow;
 import com.taskapp.model.User;
 
 public class TaskLogic {
-    private final TaskDataAccess taskDataAccess;
-    private final LogDataAccess logDataAccess;
-    private final UserDataAccess userDataAccess;
+    // ステータスの変更が他の更新と競合した場合に、読み込みからやり直す回数の上限
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    private final TaskRepository taskDataAccess;
+    private final LogRepository logDataAccess;
+    private final UserRepository userDataAccess;
+    private final TaskEventBus eventBus;
+    private final TaskCodeIndex codeIndex;
+    private final TaskNameIndex nameIndex;
+    private final TaskCodeAllocator codeAllocator;
+    private final Map<Integer, TaskCodeAllocator.Session> allocatorSessions = new ConcurrentHashMap<>();
+    private final AtomicLong dataVersion = new AtomicLong();
+    // 登録・変更・削除とイベントの発行をまとめて1件ずつ行い、イベントの順番をデータの変更の順番と一致させる
+    // (異なるタスクへの変更でも書き込みは直列になる。ロックの外で並行できるのは読み込みと検証だけ)
+    private final Object mutationLock = new Object();
 
 
     public TaskLogic() {
         taskDataAccess = new TaskDataAccess();
         logDataAccess = new LogDataAccess();
         userDataAccess = new UserDataAccess();
+        eventBus = new TaskEventBus();
+        codeIndex = new TaskCodeIndex(taskDataAccess);
+        nameIndex = new TaskNameIndex(taskDataAccess);
+        codeAllocator = new TaskCodeAllocator(codeIndex, TaskCodeAllocator.DEFAULT_BLOCK_SIZE);
     }
 
     /**
@@ -33,6 +67,150 @@ public class TaskLogic {
         this.taskDataAccess = taskDataAccess;
         this.logDataAccess = logDataAccess;
         this.userDataAccess = userDataAccess;
+        this.eventBus = new TaskEventBus();
+        this.codeIndex = new TaskCodeIndex(taskDataAccess);
+        this.nameIndex = new TaskNameIndex(taskDataAccess);
+        this.codeAllocator = new TaskCodeAllocator(codeIndex, TaskCodeAllocator.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * 設定に従ってTaskLogicを生成します。
+     * 設定のデータのディレクトリにあるCSVファイルを、設定の入出力・キャッシュの設定で使う
+     * @param config アプリケーションの設定
+     */
+    public TaskLogic(AppConfig config) {
+        this(new UserDataAccess(config.getUsersFile(), config), config);
+    }
+
+    private TaskLogic(UserDataAccess userDataAccess, AppConfig config) {
+        this(new TaskDataAccess(config.getTasksFile(), userDataAccess, config),
+                new LogDataAccess(config.getLogsFile(), config), userDataAccess);
+    }
+
+    /**
+     * 保存先を指定してTaskLogicを生成します。
+     * CSV以外の保存先を使う場合に利用する
+     * @param taskDataAccess
+     * @param logDataAccess
+     * @param userDataAccess
+     */
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess) {
+        this(taskDataAccess, logDataAccess, userDataAccess, new TaskEventBus());
+    }
+
+    /**
+     * 保存先と変更イベントの発行先を指定してTaskLogicを生成します。
+     * @param taskDataAccess
+     * @param logDataAccess
+     * @param userDataAccess
+     * @param eventBus タスクの変更イベントを発行するイベントバス
+     */
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess,
+            TaskEventBus eventBus) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.eventBus = eventBus;
+        this.codeIndex = new TaskCodeIndex(taskDataAccess);
+        this.nameIndex = new TaskNameIndex(taskDataAccess);
+        this.codeAllocator = new TaskCodeAllocator(codeIndex, TaskCodeAllocator.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * タスクの変更イベントを発行するイベントバスを返します。
+     * 保存・ステータス変更・削除の結果を受け取りたい場合は、このイベントバスを購読する
+     * @return イベントバス
+     */
+    public TaskEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * タスクの登録・変更・削除と同時に実行されないように処理を実行します。
+     * 処理中はデータが変わらず、イベントも発行されないため、データの読み込みと
+     * イベントの購読開始の間に変更が漏れない
+     * @param action 実行する処理
+     */
+    public void runExclusively(Runnable action) {
+        synchronized (mutationLock) {
+            action.run();
+        }
+    }
+
+    /**
+     * 次に使えるタスクコードを返します。
+     *
+     * @see com.taskapp.logic.TaskCodeIndex#nextFreeCode()
+     * @return 次に使えるタスクコード
+     */
+    public int nextFreeCode() {
+        return codeIndex.nextFreeCode();
+    }
+
+    /**
+     * タスクのデータのバージョンを返します。
+     * このTaskLogicを通してタスクを登録・変更・削除するたびに1つ増える
+     * 値が変わっていなければ、前回取得したタスクの一覧をそのまま使える
+     * @return データのバージョン
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * タスクの保存先の現在の状態を返します。
+     * getDataVersionはこのTaskLogicを通した変更でしか変わらないため、
+     * 他のプロセスや別のDataAccessからの変更はこちらで判定する
+     * @see com.taskapp.dataaccess.TaskRepository#changeStamp()
+     * @return 保存先の状態
+     */
+    public String getStorageStamp() {
+        return taskDataAccess.changeStamp();
+    }
+
+    /**
+     * 全てのタスクを取得します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findAll()
+     * @return タスクのリスト
+     */
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+
+    /**
+     * コードを基にタスクを取得します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findByCode(int)
+     * @param code タスクコード
+     * @return 見つかったタスク。存在しない場合はnull
+     */
+    public Task findByCode(int code) {
+        return taskDataAccess.findByCode(code);
+    }
+
+    /**
+     * タスク名に文字列を含むタスクを探します。
+     *
+     * @see com.taskapp.logic.TaskNameIndex#search(String, int)
+     * @param query 検索する文字列
+     * @param limit 返す件数の上限
+     * @return 見つかったタスク(タスクコードの昇順)
+     */
+    public List<Task> searchByName(String query, int limit) {
+        return nameIndex.search(query, limit);
+    }
+
+    /**
+     * タスク名が文字列で始まるタスクを探します。
+     *
+     * @see com.taskapp.logic.TaskNameIndex#searchPrefix(String, int)
+     * @param prefix 検索する文字列
+     * @param limit 返す件数の上限
+     * @return 見つかったタスク(タスクコードの昇順)
+     */
+    public List<Task> searchByNamePrefix(String prefix, int limit) {
+        return nameIndex.searchPrefix(prefix, limit);
     }
 
     /**
@@ -41,30 +219,39 @@ public class TaskLogic {
      * そのあと、そのタスクを担当しているのかが自分なのかその他の人かによって出力内容を変更して出力する
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
+     * @see #showAll(User, TaskListRenderer.Format)
      * @param loginUser ログインユーザー
      */
     public void showAll(User loginUser) {
+        showAll(loginUser, TaskListRenderer.Format.PLAIN);
+    }
+
+    /**
+     * 全てのタスクを、指定した形式で標準出力に出力します。
+     * 一覧はTaskListRendererでまとめて文字列にし、標準出力と同じ文字コードで書き込む
+     *
+     * @see com.taskapp.logic.TaskListRenderer#render(List, Writer)
+     * @param loginUser ログインユーザー
+     * @param format 一覧の形式
+     */
+    public void showAll(User loginUser, TaskListRenderer.Format format) {
         List<Task> taskList = taskDataAccess.findAll();
-        taskList.forEach(t -> {
-            String status = "未着手";
-            if (t.getStatus() == 1) {
-                status = "着手中";
-            } else if (t.getStatus() == 2) {
-                status = "完了";
-            }
-            if (t.getRepUser().getName().equals(loginUser.getName())) {
-                System.out.println(t.getCode() + ". タスク名：" + t.getName() + ", 担当者名：あなたが担当しています, ステータス：" + status);
-            } else {
-                System.out.println(t.getCode() + ". タスク名：" + t.getName() + ", 担当者名：" + t.getRepUser().getName() + "が担当しています, ステータス：" + status);
-            }
-        });
+        // System.outは閉じないため、このWriterはflushだけ行う
+        Writer out = new OutputStreamWriter(System.out, System.out.charset());
+        try {
+            new TaskListRenderer(format, loginUser).render(taskList, out);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
     /**
      * 新しいタスクを保存します。
      * 入力してもらったユーザーコードが存在するか確認し、存在しない場合AppExceptionを投げる
+     * タスクコードをcodeIndexに登録し、既に使われていて登録できない場合AppExceptionを投げる
      * 存在している場合は、入力データをもとにTaskオブジェクトを生成し、taskDataAccessのsaveメソッドを呼び出す
      * また、同時にlogDataAccessのsaveメソッドも呼び出す
+     * 保存後、TaskCreatedイベントを発行する
      *
      * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#save(com.taskapp.model.Task)
@@ -73,18 +260,95 @@ public class TaskLogic {
      * @param name タスク名
      * @param repUserCode 担当ユーザーコード
      * @param loginUser ログインユーザー
-     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     * @throws AppException ユーザーコードが存在しない、またはタスクコードが既に使われている場合にスローされます
      */
     public void save(int code, String name, int repUserCode, User loginUser) throws AppException {
         User repUser = userDataAccess.findByCode(repUserCode);
         if (repUser == null) {
             throw new AppException("存在するユーザーコードを入力してください");
         }
-        Task newTask = new Task(code, name, 0, repUser);
-        taskDataAccess.save(newTask);
+        if (!codeIndex.add(code)) {
+            throw new AppException("既に使われているタスクコードです。別のタスクコードを入力してください");
+        }
+        saveNewTask(code, name, repUser, loginUser);
+    }
 
-        Log log = new Log(code, loginUser.getCode(), 0, LocalDate.now());
-        logDataAccess.save(log);
+    /**
+     * タスクコードを自動で採番して、新しいタスクを保存します。
+     * ログインユーザーごとのセッションで予約したブロックからタスクコードを払い出すため、
+     * 複数のセッションが同時に登録しても競合しない
+     *
+     * @see com.taskapp.logic.TaskCodeAllocator.Session#nextCode()
+     * @see #save(int, String, int, User)
+     * @param name タスク名
+     * @param repUserCode 担当ユーザーコード
+     * @param loginUser ログインユーザー
+     * @return 採番したタスクコード
+     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     */
+    public int save(String name, int repUserCode, User loginUser) throws AppException {
+        User repUser = userDataAccess.findByCode(repUserCode);
+        if (repUser == null) {
+            throw new AppException("存在するユーザーコードを入力してください");
+        }
+        TaskCodeAllocator.Session session = allocatorSessions.computeIfAbsent(loginUser.getCode(),
+                k -> codeAllocator.openSession());
+        int code;
+        do {
+            code = session.nextCode();
+        } while (!codeIndex.add(code));
+        saveNewTask(code, name, repUser, loginUser);
+        return code;
+    }
+
+    /**
+     * タスクと初期状態のログを保存し、TaskCreatedイベントを発行します。
+     * タスクコードは呼び出し前にcodeIndexへ登録しておく
+     * ログはタスクの保存が成功してから保存する(タスクのないログを残さない)
+     * タスクの保存に失敗した場合は、codeIndexからタスクコードを取り除いてから例外をそのまま投げる
+     */
+    private void saveNewTask(int code, String name, User repUser, User loginUser) {
+        synchronized (mutationLock) {
+            Task newTask = new Task(code, name, 0, repUser);
+            try {
+                taskDataAccess.save(newTask);
+            } catch (RuntimeException e) {
+                codeIndex.remove(code);
+                throw e;
+            }
+            nameIndex.put(newTask);
+
+            LocalDate changeDate = LocalDate.now();
+            Log log = new Log(code, loginUser.getCode(), 0, changeDate);
+            logDataAccess.save(log);
+            dataVersion.incrementAndGet();
+
+            eventBus.publish(new TaskEvent.TaskCreated(code, name, repUser.getCode(), loginUser.getCode(), changeDate));
+        }
+    }
+
+    /**
+     * CSVファイルのタスクをまとめて登録します。
+     * 登録後、タスクコードの索引を読み込み直す
+     *
+     * @see com.taskapp.logic.TaskImporter#importTasks(Path, Path, User)
+     * @param input 入力ファイル
+     * @param rejectPath 登録できなかった行の書き出し先
+     * @param loginUser ログインユーザー
+     * @return 登録の結果
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    public TaskImporter.Result importTasks(Path input, Path rejectPath, User loginUser) throws IOException {
+        synchronized (mutationLock) {
+            try {
+                return new TaskImporter(taskDataAccess, logDataAccess, userDataAccess, eventBus)
+                        .importTasks(input, rejectPath, loginUser);
+            } finally {
+                codeIndex.invalidate();
+                nameIndex.invalidate();
+                dataVersion.incrementAndGet();
+            }
+        }
     }
 
     /**
@@ -92,8 +356,13 @@ public class TaskLogic {
      * taskDataAccess.findByCodeで該当するタスクを取得する
      * 該当するタスクがなかったときはnullで返ってくれうので、AppExceptionでメッセージを投げる
      * 該当するタスクのStatusと、更新後のStatusに乖離があればAppExceptionでメッセージを投げる
-     * 問題がなければ、更新したStatusでタスクオブジェクトを生成してtaskDataAccessのupdateで処理をする
+     * 問題がなければ、更新したStatusと読み込んだ時点のバージョンでタスクオブジェクトを生成してtaskDataAccessのupdateで処理をする
      * また、Logオブジェクトも作製し、logDataAccessのsaveでlogを残す
+     * 更新後、StatusChangedイベントを発行する
+     * 読み込みと検証はロックの外で行い、他のセッションの変更と重なってupdateがStaleTaskExceptionを投げた場合は、
+     * 読み込みからやり直す(MAX_UPDATE_ATTEMPTS回まで)
+     * ただし、書き込み(update・ログの保存・イベントの発行)はmutationLockとTaskDataAccessのwriteLockで1件ずつ行うため、
+     * 異なるタスクのステータスの変更でも、書き込みは並行しない
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#update(com.taskapp.model.Task)
@@ -104,19 +373,50 @@ public class TaskLogic {
      * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でない場合にスローされます
      */
     public void changeStatus(int code, int status, User loginUser) throws AppException {
-        Task task = taskDataAccess.findByCode(code);
-        if (task == null) {
-            throw new AppException("存在するタスクコードを入力してください");
+        for (int attempt = 1;; attempt++) {
+            Task task = taskDataAccess.findByCode(code);
+            if (task == null) {
+                throw new AppException("存在するタスクコードを入力してください");
+            }
+            int taskStatus = task.getStatus();
+            if (taskStatus + 1 != status) {
+                throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+            }
+            Task chanegeTaskStatus = new Task(code, task.getName(), status, task.getRepUser(), task.getVersion());
+            try {
+                commitStatusChange(chanegeTaskStatus, taskStatus, loginUser);
+                return;
+            } catch (StaleTaskException e) {
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw new AppException("他のユーザーが同じタスクを更新しているため、ステータスを変更できませんでした。もう一度やり直してください");
+                }
+            }
         }
-        int taskStatus = task.getStatus();
-        if (taskStatus + 1 != status) {
-            throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+    }
+
+    /**
+     * 検証済みのステータスの変更を保存し、StatusChangedイベントを発行します。
+     * レプリケーションで変更の順番とイベントの順番を一致させるため、保存から発行までをmutationLockの中で行う
+     * @throws StaleTaskException 読み込んだ後にタスクが他の更新で変更または削除されていた場合にスローされます
+     */
+    private void commitStatusChange(Task chanegeTaskStatus, int taskStatus, User loginUser) {
+        synchronized (mutationLock) {
+            changeStatusLocked(chanegeTaskStatus, taskStatus, loginUser);
         }
-        Task chanegeTaskStatus = new Task(code, task.getName(), status, task.getRepUser());
+    }
+
+    private void changeStatusLocked(Task chanegeTaskStatus, int taskStatus, User loginUser) {
+        int code = chanegeTaskStatus.getCode();
+        int status = chanegeTaskStatus.getStatus();
         taskDataAccess.update(chanegeTaskStatus);
+        nameIndex.put(chanegeTaskStatus);
 
-        Log log = new Log(code, loginUser.getCode(), status, LocalDate.now());
+        LocalDate changeDate = LocalDate.now();
+        Log log = new Log(code, loginUser.getCode(), status, changeDate);
         logDataAccess.save(log);
+        dataVersion.incrementAndGet();
+
+        eventBus.publish(new TaskEvent.StatusChanged(code, taskStatus, status, loginUser.getCode(), changeDate));
     }
 
     /**
@@ -124,17 +424,24 @@ public class TaskLogic {
      * 受け取ったtaskCodeをもとに、findByCodeを用いて該当するタスクオブジェクトを取得する
      * タスクオブジェクトがnullのとき、タスクオブジェクトのstatusが完了でないとき、AppExceptionを投げる
      * 受け取ったtaskCodeをもとに、taskDataAccessのdelete、logDataAccessのdeleteを呼び出す
-     * 最後に、削除が完了したことを出力する
+     * 最後に、TaskDeletedイベントを発行し、削除したタスクを返す
+     * (APIからも呼び出されるため、削除が完了したことの出力は、返したタスクを使って呼び出し元のUIで行う)
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#delete(int)
      * @see com.taskapp.dataaccess.LogDataAccess#deleteByTaskCode(int)
      * @param code タスクコード
+     * @return 削除したタスク
      * @throws AppException タスクコードが存在しない、またはタスクのステータスが完了でない場合にスローされます
      */
-    public void delete(int code) throws AppException {
+    public Task delete(int code) throws AppException {
+        synchronized (mutationLock) {
+            return deleteLocked(code);
+        }
+    }
+
+    private Task deleteLocked(int code) throws AppException {
         Task deleteTask = taskDataAccess.findByCode(code);
-        List<Log> log = logDataAccess.findAll();
         if (deleteTask == null) {
             throw new AppException("存在するタスクコードを入力してください");
         }
@@ -143,6 +450,82 @@ public class TaskLogic {
         }
         taskDataAccess.delete(code);
         logDataAccess.deleteByTaskCode(code);
-        System.out.println(deleteTask.getName() + "の削除が完了しました。");
+        codeIndex.remove(code);
+        nameIndex.remove(code);
+        dataVersion.incrementAndGet();
+        eventBus.publish(new TaskEvent.TaskDeleted(code));
+        return deleteTask;
+    }
+
+    /**
+     * 他のノードで発生したタスクの変更を、このノードのデータに反映します。
+     * レプリケーションのフォロワーが、リーダーから受け取ったイベントを順番に適用するために使う
+     * リーダー側で検証済みの変更のため、ステータスの順番などは検証しない
+     * 反映後、同じイベントをこのノードのイベントバスに発行する
+     *
+     * @param event 反映するイベント
+     */
+    public void applyReplicated(TaskEvent event) {
+        synchronized (mutationLock) {
+            if (event instanceof TaskEvent.TaskCreated created) {
+                Task newTask = new Task(created.code(), created.name(), 0, resolveUser(created.repUserCode()));
+                taskDataAccess.save(newTask);
+                codeIndex.add(created.code());
+                nameIndex.put(newTask);
+                logDataAccess.save(new Log(created.code(), created.changeUserCode(), 0, created.changeDate()));
+            } else if (event instanceof TaskEvent.StatusChanged changed) {
+                Task task = taskDataAccess.findByCode(changed.code());
+                if (task != null) {
+                    Task updated = new Task(changed.code(), task.getName(), changed.newStatus(), task.getRepUser(),
+                            task.getVersion());
+                    taskDataAccess.update(updated);
+                    nameIndex.put(updated);
+                }
+                logDataAccess.save(new Log(changed.code(), changed.changeUserCode(), changed.newStatus(),
+                        changed.changeDate()));
+            } else if (event instanceof TaskEvent.TaskDeleted deleted) {
+                taskDataAccess.delete(deleted.code());
+                logDataAccess.deleteByTaskCode(deleted.code());
+                codeIndex.remove(deleted.code());
+                nameIndex.remove(deleted.code());
+            }
+            dataVersion.incrementAndGet();
+            eventBus.publish(event);
+        }
+    }
+
+    /**
+     * このノードの全てのタスクとログを、他のノードのデータで置き換えます。
+     * レプリケーションのフォロワーが、リーダーのスナップショットを受け取ったときに使う
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#replaceAll(List)
+     * @see com.taskapp.dataaccess.LogRepository#replaceAll(List)
+     * @param tasks 置き換え後のタスク
+     * @param logs 置き換え後のログ
+     */
+    public void restoreReplicated(List<TaskRow> tasks, List<LogRow> logs) {
+        synchronized (mutationLock) {
+            Map<Integer, User> users = new HashMap<>();
+            List<Task> newTasks = new ArrayList<>(tasks.size());
+            for (TaskRow row : tasks) {
+                newTasks.add(row.toTask(code -> users.computeIfAbsent(code, this::resolveUser)));
+            }
+            List<Log> newLogs = new ArrayList<>(logs.size());
+            logs.forEach(row -> newLogs.add(row.toLog()));
+            taskDataAccess.replaceAll(newTasks);
+            logDataAccess.replaceAll(newLogs);
+            codeIndex.invalidate();
+            nameIndex.invalidate();
+            dataVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * ユーザーを取得します。
+     * このノードのusers.csvに存在しない場合も、コードだけを持つユーザーを返す
+     */
+    private User resolveUser(int code) {
+        User user = userDataAccess.findByCode(code);
+        return user != null ? user : new User(code, null, null, null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,261 @@
+package com.taskapp.logic;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.model.Task;
+import com.taskapp.util.IntHashSet;
+
+/**
+ * タスク名で検索するための、メモリ上の転置索引です。
+ * タスク名は英数字と日本語が混在するため、単語ではなく文字単位のn-gram(1文字と2文字)で索引を作ります。
+ * 部分一致はn-gramごとのタスクコードの列で候補を絞り込んでから確認し、前方一致はタスク名の順に並べた索引から探します。
+ * 最初に使われたときに1回だけタスクを読み込み、以降はTaskLogicの保存・更新・削除に合わせて更新します。
+ * 全角・半角と大文字・小文字の違いは区別しません。
+ */
+public class TaskNameIndex {
+    private final TaskRepository taskDataAccess;
+    private Map<Integer, Entry> entries;
+    private Map<Long, Postings> grams;
+    private NavigableMap<String, IntHashSet> byName;
+
+    public TaskNameIndex(TaskRepository taskDataAccess) {
+        this.taskDataAccess = taskDataAccess;
+    }
+
+    /**
+     * タスクを索引に登録します。既に同じコードのタスクがあれば置き換える
+     * まだ読み込んでいない場合は、次に使われたときに最新の状態を読み込むため何もしない
+     * @param task 登録するタスク
+     */
+    public synchronized void put(Task task) {
+        if (entries == null) return;
+        index(task);
+    }
+
+    /**
+     * タスクを索引から取り除きます。
+     * @param code タスクコード
+     */
+    public synchronized void remove(int code) {
+        if (entries == null) return;
+        unindex(code);
+    }
+
+    /**
+     * タスク名にqueryを含むタスクを探します。
+     * 実装の流れ
+     * queryの2文字ごとのn-gram(1文字の場合は1文字のn-gram)のタスクコードの列を取得し、件数の少ない順に並べる
+     * 最も少ない列をタスクコードの昇順にたどり、他の全ての列にも含まれるものを候補とする
+     * 候補のタスク名に実際にqueryが含まれるかを確認し、limit件見つかった時点で終了する
+     *
+     * @param query 検索する文字列
+     * @param limit 返す件数の上限
+     * @return 見つかったタスク(タスクコードの昇順)
+     */
+    public synchronized List<Task> search(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty()) return List.of();
+        loaded();
+        long[] queryGrams = key.length() == 1 ? new long[] { unigram(key.charAt(0)) } : bigrams(key);
+        Postings[] postings = new Postings[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            postings[i] = grams.get(queryGrams[i]);
+            if (postings[i] == null) return List.of();
+        }
+        Arrays.sort(postings, (a, b) -> Integer.compare(a.size(), b.size()));
+
+        List<Task> result = new ArrayList<>();
+        Postings smallest = postings[0];
+        for (int n = 0; n < smallest.size() && result.size() < limit; n++) {
+            int code = smallest.get(n);
+            boolean all = true;
+            for (int i = 1; i < postings.length && all; i++) {
+                all = postings[i].contains(code);
+            }
+            if (!all) continue;
+            Entry entry = entries.get(code);
+            if (entry.key().contains(key)) {
+                result.add(entry.task());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * タスク名がprefixで始まるタスクを探します。
+     * タスク名の順に並べた索引をたどり、limit件見つかった時点で終了する
+     * @param prefix 検索する文字列
+     * @param limit 返す件数の上限
+     * @return 見つかったタスク(タスク名の昇順、同じタスク名はタスクコードの昇順)
+     */
+    public synchronized List<Task> searchPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        loaded();
+        List<Task> result = new ArrayList<>();
+        for (IntHashSet sameName : byName.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            int[] codes = sameName.toArray();
+            Arrays.sort(codes);
+            for (int i = 0; i < codes.length && result.size() < limit; i++) {
+                result.add(entries.get(codes[i]).task());
+            }
+            if (result.size() >= limit) break;
+        }
+        return result;
+    }
+
+    /**
+     * 索引に登録されているタスクの数を返します。
+     * @return タスクの数
+     */
+    public synchronized int size() {
+        loaded();
+        return entries.size();
+    }
+
+    /**
+     * 索引を破棄します。
+     * TaskLogicを通さずにタスクを登録・削除した場合に呼び出し、次に使われたときに読み込み直す
+     */
+    public synchronized void invalidate() {
+        entries = null;
+        grams = null;
+        byName = null;
+    }
+
+    /**
+     * 索引を読み込みます。まだ読み込んでいなければ、全てのタスクを読み込んで作成する
+     */
+    private void loaded() {
+        if (entries != null) return;
+        entries = new HashMap<>();
+        grams = new HashMap<>();
+        byName = new TreeMap<>();
+        for (Task task : taskDataAccess.findAll()) {
+            index(task);
+        }
+    }
+
+    private void index(Task task) {
+        String key = normalize(task.getName());
+        Entry previous = entries.get(task.getCode());
+        if (previous != null && previous.key().equals(key)) {
+            entries.put(task.getCode(), new Entry(task, key));
+            return;
+        }
+        if (previous != null) {
+            unindex(task.getCode());
+        }
+        entries.put(task.getCode(), new Entry(task, key));
+        for (long gram : grams(key)) {
+            grams.computeIfAbsent(gram, g -> new Postings()).add(task.getCode());
+        }
+        byName.computeIfAbsent(key, k -> new IntHashSet()).add(task.getCode());
+    }
+
+    private void unindex(int code) {
+        Entry entry = entries.remove(code);
+        if (entry == null) return;
+        for (long gram : grams(entry.key())) {
+            Postings codes = grams.get(gram);
+            if (codes != null && codes.remove(code) && codes.size() == 0) {
+                grams.remove(gram);
+            }
+        }
+        IntHashSet sameName = byName.get(entry.key());
+        if (sameName != null && sameName.remove(code) && sameName.isEmpty()) {
+            byName.remove(entry.key());
+        }
+    }
+
+    /**
+     * 索引に登録するn-gramを返します。1文字ずつのn-gramと、隣り合う2文字のn-gramの両方を含む
+     */
+    private static long[] grams(String key) {
+        long[] bigrams = bigrams(key);
+        long[] result = Arrays.copyOf(bigrams, bigrams.length + key.length());
+        for (int i = 0; i < key.length(); i++) {
+            result[bigrams.length + i] = unigram(key.charAt(i));
+        }
+        return result;
+    }
+
+    private static long[] bigrams(String key) {
+        long[] result = new long[Math.max(0, key.length() - 1)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = 1L << 32 | (long) key.charAt(i) << 16 | key.charAt(i + 1);
+        }
+        return result;
+    }
+
+    private static long unigram(char c) {
+        return c;
+    }
+
+    /**
+     * 検索用にタスク名を正規化します。全角の英数字を半角に揃え、小文字に変換する
+     */
+    static String normalize(String name) {
+        if (name == null) return "";
+        return Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 1つのn-gramを含むタスクコードを、昇順に並べた列です。
+     * タスクコードは増えていくことが多いため、追加はほとんどの場合末尾への追加で済みます。
+     * 含まれるかの確認は二分探索で行います。
+     */
+    private static final class Postings {
+        private int[] codes = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return codes[index];
+        }
+
+        boolean contains(int code) {
+            return Arrays.binarySearch(codes, 0, size, code) >= 0;
+        }
+
+        void add(int code) {
+            int index = size > 0 && codes[size - 1] < code ? size : Arrays.binarySearch(codes, 0, size, code);
+            if (index < 0) {
+                index = -index - 1;
+            } else if (index < size) {
+                return;
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            System.arraycopy(codes, index, codes, index + 1, size - index);
+            codes[index] = code;
+            size++;
+        }
+
+        boolean remove(int code) {
+            int index = Arrays.binarySearch(codes, 0, size, code);
+            if (index < 0) return false;
+            System.arraycopy(codes, index + 1, codes, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * 索引に登録したタスクと、正規化したタスク名の組です。
+     */
+    private record Entry(Task task, String key) {
+    }
+}
@@ -1,11 +1,13 @@
 package com.taskapp.logic;
 
+import com.taskapp.config.AppConfig;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.User;
 
 public class UserLogic {
-    private final UserDataAccess userDataAccess;
+    private final UserRepository userDataAccess;
 
     public UserLogic() {
         userDataAccess = new UserDataAccess();
@@ -19,6 +21,24 @@ public class UserLogic {
         this.userDataAccess = userDataAccess;
     }
 
+    /**
+     * 設定に従ってUserLogicを生成します。
+     * 設定のデータのディレクトリにあるusers.csvを、設定の入出力・キャッシュの設定で使う
+     * @param config アプリケーションの設定
+     */
+    public UserLogic(AppConfig config) {
+        this(new UserDataAccess(config.getUsersFile(), config));
+    }
+
+    /**
+     * 保存先を指定してUserLogicを生成します。
+     * CSV以外の保存先を使う場合に利用する
+     * @param userDataAccess
+     */
+    public UserLogic(UserRepository userDataAccess) {
+        this.userDataAccess = userDataAccess;
+    }
+
     /**
      * ユーザーのログイン処理を行います。
      *
@@ -36,4 +56,17 @@ public class UserLogic {
         System.out.println("ユーザー名: " + loginUser.getName() + " でログインしました。");
         return loginUser;
     }
-}
\ No newline at end of file
+
+    /**
+     * メールアドレスとパスワードでユーザーを認証します。
+     * loginと異なり、メッセージの出力は行わない
+     *
+     * @see com.taskapp.dataaccess.UserDataAccess#findByEmailAndPassword(String, String)
+     * @param email ユーザーのメールアドレス
+     * @param password ユーザーのパスワード
+     * @return 認証したユーザー。一致するユーザーが存在しない場合はnull
+     */
+    public User authenticate(String email, String password) {
+        return userDataAccess.findByEmailAndPassword(email, password);
+    }
+}
@@ -0,0 +1,158 @@
+package com.taskapp.logic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.taskapp.dataaccess.DataSnapshot;
+import com.taskapp.dataaccess.FileStamp;
+import com.taskapp.dataaccess.IoExecutor;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.LogTable;
+import com.taskapp.model.TaskTable;
+import com.taskapp.model.User;
+
+/**
+ * アプリケーション起動時に、ユーザー・タスク・ログを事前に読み込みます。
+ * 読み込んだデータは各DataAccessに登録され、最初の操作からファイルを読み直さずに使われます。
+ */
+public class WarmUp {
+    private final TaskDataAccess taskDataAccess;
+    private final LogDataAccess logDataAccess;
+    private final UserDataAccess userDataAccess;
+
+    public WarmUp(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserDataAccess userDataAccess) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userDataAccess = userDataAccess;
+    }
+
+    /**
+     * 3つのデータを読み込み、参照整合性を検証します。
+     * snapshotPathにスナップショットがあれば読み込み、CSVが変更されていないデータはスナップショットから復元する
+     * 変更されているデータ、またはスナップショットがない場合はCSVから読み込む
+     * スナップショットが読み込めない場合は、スナップショットを使わずに続行する
+     * CSVから読み込む場合、3つのファイルはIoExecutorで並行して読み込む
+     *
+     * @see com.taskapp.dataaccess.DataSnapshot#read(Path)
+     * @param snapshotPath スナップショットのパス(使わない場合はnull)
+     * @return 読み込みの結果
+     */
+    public Result run(Path snapshotPath) {
+        long start = System.nanoTime();
+        DataSnapshot snapshot = null;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                snapshot = DataSnapshot.read(snapshotPath);
+            } catch (IOException e) {
+                System.out.println("スナップショットを読み込めなかったため、CSVから読み込みます: " + e.getMessage());
+            }
+        }
+
+        int restored = 0;
+        IoExecutor io = IoExecutor.shared();
+        CompletableFuture<List<User>> users;
+        if (snapshot != null && userDataAccess.preload(snapshot.users(), snapshot.userStamp())) {
+            users = CompletableFuture.completedFuture(snapshot.users());
+            restored++;
+        } else {
+            users = io.supply(() -> {
+                FileStamp stamp = userDataAccess.stamp();
+                List<User> loaded = userDataAccess.findAll();
+                userDataAccess.preload(loaded, stamp);
+                return loaded;
+            });
+        }
+
+        CompletableFuture<TaskTable> tasks;
+        if (snapshot != null && taskDataAccess.preload(snapshot.tasks(), snapshot.taskStamp())) {
+            tasks = CompletableFuture.completedFuture(snapshot.tasks());
+            restored++;
+        } else {
+            tasks = io.supply(taskDataAccess::loadTable);
+        }
+
+        CompletableFuture<LogTable> logs;
+        if (snapshot != null && logDataAccess.preload(snapshot.logs(), snapshot.logStamp())) {
+            logs = CompletableFuture.completedFuture(snapshot.logs());
+            restored++;
+        } else {
+            logs = io.supply(logDataAccess::loadTable);
+        }
+        IoExecutor.joinAll(users, tasks, logs);
+
+        List<String> violations = validate(users.join(), tasks.join(), logs.join());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(users.join().size(), tasks.join().size(), logs.join().size(), restored, violations,
+                elapsedMillis);
+    }
+
+    /**
+     * 現在のデータをスナップショットとして書き込みます。
+     * 各ファイルの状態は読み込む前に取得するため、読み込み中にファイルが変更された場合は、
+     * 次回の起動時にそのデータはCSVから読み直される
+     *
+     * @see com.taskapp.dataaccess.DataSnapshot#write(Path)
+     * @param snapshotPath スナップショットのパス
+     * @throws IOException 書き込みに失敗した場合にスローされます
+     */
+    public void writeSnapshot(Path snapshotPath) throws IOException {
+        FileStamp userStamp = userDataAccess.stamp();
+        List<User> users = userDataAccess.findAll();
+        FileStamp taskStamp = taskDataAccess.stamp();
+        TaskTable tasks = taskDataAccess.loadTable();
+        FileStamp logStamp = logDataAccess.stamp();
+        LogTable logs = logDataAccess.loadTable();
+        new DataSnapshot(users, userStamp, tasks, taskStamp, logs, logStamp).write(snapshotPath);
+    }
+
+    /**
+     * 参照整合性を検証します。
+     * タスクの担当ユーザー、ログのタスク・変更ユーザーが存在するかを確認し、存在しないものをメッセージとして返す
+     * @param users ユーザー
+     * @param tasks タスク
+     * @param logs ログ
+     * @return 整合性の違反を表すメッセージのリスト
+     */
+    private List<String> validate(List<User> users, TaskTable tasks, LogTable logs) {
+        List<String> violations = new ArrayList<>();
+        Set<Integer> userCodes = new HashSet<>();
+        users.forEach(u -> userCodes.add(u.getCode()));
+        Set<Integer> taskCodes = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            taskCodes.add(tasks.codeAt(i));
+            if (!userCodes.contains(tasks.repUserCodeAt(i))) {
+                violations.add("タスクコード" + tasks.codeAt(i) + "の担当ユーザーコード" + tasks.repUserCodeAt(i) + "が存在しません");
+            }
+        }
+        for (int i = 0; i < logs.size(); i++) {
+            if (!taskCodes.contains(logs.taskCodeAt(i))) {
+                violations.add("ログのタスクコード" + logs.taskCodeAt(i) + "に該当するタスクが存在しません");
+            }
+            if (!userCodes.contains(logs.changeUserCodeAt(i))) {
+                violations.add("ログの変更ユーザーコード" + logs.changeUserCodeAt(i) + "が存在しません");
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * 事前読み込みの結果です。
+     * @param userCount 読み込んだユーザーの件数
+     * @param taskCount 読み込んだタスクの件数
+     * @param logCount 読み込んだログの件数
+     * @param restoredCount スナップショットから復元したデータの数(0~3)
+     * @param violations 参照整合性の違反
+     * @param elapsedMillis 読み込みにかかった時間(ミリ秒)
+     */
+    public record Result(int userCount, int taskCount, int logCount, int restoredCount,
+            List<String> violations, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskapp.model;
+
+import java.time.LocalDate;
+
+/**
+ * ログ1件を表す不変のレコードです。
+ * 変更日はエポック日数のintとして保持します。
+ */
+public record LogRow(int taskCode, int changeUserCode, int status, int changeEpochDay) {
+
+    /**
+     * Logからレコードを作成します。
+     * @param log 変換するログ
+     * @return ログのレコード
+     */
+    public static LogRow of(Log log) {
+        return new LogRow(log.getTaskCode(), log.getChangeUserCode(), log.getStatus(),
+                (int) log.getChangeDate().toEpochDay());
+    }
+
+    /**
+     * 変更日を返します。
+     * @return 変更日
+     */
+    public LocalDate changeDate() {
+        return LocalDate.ofEpochDay(changeEpochDay);
+    }
+
+    /**
+     * Logに変換します。
+     * @return 変換したログ
+     */
+    public Log toLog() {
+        return new Log(taskCode, changeUserCode, status, changeDate());
+    }
+}
@@ -0,0 +1,125 @@
+package com.taskapp.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 全件走査用に、ログを列ごとのプリミティブ配列で保持する不変のテーブルです。
+ * 変更日はエポック日数で保持します。生成後は変更されないため、スレッド間で共有できます。
+ */
+public final class LogTable {
+    private final int size;
+    private final int[] taskCodes;
+    private final int[] changeUserCodes;
+    private final byte[] statuses;
+    private final int[] changeEpochDays;
+
+    private LogTable(int size, int[] taskCodes, int[] changeUserCodes, byte[] statuses, int[] changeEpochDays) {
+        this.size = size;
+        this.taskCodes = taskCodes;
+        this.changeUserCodes = changeUserCodes;
+        this.statuses = statuses;
+        this.changeEpochDays = changeEpochDays;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int taskCodeAt(int index) {
+        return taskCodes[Objects.checkIndex(index, size)];
+    }
+
+    public int changeUserCodeAt(int index) {
+        return changeUserCodes[Objects.checkIndex(index, size)];
+    }
+
+    public int statusAt(int index) {
+        return statuses[Objects.checkIndex(index, size)];
+    }
+
+    public int changeEpochDayAt(int index) {
+        return changeEpochDays[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * 指定した行をレコードとして取得します。
+     * @param index 行番号
+     * @return ログのレコード
+     */
+    public LogRow get(int index) {
+        Objects.checkIndex(index, size);
+        return new LogRow(taskCodes[index], changeUserCodes[index], statuses[index], changeEpochDays[index]);
+    }
+
+    /**
+     * 全ての行をLogのリストに変換します。
+     * @return ログのリスト
+     */
+    public List<Log> toLogs() {
+        List<Log> logList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            logList.add(new Log(taskCodes[i], changeUserCodes[i], statuses[i], LocalDate.ofEpochDay(changeEpochDays[i])));
+        }
+        return logList;
+    }
+
+    /**
+     * 全ての行をLogRowのリストに変換します。
+     * @return ログのレコードのリスト
+     */
+    public List<LogRow> toRows() {
+        List<LogRow> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new LogRow(taskCodes[i], changeUserCodes[i], statuses[i], changeEpochDays[i]));
+        }
+        return rows;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * LogTableを1行ずつ組み立てるためのビルダーです。
+     * スレッドセーフではありません。
+     */
+    public static final class Builder {
+        private int size;
+        private int[] taskCodes = new int[16];
+        private int[] changeUserCodes = new int[16];
+        private byte[] statuses = new byte[16];
+        private int[] changeEpochDays = new int[16];
+
+        private Builder() {
+        }
+
+        public Builder add(int taskCode, int changeUserCode, int status, int changeEpochDay) {
+            if (size == taskCodes.length) {
+                int capacity = size * 2;
+                taskCodes = Arrays.copyOf(taskCodes, capacity);
+                changeUserCodes = Arrays.copyOf(changeUserCodes, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                changeEpochDays = Arrays.copyOf(changeEpochDays, capacity);
+            }
+            taskCodes[size] = taskCode;
+            changeUserCodes[size] = changeUserCode;
+            statuses[size] = (byte) status;
+            changeEpochDays[size] = changeEpochDay;
+            size++;
+            return this;
+        }
+
+        public Builder add(LogRow row) {
+            return add(row.taskCode(), row.changeUserCode(), row.status(), row.changeEpochDay());
+        }
+
+        public LogTable build() {
+            return new LogTable(size, Arrays.copyOf(taskCodes, size), Arrays.copyOf(changeUserCodes, size),
+                    Arrays.copyOf(statuses, size), Arrays.copyOf(changeEpochDays, size));
+        }
+    }
+}
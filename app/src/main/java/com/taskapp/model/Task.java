@@ -1,16 +1,32 @@
 package com.taskapp.model;
 
 public class Task {
-    private int code;
-    private String name;
+    private final int code;
+    private final String name;
     private int status;
-    private User repUser;
+    private final User repUser;
+    private final int version;
 
     public Task(int code, String name, int status, User repUser) {
+        this(code, name, status, repUser, 0);
+    }
+
+    /**
+     * 更新の競合を検出するためのバージョンを指定してタスクを生成します。
+     * バージョンは保存されるたびに1ずつ増え、読み込んだ時点のバージョンを付けて更新すると、
+     * その間に他の更新があった場合はStaleTaskExceptionになります。
+     * @param code タスクのコード
+     * @param name タスク名
+     * @param status ステータス
+     * @param repUser 担当ユーザー
+     * @param version 読み込んだ時点のバージョン
+     */
+    public Task(int code, String name, int status, User repUser, int version) {
         this.code = code;
         this.name = name;
         this.status = status;
         this.repUser = repUser;
+        this.version = version;
     }
 
     public int getCode() {
@@ -29,6 +45,10 @@ public class Task {
         return this.repUser;
     }
 
+    public int getVersion() {
+        return this.version;
+    }
+
     public void setStatus(int status) {
         this.status = status;
     }
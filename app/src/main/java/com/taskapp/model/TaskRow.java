@@ -0,0 +1,45 @@
+package com.taskapp.model;
+
+import java.util.function.IntFunction;
+
+/**
+ * タスク1件を表す不変のレコードです。
+ * 担当ユーザーはユーザーコードだけを保持し、必要になった時点でresolverを使って取得します。
+ */
+public record TaskRow(int code, String name, int status, int repUserCode, int version) {
+
+    /**
+     * バージョン0のレコードを作成します。
+     */
+    public TaskRow(int code, String name, int status, int repUserCode) {
+        this(code, name, status, repUserCode, 0);
+    }
+
+    /**
+     * Taskからレコードを作成します。
+     * @param task 変換するタスク
+     * @return タスクのレコード
+     */
+    public static TaskRow of(Task task) {
+        return new TaskRow(task.getCode(), task.getName(), task.getStatus(), task.getRepUser().getCode(),
+                task.getVersion());
+    }
+
+    /**
+     * 担当ユーザーを取得します。
+     * @param resolver ユーザーコードからユーザーを取得する関数
+     * @return 担当ユーザー
+     */
+    public User repUser(IntFunction<User> resolver) {
+        return resolver.apply(repUserCode);
+    }
+
+    /**
+     * Taskに変換します。
+     * @param resolver ユーザーコードからユーザーを取得する関数
+     * @return 変換したタスク
+     */
+    public Task toTask(IntFunction<User> resolver) {
+        return new Task(code, name, status, repUser(resolver), version);
+    }
+}
@@ -0,0 +1,128 @@
+package com.taskapp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * 全件走査用に、タスクを列ごとのプリミティブ配列で保持する不変のテーブルです。
+ * 生成後は変更されないため、スレッド間で共有できます。
+ */
+public final class TaskTable {
+    private final int size;
+    private final int[] codes;
+    private final String[] names;
+    private final byte[] statuses;
+    private final int[] repUserCodes;
+    private final int[] versions;
+
+    private TaskTable(int size, int[] codes, String[] names, byte[] statuses, int[] repUserCodes, int[] versions) {
+        this.size = size;
+        this.codes = codes;
+        this.names = names;
+        this.statuses = statuses;
+        this.repUserCodes = repUserCodes;
+        this.versions = versions;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int codeAt(int index) {
+        return codes[Objects.checkIndex(index, size)];
+    }
+
+    public String nameAt(int index) {
+        return names[Objects.checkIndex(index, size)];
+    }
+
+    public int statusAt(int index) {
+        return statuses[Objects.checkIndex(index, size)];
+    }
+
+    public int repUserCodeAt(int index) {
+        return repUserCodes[Objects.checkIndex(index, size)];
+    }
+
+    public int versionAt(int index) {
+        return versions[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * 指定した行をレコードとして取得します。
+     * @param index 行番号
+     * @return タスクのレコード
+     */
+    public TaskRow get(int index) {
+        Objects.checkIndex(index, size);
+        return new TaskRow(codes[index], names[index], statuses[index], repUserCodes[index], versions[index]);
+    }
+
+    /**
+     * 全ての行をTaskのリストに変換します。
+     * @param resolver ユーザーコードからユーザーを取得する関数
+     * @return タスクのリスト
+     */
+    public List<Task> toTasks(IntFunction<User> resolver) {
+        List<Task> taskList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            taskList.add(new Task(codes[i], names[i], statuses[i], resolver.apply(repUserCodes[i]), versions[i]));
+        }
+        return taskList;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * TaskTableを1行ずつ組み立てるためのビルダーです。
+     * スレッドセーフではありません。
+     */
+    public static final class Builder {
+        private int size;
+        private int[] codes = new int[16];
+        private String[] names = new String[16];
+        private byte[] statuses = new byte[16];
+        private int[] repUserCodes = new int[16];
+        private int[] versions = new int[16];
+
+        private Builder() {
+        }
+
+        public Builder add(int code, String name, int status, int repUserCode) {
+            return add(code, name, status, repUserCode, 0);
+        }
+
+        public Builder add(int code, String name, int status, int repUserCode, int version) {
+            if (size == codes.length) {
+                int capacity = size * 2;
+                codes = Arrays.copyOf(codes, capacity);
+                names = Arrays.copyOf(names, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                repUserCodes = Arrays.copyOf(repUserCodes, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            codes[size] = code;
+            names[size] = name;
+            statuses[size] = (byte) status;
+            repUserCodes[size] = repUserCode;
+            versions[size] = version;
+            size++;
+            return this;
+        }
+
+        public Builder add(TaskRow row) {
+            return add(row.code(), row.name(), row.status(), row.repUserCode(), row.version());
+        }
+
+        public TaskTable build() {
+            return new TaskTable(size, Arrays.copyOf(codes, size), Arrays.copyOf(names, size),
+                    Arrays.copyOf(statuses, size), Arrays.copyOf(repUserCodes, size),
+                    Arrays.copyOf(versions, size));
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.taskapp.model;
 
 public class User {
-    private int code;
-    private String name;
-    private String email;
-    private String password;
+    private final int code;
+    private final String name;
+    private final String email;
+    private final String password;
 
     public User(int code, String name, String email, String password) {
         this.code = code;
@@ -0,0 +1,24 @@
+package com.taskapp.model;
+
+/**
+ * ユーザー1件を表す不変のレコードです。
+ */
+public record UserRow(int code, String name, String email, String password) {
+
+    /**
+     * Userからレコードを作成します。
+     * @param user 変換するユーザー
+     * @return ユーザーのレコード
+     */
+    public static UserRow of(User user) {
+        return new UserRow(user.getCode(), user.getName(), user.getEmail(), user.getPassword());
+    }
+
+    /**
+     * Userに変換します。
+     * @return 変換したユーザー
+     */
+    public User toUser() {
+        return new User(code, name, email, password);
+    }
+}
@@ -0,0 +1,220 @@
+package com.taskapp.replication;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.LogRow;
+import com.taskapp.model.TaskRow;
+
+/**
+ * リーダーから受け取った変更を、このノードのTaskLogicに反映するレプリケーションのフォロワーです。
+ *
+ * 接続が切れた場合やリーダーからの応答が途絶えた場合は、一定時間ごとに再接続し、適用済みの位置から再開します。
+ * リーダーが停止した場合は、promoteで追従をやめ、このノードのデータをそのまま使って書き込みを受け付けられます。
+ * フォロワーのデータは、追従している間は読み取り専用として扱います。
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final long RETRY_MILLIS = 1000;
+
+    private final InetSocketAddress leaderAddress;
+
+    private final TaskLogic taskLogic;
+
+    private volatile Thread worker;
+
+    private volatile boolean running = true;
+
+    private volatile boolean connected;
+
+    private volatile Socket socket;
+
+    private String epoch = ReplicationProtocol.NO_EPOCH;
+
+    private long appliedSequence;
+
+    /**
+     * @param leaderAddress リーダーのアドレス
+     * @param taskLogic 変更を反映するTaskLogic(このノードのデータを使うもの)
+     */
+    public ReplicationFollower(InetSocketAddress leaderAddress, TaskLogic taskLogic) {
+        this.leaderAddress = leaderAddress;
+        this.taskLogic = taskLogic;
+    }
+
+    /**
+     * リーダーへの接続と追従を開始します。
+     * 追従するスレッドはここで生成する(コンストラクタの途中のthisを別のスレッドに渡さないため)
+     * @throws IllegalStateException すでに開始している場合にスローされます
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            throw new IllegalStateException("レプリケーションのフォロワーはすでに開始しています");
+        }
+        Thread thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * リーダーと接続し、最初のデータを受け取り終えているかを返します。
+     * @return 接続している場合はtrue
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * 最後に適用したイベントの通し番号を返します。
+     * @return 通し番号
+     */
+    public synchronized long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * 指定した通し番号のイベントまで適用されるのを待ちます。
+     * @param sequence 待つ通し番号
+     * @param timeoutMillis 待つ時間の上限(ミリ秒)
+     * @return 時間内に適用された場合はtrue
+     * @throws InterruptedException 待っている間に割り込まれた場合にスローされます
+     */
+    public synchronized boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSequence < sequence || !connected) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * 追従をやめ、このノードをリーダーとして使えるようにします。
+     * 適用中のイベントがあれば、適用し終えてから戻る
+     */
+    public void promote() {
+        running = false;
+        closeSocket();
+        Thread thread = worker;
+        if (thread != null && Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 追従をやめます。
+     */
+    @Override
+    public void close() {
+        promote();
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                if (!running) return;
+                s.connect(leaderAddress, ReplicationProtocol.READ_TIMEOUT_MILLIS);
+                s.setSoTimeout(ReplicationProtocol.READ_TIMEOUT_MILLIS);
+                follow(s);
+            } catch (IOException | RuntimeException e) {
+                // 切断・タイムアウト・不正な行のいずれも、再接続して適用済みの位置からやり直す
+            } finally {
+                connected = false;
+            }
+            if (!running) return;
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 1回の接続でリーダーに追従します。
+     * 実装の流れ
+     * HELLOで適用済みの位置を送る
+     * SNAPSHOTが返った場合は、全てのタスクとログを受け取ってからこのノードのデータを置き換える
+     * その後はイベントを1件ずつ適用する。通し番号が連続していない場合は切断してやり直す
+     */
+    private void follow(Socket s) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+        synchronized (this) {
+            out.write("HELLO " + epoch + " " + appliedSequence);
+        }
+        out.newLine();
+        out.flush();
+
+        String[] header = readLine(in).split(" ");
+        if (header[0].equals("SNAPSHOT")) {
+            List<TaskRow> tasks = new ArrayList<>();
+            List<LogRow> logs = new ArrayList<>();
+            String line;
+            while (!(line = readLine(in)).equals("END")) {
+                if (line.startsWith("T ")) {
+                    tasks.add(ReplicationProtocol.decodeTask(line));
+                } else if (line.startsWith("L ")) {
+                    logs.add(ReplicationProtocol.decodeLog(line));
+                }
+            }
+            taskLogic.restoreReplicated(tasks, logs);
+            applied(header[1], Long.parseLong(header[2]));
+        } else if (!header[0].equals("RESUME") || !header[1].equals(epoch)) {
+            throw new IOException("リーダーの応答が正しくありません: " + String.join(" ", header));
+        }
+        connected = true;
+        synchronized (this) {
+            notifyAll();
+        }
+
+        while (running) {
+            String line = readLine(in);
+            if (line.equals("PING")) continue;
+            long sequence = ReplicationProtocol.eventSequence(line);
+            if (sequence != getAppliedSequence() + 1) {
+                throw new IOException("イベントの通し番号が連続していません: " + sequence);
+            }
+            taskLogic.applyReplicated(ReplicationProtocol.decodeEvent(line));
+            applied(epoch, sequence);
+        }
+    }
+
+    private synchronized void applied(String newEpoch, long sequence) {
+        epoch = newEpoch;
+        appliedSequence = sequence;
+        notifyAll();
+    }
+
+    private static String readLine(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) throw new EOFException("リーダーとの接続が切れました");
+        return line;
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s == null) return;
+        try {
+            s.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.taskapp.replication;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.event.TaskEvent;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
+import com.taskapp.model.Task;
+
+/**
+ * TaskLogicの変更をフォロワーに送るレプリケーションのリーダーです。
+ *
+ * TaskLogicのイベントバスにリスナーを登録し、登録・ステータス変更・削除のイベントに通し番号を付けて、
+ * 接続している全てのフォロワーに順番に送ります。直近のイベントはbacklogSize件まで保持し、
+ * 再接続したフォロワーが保持している範囲の続きから再開できる場合はその続きだけを送ります。
+ * 再開できない場合(初回の接続、リーダーの再起動、長時間の切断)は、全てのタスクとログを送ってから続きを送ります。
+ *
+ * 起動ごとに異なるepochを使うため、リーダーが再起動した後の通し番号を以前のものと取り違えることはありません。
+ */
+public class ReplicationLeader implements AutoCloseable {
+    public static final int DEFAULT_BACKLOG_SIZE = 10_000;
+
+    private static final int SESSION_QUEUE_SIZE = 100_000;
+
+    private final ServerSocket serverSocket;
+
+    private final TaskLogic taskLogic;
+
+    private final LogRepository logRepository;
+
+    private final int backlogSize;
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private final ArrayDeque<String> backlog = new ArrayDeque<>();
+
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+
+    private final Consumer<TaskEvent> listener = this::onEvent;
+
+    private Thread acceptor;
+
+    private long sequence;
+
+    private volatile boolean closed;
+
+    /**
+     * @see #ReplicationLeader(InetSocketAddress, TaskLogic, LogRepository, int)
+     */
+    public ReplicationLeader(InetSocketAddress address, TaskLogic taskLogic, LogRepository logRepository)
+            throws IOException {
+        this(address, taskLogic, logRepository, DEFAULT_BACKLOG_SIZE);
+    }
+
+    /**
+     * 指定したアドレスで待ち受けるリーダーを生成します。
+     * 生成しただけでは待ち受けを開始しないため、startを呼び出す
+     * @param address 待ち受けるアドレス(ポートに0を指定すると空いているポートを使う)
+     * @param taskLogic 変更を送るTaskLogic
+     * @param logRepository スナップショットとして送るログの保存先(taskLogicと同じもの)
+     * @param backlogSize 再接続に備えて保持するイベントの数
+     * @throws IOException ポートを開けなかった場合にスローされます
+     */
+    public ReplicationLeader(InetSocketAddress address, TaskLogic taskLogic, LogRepository logRepository,
+            int backlogSize) throws IOException {
+        this.taskLogic = taskLogic;
+        this.logRepository = logRepository;
+        this.backlogSize = Math.max(0, backlogSize);
+        this.serverSocket = new ServerSocket();
+        // 再起動したリーダーがすぐに同じポートで待ち受けられるようにする
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(address);
+    }
+
+    /**
+     * イベントの受け取りと、フォロワーの接続の待ち受けを開始します。
+     * 待ち受けるスレッドはここで生成する(コンストラクタの途中のthisを別のスレッドに渡さないため)
+     * @throws IllegalStateException すでに開始している場合にスローされます
+     */
+    public synchronized void start() {
+        if (acceptor != null) {
+            throw new IllegalStateException("レプリケーションのリーダーはすでに開始しています");
+        }
+        acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        taskLogic.getEventBus().addListener(listener);
+        acceptor.start();
+    }
+
+    /**
+     * 待ち受けているポートを返します。
+     * @return ポート番号
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 最後に送ったイベントの通し番号を返します。
+     * @return 通し番号(まだイベントがない場合は0)
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 接続しているフォロワーの数を返します。
+     * @return フォロワーの数
+     */
+    public int getFollowerCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 待ち受けを終了し、全てのフォロワーとの接続を閉じます。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        taskLogic.getEventBus().removeListener(listener);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        sessions.forEach(Session::close);
+    }
+
+    /**
+     * イベントに通し番号を付けて保持し、全てのフォロワーの送信待ちに追加します。
+     * TaskLogicの変更と同じロックの中で呼び出されるため、通し番号は変更の順番と一致する
+     * 送信待ちが一杯のフォロワーは切断し、再接続させる
+     */
+    private synchronized void onEvent(TaskEvent event) {
+        sequence++;
+        String line = ReplicationProtocol.encodeEvent(sequence, event);
+        if (backlogSize > 0) {
+            if (backlog.size() == backlogSize) backlog.removeFirst();
+            backlog.addLast(line);
+        }
+        for (Session session : sessions) {
+            if (!session.queue.offer(line)) {
+                session.close();
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> serve(socket), "replication-session");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!closed) e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 1つのフォロワーとの接続を処理します。
+     * 実装の流れ
+     * HELLOでフォロワーが適用済みの位置を受け取る
+     * TaskLogicの変更を止めた状態で、続きから再開するか、スナップショットを送るかを決め、送信待ちに登録する
+     * (止めている間に決めるため、スナップショットと続きのイベントの間に抜けや重複がない)
+     * その後は送信待ちのイベントを順番に送り、送るものがなければPINGを送る
+     */
+    private void serve(Socket socket) {
+        Session session = new Session(socket);
+        try (socket) {
+            socket.setSoTimeout(ReplicationProtocol.READ_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            String hello = in.readLine();
+            String[] v = hello == null ? new String[0] : hello.split(" ");
+            if (v.length != 3 || !v[0].equals("HELLO")) return;
+            String followerEpoch = v[1];
+            long followerSequence = Long.parseLong(v[2]);
+
+            List<String> handshake = new ArrayList<>();
+            taskLogic.runExclusively(() -> {
+                synchronized (this) {
+                    handshake(followerEpoch, followerSequence, handshake);
+                    sessions.add(session);
+                }
+            });
+            for (String line : handshake) {
+                out.write(line);
+                out.newLine();
+            }
+            out.flush();
+
+            while (!session.closed && !closed) {
+                String line = session.queue.poll(ReplicationProtocol.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                out.write(line != null ? line : "PING");
+                out.newLine();
+                if (session.queue.isEmpty()) out.flush();
+            }
+        } catch (IOException | NumberFormatException e) {
+            // フォロワーの切断、または不正な接続
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sessions.remove(session);
+        }
+    }
+
+    /**
+     * 接続したフォロワーに最初に送る行を作成します。
+     * epochが一致し、適用済みの位置の続きが全て保持しているイベントに含まれていれば、その続きだけを送る
+     */
+    private void handshake(String followerEpoch, long followerSequence, List<String> lines) {
+        long oldest = sequence - backlog.size();
+        if (epoch.equals(followerEpoch) && followerSequence <= sequence && followerSequence >= oldest) {
+            lines.add("RESUME " + epoch + " " + followerSequence);
+            Iterator<String> it = backlog.iterator();
+            for (long s = oldest + 1; it.hasNext(); s++) {
+                String line = it.next();
+                if (s > followerSequence) lines.add(line);
+            }
+            return;
+        }
+        List<Task> tasks = taskLogic.findAll();
+        List<Log> logs = logRepository.findAll();
+        lines.add("SNAPSHOT " + epoch + " " + sequence + " " + tasks.size() + " " + logs.size());
+        tasks.forEach(task -> lines.add(ReplicationProtocol.encodeTask(task)));
+        logs.forEach(log -> lines.add(ReplicationProtocol.encodeLog(LogRow.of(log))));
+        lines.add("END");
+    }
+
+    /**
+     * 1つのフォロワーへの送信待ちのイベントです。
+     */
+    private static final class Session {
+        private final Socket socket;
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(SESSION_QUEUE_SIZE);
+        private volatile boolean closed;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
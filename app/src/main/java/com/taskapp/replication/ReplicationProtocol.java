@@ -0,0 +1,99 @@
+package com.taskapp.replication;
+
+import java.time.LocalDate;
+
+import com.taskapp.event.TaskEvent;
+import com.taskapp.model.LogRow;
+import com.taskapp.model.Task;
+import com.taskapp.model.TaskRow;
+
+/**
+ * リーダーとフォロワーの間で送受信する行の形式です。
+ * 1行が1つのメッセージで、値は半角スペースで区切ります。タスク名は空白を含められるように行の最後に置きます。
+ *
+ * <pre>
+ * フォロワー → リーダー
+ *   HELLO {epoch} {seq}                      前回までに適用した位置(初回はepochに「-」、seqに0)
+ * リーダー → フォロワー
+ *   RESUME {epoch} {seq}                     続きのイベントから送る
+ *   SNAPSHOT {epoch} {seq} {tasks} {logs}    全てのデータを送る(T・Lの行が続き、ENDで終わる)
+ *   T {code} {status} {repUserCode} {version} {name}
+ *   L {taskCode} {changeUserCode} {status} {changeDate}
+ *   END
+ *   E {seq} C {code} {repUserCode} {changeUserCode} {changeDate} {name}
+ *   E {seq} S {code} {oldStatus} {newStatus} {changeUserCode} {changeDate}
+ *   E {seq} D {code}
+ *   PING                                     送るイベントがないときの生存確認
+ * </pre>
+ */
+final class ReplicationProtocol {
+    static final int HEARTBEAT_MILLIS = 1000;
+
+    static final int READ_TIMEOUT_MILLIS = 5000;
+
+    static final String NO_EPOCH = "-";
+
+    private ReplicationProtocol() {
+    }
+
+    static String encodeEvent(long seq, TaskEvent event) {
+        if (event instanceof TaskEvent.TaskCreated e) {
+            return "E " + seq + " C " + e.code() + " " + e.repUserCode() + " " + e.changeUserCode() + " "
+                    + e.changeDate() + " " + e.name();
+        } else if (event instanceof TaskEvent.StatusChanged e) {
+            return "E " + seq + " S " + e.code() + " " + e.oldStatus() + " " + e.newStatus() + " "
+                    + e.changeUserCode() + " " + e.changeDate();
+        } else {
+            return "E " + seq + " D " + event.code();
+        }
+    }
+
+    /**
+     * イベントの行の通し番号を返します。
+     */
+    static long eventSequence(String line) {
+        return Long.parseLong(line.split(" ", 3)[1]);
+    }
+
+    /**
+     * イベントの行をTaskEventに変換します。
+     * @throws IllegalArgumentException 行の形式が正しくない場合にスローされます
+     */
+    static TaskEvent decodeEvent(String line) {
+        String[] v = line.split(" ", 8);
+        if (v.length < 4 || !v[0].equals("E")) {
+            throw new IllegalArgumentException("イベントの形式が正しくありません: " + line);
+        }
+        int code = Integer.parseInt(v[3]);
+        return switch (v[2]) {
+            case "C" -> new TaskEvent.TaskCreated(code, v.length > 7 ? v[7] : "", Integer.parseInt(v[4]),
+                    Integer.parseInt(v[5]), LocalDate.parse(v[6]));
+            case "S" -> new TaskEvent.StatusChanged(code, Integer.parseInt(v[4]), Integer.parseInt(v[5]),
+                    Integer.parseInt(v[6]), LocalDate.parse(v[7]));
+            case "D" -> new TaskEvent.TaskDeleted(code);
+            default -> throw new IllegalArgumentException("イベントの形式が正しくありません: " + line);
+        };
+    }
+
+    static String encodeTask(Task task) {
+        int repUserCode = task.getRepUser() == null ? 0 : task.getRepUser().getCode();
+        return "T " + task.getCode() + " " + task.getStatus() + " " + repUserCode + " " + task.getVersion() + " "
+                + task.getName();
+    }
+
+    static TaskRow decodeTask(String line) {
+        String[] v = line.split(" ", 6);
+        return new TaskRow(Integer.parseInt(v[1]), v.length > 5 ? v[5] : "", Integer.parseInt(v[2]),
+                Integer.parseInt(v[3]), Integer.parseInt(v[4]));
+    }
+
+    static String encodeLog(LogRow log) {
+        return "L " + log.taskCode() + " " + log.changeUserCode() + " " + log.status() + " " + log.changeDate();
+    }
+
+    static LogRow decodeLog(String line) {
+        String[] v = line.split(" ");
+        return new LogRow(Integer.parseInt(v[1]), Integer.parseInt(v[2]), Integer.parseInt(v[3]),
+                (int) LocalDate.parse(v[4]).toEpochDay());
+    }
+}
@@ -0,0 +1,199 @@
+package com.taskapp.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.logic.TaskImporter;
+import com.taskapp.logic.TaskListRenderer;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * スクリプトに書かれたコマンドを、対話入力なしで順番に実行します。
+ * 1行に1コマンドを書き、空行と「#」で始まる行は読み飛ばします。
+ * 最初にloginでログインし、以降のコマンドはそのユーザーとして実行します。
+ *
+ * <pre>
+ * login &lt;メールアドレス&gt; &lt;パスワード&gt;
+ * list [plain|tsv|jsonl]
+ * create &lt;タスクコード|auto&gt; &lt;担当ユーザーコード&gt; &lt;タスク名&gt;
+ * status &lt;タスクコード&gt; &lt;ステータス&gt;
+ * delete &lt;タスクコード&gt;
+ * import &lt;CSVファイル&gt;
+ * search &lt;タスク名に含まれる文字列&gt;
+ * prefix &lt;タスク名の先頭の文字列&gt;
+ * </pre>
+ */
+public class ScriptRunner {
+    private static final int SEARCH_LIMIT = 100;
+
+    private final BufferedReader script;
+
+    private final UserLogic userLogic;
+
+    private final TaskLogic taskLogic;
+
+    private User loginUser;
+
+    public ScriptRunner(BufferedReader script, UserLogic userLogic, TaskLogic taskLogic) {
+        this.script = script;
+        this.userLogic = userLogic;
+        this.taskLogic = taskLogic;
+    }
+
+    /**
+     * スクリプトを最後まで実行します。
+     * 実装の流れ
+     * 1行ずつ読み込み、コマンドを実行する
+     * コマンドごとに実行時間を計測し、成功・失敗と一緒に出力する
+     * 失敗したコマンドがあっても、次のコマンドから実行を続ける
+     * 最後に実行した件数と合計時間を出力する
+     *
+     * @return 実行の結果
+     * @throws IOException スクリプトの読み込みに失敗した場合にスローされます
+     */
+    public Result run() throws IOException {
+        long start = System.nanoTime();
+        int executed = 0;
+        int failed = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            System.out.println("> " + line);
+            long commandStart = System.nanoTime();
+            String error = null;
+            try {
+                execute(line);
+            } catch (AppException | IOException | DataAccessException e) {
+                error = e.getMessage();
+            }
+            String elapsed = formatMillis(System.nanoTime() - commandStart);
+            executed++;
+            if (error == null) {
+                System.out.println("[OK " + elapsed + "]");
+            } else {
+                failed++;
+                System.out.println("[NG " + elapsed + "] " + lineNumber + "行目: " + error);
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(executed + "件のコマンドを実行しました。(失敗: " + failed + "件, " + elapsedMillis + "ms)");
+        return new Result(executed, failed, elapsedMillis);
+    }
+
+    /**
+     * 1行のコマンドを実行します。
+     * 入力の検証はTaskUIと同じく、コードは半角数字、タスク名は10文字以内、ステータスは1か2とする
+     * @param line コマンドの1行
+     * @throws AppException コマンドが正しくない、または処理に失敗した場合にスローされます
+     * @throws IOException ファイルの読み書きに失敗した場合にスローされます
+     */
+    private void execute(String line) throws AppException, IOException {
+        String[] args = line.split("\\s+", 4);
+        String command = args[0];
+        if (command.equals("login")) {
+            requireArgs(args, 3, "login <メールアドレス> <パスワード>");
+            loginUser = userLogic.login(args[1], args[2]);
+            return;
+        }
+        if (loginUser == null) {
+            throw new AppException("先にloginでログインしてください");
+        }
+        switch (command) {
+            case "list" -> {
+                if (args.length > 1) {
+                    taskLogic.showAll(loginUser, TaskListRenderer.Format.parse(args[1]));
+                } else {
+                    taskLogic.showAll(loginUser);
+                }
+            }
+            case "create" -> {
+                // タスク名には空白を含められるように、3つ目以降をまとめて扱う
+                requireArgs(args, 4, "create <タスクコード|auto> <担当ユーザーコード> <タスク名>");
+                int repUserCode = parseCode(args[2], "担当ユーザーコード");
+                String name = args[3];
+                if (name.length() > 10) {
+                    throw new AppException("タスク名は10文字以内で入力してください");
+                }
+                if (args[1].equals("auto")) {
+                    int code = taskLogic.save(name, repUserCode, loginUser);
+                    System.out.println("タスクコード" + code + "で登録しました。");
+                } else {
+                    taskLogic.save(parseCode(args[1], "タスクコード"), name, repUserCode, loginUser);
+                }
+            }
+            case "status" -> {
+                requireArgs(args, 3, "status <タスクコード> <ステータス>");
+                int code = parseCode(args[1], "タスクコード");
+                if (!args[2].equals("1") && !args[2].equals("2")) {
+                    throw new AppException("ステータスは1・2の中から選択してください");
+                }
+                taskLogic.changeStatus(code, Integer.parseInt(args[2]), loginUser);
+            }
+            case "delete" -> {
+                requireArgs(args, 2, "delete <タスクコード>");
+                int code = parseCode(args[1], "タスクコード");
+                Task deleteTask = taskLogic.delete(code);
+                System.out.println(deleteTask.getName() + "の削除が完了しました。");
+            }
+            case "import" -> {
+                requireArgs(args, 2, "import <CSVファイル>");
+                Path input = Paths.get(args[1]);
+                Path rejectPath = input.resolveSibling(input.getFileName() + ".rejects.csv");
+                TaskImporter.Result result = taskLogic.importTasks(input, rejectPath, loginUser);
+                System.out.println(result.imported() + "件のタスクを登録しました。(登録できなかった行: "
+                        + result.rejected() + "件)");
+            }
+            case "search", "prefix" -> {
+                // 検索する文字列には空白を含められるように、コマンド以降をまとめて扱う
+                String query = line.substring(command.length()).strip();
+                if (query.isEmpty()) {
+                    throw new AppException("引数が足りません。使い方: " + command + " <文字列>");
+                }
+                List<Task> tasks = command.equals("search")
+                        ? taskLogic.searchByName(query, SEARCH_LIMIT)
+                        : taskLogic.searchByNamePrefix(query, SEARCH_LIMIT);
+                tasks.forEach(t -> System.out.println(t.getCode() + ". タスク名：" + t.getName()));
+                System.out.println(tasks.size() + "件見つかりました。");
+            }
+            default -> throw new AppException("不明なコマンドです: " + command);
+        }
+    }
+
+    private void requireArgs(String[] args, int count, String usage) throws AppException {
+        if (args.length < count) {
+            throw new AppException("引数が足りません。使い方: " + usage);
+        }
+    }
+
+    private int parseCode(String value, String label) throws AppException {
+        if (value.isEmpty() || value.length() > 9 || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new AppException(label + "は半角の数字で入力してください");
+        }
+        return Integer.parseInt(value);
+    }
+
+    private String formatMillis(long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * スクリプトの実行結果です。
+     * @param executed 実行したコマンドの件数
+     * @param failed 失敗したコマンドの件数
+     * @param elapsedMillis 実行にかかった時間(ミリ秒)
+     */
+    public record Result(int executed, int failed, long elapsedMillis) {
+    }
+}
@@ -7,6 +7,7 @@ import java.io.InputStreamReader;
 import com.taskapp.exception.AppException;
 import com.taskapp.logic.TaskLogic;
 import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
 public class TaskUI {
@@ -118,18 +119,22 @@ public class TaskUI {
      * ユーザーからの新規タスク情報を受け取り、新規タスクを登録します。
      * 各種バリデーションを実施する
      * 入力完了後、taskLogic.saveメソッドを呼び出す
+     * タスクコードが空欄の場合は、タスクコードを指定しないtaskLogic.saveで自動採番する
      * その後、タスクの登録が完了したことを出力する
      *
      * @see #isNumeric(String)
      * @see com.taskapp.logic.TaskLogic#save(int, String, int, User)
+     * @see com.taskapp.logic.TaskLogic#save(String, int, User)
      */
     public void inputNewInformation() {
         boolean flg = true;
         while (flg) {
             try {
+                System.out.println("※タスクコードを空欄にすると、自動で採番します");
                 System.out.print("タスクコードを入力してください：");
                 String taskCode = reader.readLine();
-                if (!isNumeric(taskCode)) {
+                boolean autoCode = taskCode != null && taskCode.isEmpty();
+                if (!autoCode && !isNumeric(taskCode)) {
                     System.out.println("コードは半角の数字で入力してください\n");
                     continue;
                 }
@@ -145,8 +150,13 @@ public class TaskUI {
                     System.out.println("ユーザーのコードは半角の数字で入力してください\n");
                     continue;
                 }
-                taskLogic.save(Integer.parseInt(taskCode), taskName, Integer.parseInt(repUserCode), loginUser);
-                System.out.println(taskName + "の登録が完了しました。");
+                if (autoCode) {
+                    int code = taskLogic.save(taskName, Integer.parseInt(repUserCode), loginUser);
+                    System.out.println(taskName + "の登録が完了しました。(タスクコード：" + code + ")");
+                } else {
+                    taskLogic.save(Integer.parseInt(taskCode), taskName, Integer.parseInt(repUserCode), loginUser);
+                    System.out.println(taskName + "の登録が完了しました。");
+                }
                 flg = false;
             } catch (IOException e) {
                 e.printStackTrace();
@@ -238,7 +248,7 @@ public class TaskUI {
     /**
      * ユーザーからのタスク削除情報を受け取り、タスクを削除します。
      * while処理の中で削除するタスクのコードを受け取る、バリデーションを実施。
-     * 削除するタスクコードをもとに、taskLogic.deleteを呼び出す
+     * 削除するタスクコードをもとに、taskLogic.deleteを呼び出し、削除が完了したことを出力する
      *
      * @see #isNumeric(String)
      * @see com.taskapp.logic.TaskLogic#delete(int)
@@ -253,7 +263,9 @@ public class TaskUI {
                     System.out.println("コードは半角の数字で入力してください\n");
                     continue;
                 }
-                taskLogic.delete(Integer.parseInt(deleteTaskCode));
+                int code = Integer.parseInt(deleteTaskCode);
+                Task deleteTask = taskLogic.delete(code);
+                System.out.println(deleteTask.getName() + "の削除が完了しました。");
                 flg = false;
             } catch (IOException e)  {
                 e.printStackTrace();
@@ -0,0 +1,158 @@
+package com.taskapp.util;
+
+import java.util.Arrays;
+
+/**
+ * intをボクシングせずに保持するハッシュセットです。
+ * オープンアドレス法(線形探索)で配列に直接格納するため、追加・削除・検索でオブジェクトを生成しません。
+ * 削除時は後続の要素を詰め直すため、削除済みの印は残りません。
+ * スレッドセーフではありません。
+ */
+public class IntHashSet {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] table;
+    private int size;
+    private boolean containsEmptyKey;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 格納する予定の要素数
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * 値を追加します。
+     * @param value 追加する値
+     * @return 追加した場合はtrue、既に含まれていた場合はfalse
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsEmptyKey) return false;
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) return false;
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * 値を含むかを判定します。
+     * @param value 判定する値
+     * @return 含む場合はtrue
+     */
+    public boolean contains(int value) {
+        if (value == EMPTY) return containsEmptyKey;
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 値を削除します。
+     * @param value 削除する値
+     * @return 削除した場合はtrue、含まれていなかった場合はfalse
+     */
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            if (!containsEmptyKey) return false;
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                shiftBack(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 全ての値を配列で返します。順番は不定です。
+     * @return 値の配列
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        if (containsEmptyKey) values[i++] = EMPTY;
+        for (int value : table) {
+            if (value != EMPTY) values[i++] = value;
+        }
+        return values;
+    }
+
+    /**
+     * 削除した位置より後ろにある同じ探索列の要素を、空いた位置に詰め直します。
+     */
+    private void shiftBack(int removed) {
+        int mask = table.length - 1;
+        int gap = removed;
+        int index = (removed + 1) & mask;
+        while (table[index] != EMPTY) {
+            int home = hash(table[index]) & mask;
+            // homeからindexまでの探索列にgapが含まれていれば、gapへ移動できる
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                table[gap] = table[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for (int value : old) {
+            if (value == EMPTY) continue;
+            int index = hash(value) & mask;
+            while (table[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
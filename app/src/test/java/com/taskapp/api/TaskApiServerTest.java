@@ -0,0 +1,172 @@
+package com.taskapp.api;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskApiServerTest {
+    @Mock
+    private UserLogic userLogic;
+
+    @Mock
+    private TaskLogic taskLogic;
+
+    private TaskApiServer server;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final User user = new User(1, "John", "john@example.com", "password");
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(userLogic.authenticate("john@example.com", "password")).thenReturn(user);
+        server = new TaskApiServer(new InetSocketAddress("localhost", 0), userLogic, taskLogic);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testListUsesETag() throws Exception {
+        when(taskLogic.getDataVersion()).thenReturn(3L);
+        when(taskLogic.findAll()).thenReturn(List.of(new Task(1, "task\"A", 0, user)));
+
+        HttpResponse<String> first = client.send(request("/tasks").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(first.body()).isEqualTo(
+                "[{\"code\":1,\"name\":\"task\\\"A\",\"status\":0,\"repUserCode\":1,\"repUserName\":\"John\"}]");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> second = client.send(request("/tasks").header("If-None-Match", etag).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(second.statusCode()).isEqualTo(304);
+
+        // 同じバージョンの間は、ETagがなくてもタスクを読み込み直さない
+        client.send(request("/tasks").GET().build(), HttpResponse.BodyHandlers.ofString());
+        verify(taskLogic, times(1)).findAll();
+    }
+
+    @Test
+    public void testListETagChangesWithStorageStamp() throws Exception {
+        when(taskLogic.getDataVersion()).thenReturn(3L);
+        when(taskLogic.getStorageStamp()).thenReturn("10.100");
+        when(taskLogic.findAll()).thenReturn(List.of(new Task(1, "taskA", 0, user)));
+
+        HttpResponse<String> first = client.send(request("/tasks").GET().build(), HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        // 他のプロセスから保存先が変更された場合は、データのバージョンが同じでもETagが変わり、読み込み直す
+        when(taskLogic.getStorageStamp()).thenReturn("12.200");
+        HttpResponse<String> second = client.send(request("/tasks").header("If-None-Match", etag).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(second.headers().firstValue("ETag").orElseThrow()).isNotEqualTo(etag);
+        verify(taskLogic, times(2)).findAll();
+    }
+
+    @Test
+    public void testETagDiffersAfterRestart() throws Exception {
+        when(taskLogic.getDataVersion()).thenReturn(0L);
+        when(taskLogic.findAll()).thenReturn(List.of());
+
+        String etag = client.send(request("/tasks").GET().build(), HttpResponse.BodyHandlers.ofString())
+                .headers().firstValue("ETag").orElseThrow();
+        server.close();
+        server = new TaskApiServer(new InetSocketAddress("localhost", 0), userLogic, taskLogic);
+        server.start();
+
+        // 再起動してバージョンが0から数え直されても、前のプロセスのETagとは一致しない
+        HttpResponse<String> response = client.send(request("/tasks").header("If-None-Match", etag).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testCreateAndChangeStatus() throws Exception {
+        when(taskLogic.save("new", 1, user)).thenReturn(8);
+
+        HttpResponse<String> created = client.send(request("/tasks")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"new\",\"repUserCode\":1}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(created.statusCode()).isEqualTo(201);
+        assertThat(created.body()).isEqualTo("{\"code\":8}");
+
+        HttpResponse<String> changed = client.send(request("/tasks/8/status")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"status\": 1}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(changed.statusCode()).isEqualTo(204);
+        verify(taskLogic).changeStatus(8, 1, user);
+    }
+
+    @Test
+    public void testPathMustBeTasksExactly() throws Exception {
+        HttpResponse<String> response = client.send(request("/tasksXYZ").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(404);
+        verify(taskLogic, never()).findAll();
+    }
+
+    @Test
+    public void testInvalidJsonIsBadRequest() throws Exception {
+        HttpResponse<String> response = client.send(request("/tasks")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).startsWith("{\"error\":\"JSONの形式が正しくありません");
+    }
+
+    @Test
+    public void testRuntimeExceptionIsInternalServerError() throws Exception {
+        when(taskLogic.findAll()).thenThrow(new IllegalStateException("broken"));
+
+        HttpResponse<String> response = client.send(request("/tasks").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(response.body()).isEqualTo("{\"error\":\"サーバーでエラーが発生しました\"}");
+    }
+
+    @Test
+    public void testRequiresAuthentication() throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/tasks")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(401);
+        verify(taskLogic, never()).findAll();
+        verify(taskLogic, never()).save(any(String.class), anyInt(), any(User.class));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        String credentials = Base64.getEncoder()
+                .encodeToString("john@example.com:password".getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .header("Authorization", "Basic " + credentials);
+    }
+}
@@ -0,0 +1,79 @@
+package com.taskapp.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+
+public class AppConfigTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDefaults() throws Exception {
+        AppConfig config = AppConfig.load(tempDir.resolve("missing.properties"), Map.of());
+
+        assertThat(config.getTasksFile()).isEqualTo(Path.of("app/src/main/resources/tasks.csv").toString());
+        assertThat(config.getBufferSize()).isEqualTo(8192);
+        assertThat(config.getCharset()).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(config.getFsyncPolicy()).isEqualTo(AppConfig.FsyncPolicy.NEVER);
+        assertThat(config.getUserCacheSize()).isEqualTo(1024);
+        assertThat(config.isTaskIndexEnabled()).isFalse();
+    }
+
+    @Test
+    public void testEnvironmentOverridesFile() throws Exception {
+        Path file = tempDir.resolve("taskapp.properties");
+        Files.write(file, List.of("taskapp.data.dir=" + tempDir.toString().replace('\\', '/'),
+                "taskapp.io.buffer-size=65536", "taskapp.io.fsync=always"));
+
+        AppConfig config = AppConfig.load(file, Map.of("TASKAPP_IO_BUFFER_SIZE", "32768",
+                "TASKAPP_CACHE_TASK_NAMES_SIZE", "16"));
+
+        assertThat(config.getDataDirectory()).isEqualTo(tempDir);
+        assertThat(config.getBufferSize()).isEqualTo(32768);
+        assertThat(config.getFsyncPolicy()).isEqualTo(AppConfig.FsyncPolicy.ALWAYS);
+        assertThat(config.getTaskNameCacheSize()).isEqualTo(16);
+    }
+
+    @Test
+    public void testInvalidValues() {
+        assertThatThrownBy(() -> AppConfig.load(null, Map.of("TASKAPP_IO_CHARSET", "UTF-16")))
+                .isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> AppConfig.load(null, Map.of("TASKAPP_IO_FSYNC", "sometimes")))
+                .isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> AppConfig.load(null, Map.of("TASKAPP_IO_BUFFER_SIZE", "0")))
+                .isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> AppConfig.load(null, Map.of("TASKAPP_INDEX_TASKS_ENABLED", "yes")))
+                .isInstanceOf(AppException.class);
+    }
+
+    @Test
+    public void testDataAccessUsesConfiguredCharset() throws Exception {
+        Charset sjis = Charset.forName("Shift_JIS");
+        AppConfig config = AppConfig.load(null, Map.of("TASKAPP_DATA_DIR", tempDir.toString(),
+                "TASKAPP_IO_CHARSET", "Shift_JIS", "TASKAPP_IO_FSYNC", "always"));
+        Files.write(Path.of(config.getUsersFile()), List.of("Code,Name,Email,Password", "1,鈴木一郎,a@example.com,pw"), sjis);
+        Files.writeString(Path.of(config.getTasksFile()), "Code,Name,Status,Rep_User_Code");
+        UserDataAccess userDataAccess = new UserDataAccess(config.getUsersFile(), config);
+        TaskDataAccess taskDataAccess = new TaskDataAccess(config.getTasksFile(), userDataAccess, config);
+
+        taskDataAccess.save(new Task(1, "設計", 0, userDataAccess.findByCode(1)));
+
+        assertThat(Files.readAllLines(Path.of(config.getTasksFile()), sjis)).containsExactly(
+                "Code,Name,Status,Rep_User_Code", "1,設計,0,1");
+        assertThat(taskDataAccess.findAll().get(0).getRepUser().getName()).isEqualTo("鈴木一郎");
+    }
+}
@@ -0,0 +1,91 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.exception.StaleTaskException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class FixedWidthTaskDataAccessTest {
+    private static final String TEST_FILE_PATH = "src/test/resources/test_tasks.csv";
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path tempDir;
+
+    private UserDataAccess userDataAccess;
+    private TaskDataAccess csv;
+    private FixedWidthTaskDataAccess fixed;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Files.copy(Paths.get(TEST_FILE_PATH), tempDir.resolve("tasks.csv"));
+        AppConfig config = AppConfig.defaults().withDataDirectory(tempDir);
+        userDataAccess = new UserDataAccess(TEST_FILE_PATH_USER);
+        csv = new TaskDataAccess(config.getTasksFile(), userDataAccess, config);
+        fixed = new FixedWidthTaskDataAccess(config.getFixedWidthTasksFile(), userDataAccess, config);
+    }
+
+    @Test
+    public void testConvertFromCsv() throws Exception {
+        assertThat(fixed.convertFrom(csv)).isEqualTo(4);
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("tasks.fixed"));
+        assertThat(lines.get(0)).isEqualTo("#fixed-width code=10 name=40 status=1 rep_user_code=10 version=10");
+        assertThat(lines.subList(1, lines.size())).allSatisfy(
+                line -> assertThat(line).hasSize(FixedWidthTaskDataAccess.Layout.DEFAULT.recordLength() - 1));
+        assertThat(fixed.findAll()).isEqualTo(csv.findAll());
+        assertThat(fixed.findByCode(3).getStatus()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUpdateOverwritesRecordInPlace() throws Exception {
+        fixed.convertFrom(csv);
+        long size = Files.size(tempDir.resolve("tasks.fixed"));
+        Task task = fixed.findByCode(2);
+
+        fixed.update(new Task(2, task.getName(), 1, task.getRepUser(), task.getVersion()));
+
+        assertThat(Files.size(tempDir.resolve("tasks.fixed"))).isEqualTo(size);
+        assertThat(fixed.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(fixed.findByCode(2).getVersion()).isEqualTo(1);
+        assertThatThrownBy(() -> fixed.update(new Task(2, task.getName(), 2, task.getRepUser(), task.getVersion())))
+                .isInstanceOf(StaleTaskException.class);
+    }
+
+    @Test
+    public void testSaveDeleteAndConvertBack() throws Exception {
+        fixed.convertFrom(csv);
+        User repUser = userDataAccess.findByCode(1);
+
+        fixed.save(new Task(5, "設計", 0, repUser));
+        fixed.delete(3);
+
+        assertThat(fixed.findByCode(3)).isNull();
+        assertThatThrownBy(() -> fixed.update(new Task(3, "taskC", 2, repUser, 0)))
+                .isInstanceOf(StaleTaskException.class);
+        assertThat(fixed.findByCode(5).getName()).isEqualTo("設計");
+
+        assertThat(fixed.convertTo(csv)).isEqualTo(4);
+        assertThat(csv.findAll()).extracting(Task::getCode).containsExactly(1, 2, 4, 5);
+    }
+
+    @Test
+    public void testNameWiderThanLayoutIsRejected() throws Exception {
+        fixed.convertFrom(csv);
+        User repUser = userDataAccess.findByCode(1);
+
+        assertThatThrownBy(() -> fixed.save(new Task(5, "x".repeat(41), 0, repUser)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.model.Log;
+
+public class JdbcLogDataAccessTest {
+    private JdbcStorage storage;
+    private JdbcLogDataAccess logDataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        // テストごとに別のインメモリデータベースを使う
+        storage = new JdbcStorage("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        storage.createSchema();
+        logDataAccess = new JdbcLogDataAccess(storage);
+    }
+
+    @Test
+    public void testSaveAndFind() {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.parse("2024-01-10")));
+        logDataAccess.saveAll(List.of(
+                new Log(2, 2, 0, LocalDate.parse("2024-01-12")),
+                new Log(1, 2, 1, LocalDate.parse("2024-01-11"))));
+
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 1);
+        assertThat(logDataAccess.findByDateRange(LocalDate.parse("2024-01-11"), LocalDate.parse("2024-01-31")))
+                .extracting(Log::getTaskCode).containsExactly(1, 2);
+        assertThat(logDataAccess.findByChangeUser(2)).extracting(Log::getStatus).containsExactly(0, 1);
+    }
+
+    @Test
+    public void testDeleteByTaskCode() {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.parse("2024-01-10")));
+        logDataAccess.save(new Log(2, 1, 0, LocalDate.parse("2024-01-10")));
+        logDataAccess.save(new Log(1, 1, 1, LocalDate.parse("2024-01-11")));
+
+        logDataAccess.deleteByTaskCode(1);
+
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(2);
+    }
+
+    @Test
+    public void testFailureIsThrown() {
+        // テーブルを作成していないデータベースでは、SQLの実行に失敗する
+        JdbcLogDataAccess broken = new JdbcLogDataAccess(
+                new JdbcStorage("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+
+        assertThatThrownBy(() -> broken.save(new Log(1, 1, 0, LocalDate.parse("2024-01-10"))))
+                .isInstanceOf(DataAccessException.class);
+        assertThatThrownBy(() -> broken.findAll()).isInstanceOf(DataAccessException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.exception.StaleTaskException;
+import com.taskapp.model.Task;
+
+public class JdbcTaskDataAccessTest {
+    private static final String TEST_FILE_PATH = "src/test/resources/test_tasks.csv";
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+    private static final String TEST_FILE_PATH_LOG = "src/test/resources/test_logs.csv";
+
+    private JdbcTaskDataAccess taskDataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        // テストごとに別のインメモリデータベースを使う
+        JdbcStorage storage = new JdbcStorage("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        storage.createSchema();
+        UserDataAccess userDataAccess = new UserDataAccess(TEST_FILE_PATH_USER);
+        storage.importFrom(userDataAccess, new TaskDataAccess(TEST_FILE_PATH, userDataAccess),
+                new LogDataAccess(TEST_FILE_PATH_LOG));
+        taskDataAccess = new JdbcTaskDataAccess(storage);
+    }
+
+    @Test
+    public void testUpdateRejectsStaleVersion() {
+        Task first = taskDataAccess.findByCode(2);
+        Task second = taskDataAccess.findByCode(2);
+
+        taskDataAccess.update(new Task(2, "taskB", 1, first.getRepUser(), first.getVersion()));
+
+        assertThatThrownBy(() -> taskDataAccess.update(new Task(2, "taskB", 1, second.getRepUser(), second.getVersion())))
+                .isInstanceOfSatisfying(StaleTaskException.class,
+                        e -> assertThat(e.getActualVersion()).isEqualTo(1));
+        assertThat(taskDataAccess.findByCode(2).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateRejectsDeletedTask() {
+        Task read = taskDataAccess.findByCode(2);
+
+        taskDataAccess.delete(2);
+
+        assertThatThrownBy(() -> taskDataAccess.update(new Task(2, "taskB", 1, read.getRepUser(), read.getVersion())))
+                .isInstanceOfSatisfying(StaleTaskException.class,
+                        e -> assertThat(e.getActualVersion()).isEqualTo(StaleTaskException.DELETED));
+        assertThat(taskDataAccess.findByCode(2)).isNull();
+    }
+
+    @Test
+    public void testSaveDuplicateCodeIsThrown() {
+        Task existing = taskDataAccess.findByCode(1);
+
+        // 主キーの違反を成功として扱わない
+        assertThatThrownBy(() -> taskDataAccess.save(new Task(1, "dup", 0, existing.getRepUser())))
+                .isInstanceOf(DataAccessException.class);
+        assertThat(taskDataAccess.findByCode(1).getName()).isEqualTo("taskA");
+    }
+}
@@ -0,0 +1,52 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.exception.DataAccessException;
+import com.taskapp.model.User;
+
+public class JdbcUserDataAccessTest {
+    private static final String TEST_FILE_PATH = "src/test/resources/test_tasks.csv";
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+    private static final String TEST_FILE_PATH_LOG = "src/test/resources/test_logs.csv";
+
+    private JdbcUserDataAccess userDataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        // テストごとに別のインメモリデータベースを使う
+        JdbcStorage storage = new JdbcStorage("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        storage.createSchema();
+        UserDataAccess csvUsers = new UserDataAccess(TEST_FILE_PATH_USER);
+        storage.importFrom(csvUsers, new TaskDataAccess(TEST_FILE_PATH, csvUsers), new LogDataAccess(TEST_FILE_PATH_LOG));
+        userDataAccess = new JdbcUserDataAccess(storage);
+    }
+
+    @Test
+    public void testFindByEmailAndPassword() {
+        assertThat(userDataAccess.findByEmailAndPassword("test2@example.com", "password2"))
+                .isEqualTo(new User(2, "鈴木二郎", "test2@example.com", "password2"));
+        assertThat(userDataAccess.findByEmailAndPassword("test2@example.com", "wrong")).isNull();
+    }
+
+    @Test
+    public void testFindByCodeAndFindAll() {
+        assertThat(userDataAccess.findByCode(1).getName()).isEqualTo("鈴木一郎");
+        assertThat(userDataAccess.findByCode(9)).isNull();
+        assertThat(userDataAccess.findAll()).extracting(User::getCode).containsExactly(1, 2);
+    }
+
+    @Test
+    public void testFailureIsThrown() {
+        // テーブルを作成していないデータベースでは、SQLの実行に失敗する
+        JdbcUserDataAccess broken = new JdbcUserDataAccess(
+                new JdbcStorage("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+
+        assertThatThrownBy(() -> broken.findByCode(1)).isInstanceOf(DataAccessException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogCompactorTest {
+    @TempDir
+    Path tempDir;
+
+    private static final List<String> LINES = List.of(
+            "Task_Code,Change_User_Code,Status,Change_Date",
+            "3,1,0,2024-01-10",
+            "1,1,0,2024-01-10",
+            "2,1,0,2024-01-10",
+            "3,1,0,2024-01-10",
+            "3,2,1,2024-01-09",
+            "invalid",
+            "1,2,1,2024-01-11",
+            "1,1,0,2024-01-10");
+
+    @Test
+    public void testCompactKeepsFileOrder() throws Exception {
+        Path logs = Files.write(tempDir.resolve("logs.csv"), LINES);
+
+        // 一度に2行しかメモリに持たないため、一時ファイルへの書き出しとマージが行われる
+        LogCompactor.Result result = new LogCompactor(tempDir, 2).compact(logs, logs, code -> code != 2, false);
+
+        assertThat(Files.readAllLines(logs)).containsExactly(
+                "Task_Code,Change_User_Code,Status,Change_Date",
+                "3,1,0,2024-01-10",
+                "1,1,0,2024-01-10",
+                "3,2,1,2024-01-09",
+                "1,2,1,2024-01-11");
+        assertThat(result.read()).isEqualTo(8);
+        assertThat(result.removedDeleted()).isEqualTo(1);
+        assertThat(result.removedDuplicate()).isEqualTo(2);
+        assertThat(result.malformed()).isEqualTo(1);
+        assertThat(result.written()).isEqualTo(4);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(logs);
+        }
+    }
+
+    @Test
+    public void testCompactSortsByTaskAndDate() throws Exception {
+        Path logs = Files.write(tempDir.resolve("logs.csv"), LINES);
+        Path output = tempDir.resolve("sorted.csv");
+
+        new LogCompactor(tempDir, 3).compact(logs, output, code -> true, true);
+
+        assertThat(Files.readAllLines(output)).containsExactly(
+                "Task_Code,Change_User_Code,Status,Change_Date",
+                "1,1,0,2024-01-10",
+                "1,2,1,2024-01-11",
+                "2,1,0,2024-01-10",
+                "3,2,1,2024-01-09",
+                "3,1,0,2024-01-10");
+    }
+}
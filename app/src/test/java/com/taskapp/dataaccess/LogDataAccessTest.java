@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import com.taskapp.model.Log;
+import com.taskapp.model.LogTable;
 
 public class LogDataAccessTest {
     private static final String TEST_FILE_PATH = "src/test/resources/test_logs.csv";
@@ -67,6 +68,31 @@ public class LogDataAccessTest {
         assertThat(actuaList).isEqualTo(expectedList);
     }
 
+    @Test
+    public void testLoadTable() {
+        LogTable table = logDataAccess.loadTable();
+        List<Log> expectedList = readLogsFromFile(TEST_FILE_PATH);
+
+        assertThat(table.size()).isEqualTo(expectedList.size());
+        assertThat(table.get(4).changeDate()).isEqualTo(LocalDate.of(2024, 1, 11));
+        assertThat(table.toLogs()).isEqualTo(expectedList);
+    }
+
+    @Test
+    public void testFindByDateRangeAndChangeUser() {
+        assertThat(logDataAccess.findByDateRange(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 12)))
+                .extracting(Log::getStatus).containsExactly(1, 2);
+        assertThat(logDataAccess.findByChangeUser(2)).extracting(Log::getTaskCode).containsExactly(3, 3, 4);
+
+        // 保存したログは、ファイルを読み直さずに索引に追加される
+        logDataAccess.save(new Log(1, 2, 1, LocalDate.of(2024, 1, 11)));
+
+        assertThat(logDataAccess.findByDateRange(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 11)))
+                .extracting(Log::getTaskCode).containsExactly(3, 1);
+        assertThat(logDataAccess.findByChangeUser(2)).extracting(Log::getTaskCode).containsExactly(3, 3, 4, 1);
+        assertThat(logDataAccess.findByChangeUser(9)).isEmpty();
+    }
+
     @Tag("Q5")
     @Test
     public void testDeleteByTaskCode() {
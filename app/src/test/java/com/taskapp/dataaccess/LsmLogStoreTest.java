@@ -0,0 +1,106 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.model.Log;
+import com.taskapp.model.LogRow;
+
+public class LsmLogStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRangeAcrossMemtableAndRuns() throws Exception {
+        try (LsmLogStore store = new LsmLogStore(tempDir, 2, 10)) {
+            store.append(new LogRow(4, 1, 0, day("2024-01-10")));
+            store.append(new LogRow(4, 1, 1, day("2023-12-31")));
+            store.append(new LogRow(5, 1, 0, day("2024-01-15")));
+            store.append(new LogRow(4, 2, 2, day("2024-01-20")));
+            store.append(new LogRow(4, 2, 0, day("2024-02-01")));
+
+            assertThat(store.runCount()).isEqualTo(2);
+            assertThat(store.range(4, day("2024-01-01"), day("2024-01-31")))
+                    .extracting(LogRow::status).containsExactly(0, 2);
+            assertThat(store.scan()).extracting(LogRow::taskCode).containsExactly(4, 4, 4, 4, 5);
+        }
+    }
+
+    @Test
+    public void testDeleteSurvivesMergeAndReopen() throws Exception {
+        try (LsmLogStore store = new LsmLogStore(tempDir, 2, 10)) {
+            store.append(new LogRow(1, 1, 0, day("2024-01-01")));
+            store.append(new LogRow(2, 1, 0, day("2024-01-01")));
+            store.append(new LogRow(1, 1, 1, day("2024-01-02")));
+            store.deleteTask(1);
+            store.append(new LogRow(1, 2, 0, day("2024-01-03")));
+        }
+        try (LsmLogStore store = new LsmLogStore(tempDir, 2, 10)) {
+            assertThat(store.scan()).containsExactly(
+                    new LogRow(1, 2, 0, day("2024-01-03")),
+                    new LogRow(2, 1, 0, day("2024-01-01")));
+            store.compact();
+            assertThat(store.runCount()).isEqualTo(1);
+            assertThat(store.range(1, day("2024-01-01"), day("2024-01-31")))
+                    .containsExactly(new LogRow(1, 2, 0, day("2024-01-03")));
+        }
+    }
+
+    @Test
+    public void testLogRepository() throws Exception {
+        try (LsmLogStore store = new LsmLogStore(tempDir)) {
+            LsmLogDataAccess logDataAccess = new LsmLogDataAccess(store);
+            logDataAccess.saveAll(List.of(
+                    new Log(3, 1, 0, LocalDate.parse("2024-01-05")),
+                    new Log(1, 1, 0, LocalDate.parse("2024-01-06"))));
+            logDataAccess.save(new Log(3, 1, 1, LocalDate.parse("2024-03-01")));
+            logDataAccess.deleteByTaskCode(1);
+
+            assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(3, 3);
+            assertThat(logDataAccess.findByTaskCode(3, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-31")))
+                    .extracting(Log::getStatus).containsExactly(0);
+        }
+    }
+
+    @Test
+    public void testWalIsWrittenBeforeAppendReturnsWhenFsyncIsAlways() throws Exception {
+        AppConfig config = AppConfig.load(null, Map.of("TASKAPP_IO_FSYNC", "always"));
+        try (LsmLogStore store = new LsmLogStore(tempDir, 100, 10, config)) {
+            store.append(new LogRow(1, 1, 0, day("2024-01-01")));
+            // 種別1バイト・タスクコード・変更日・通し番号・変更者・ステータスの25バイト
+            assertThat(Files.size(tempDir.resolve("wal.log"))).isEqualTo(25);
+            store.deleteTask(1);
+            store.append(new LogRow(2, 1, 0, day("2024-01-02")));
+        }
+        try (LsmLogStore store = new LsmLogStore(tempDir, 100, 10, config)) {
+            assertThat(store.scan()).containsExactly(new LogRow(2, 1, 0, day("2024-01-02")));
+        }
+    }
+
+    @Test
+    public void testIsCreatedOnlyForNewDirectory() throws Exception {
+        try (LsmLogStore store = new LsmLogStore(tempDir, 2, 10)) {
+            assertThat(store.isCreated()).isTrue();
+            store.append(new LogRow(1, 1, 0, day("2024-01-01")));
+            store.deleteTask(1);
+        }
+        try (LsmLogStore store = new LsmLogStore(tempDir, 2, 10)) {
+            // 全てのログを削除したストアは空だが、新しく作成したストアではない
+            assertThat(store.isEmpty()).isTrue();
+            assertThat(store.isCreated()).isFalse();
+        }
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
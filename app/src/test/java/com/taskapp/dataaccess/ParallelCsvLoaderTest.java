@@ -0,0 +1,135 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelCsvLoaderTest {
+    private static final String HEADER = "Code,Name,Status,Rep_User_Code";
+
+    // 1つの範囲は1MB以上のため、分割されるよう数MBのファイルを作る
+    private static final int ROWS = 100_000;
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSplitsAtLineBoundaries() throws Exception {
+        Path path = write("tasks.csv", "\n", true, StandardCharsets.UTF_8);
+        assertThat(Files.size(path)).isGreaterThan(3L << 20);
+
+        List<String> lines = new ParallelCsvLoader(pool).load(path, line -> line);
+
+        // 行の途中で分割されていれば、列の数が合わない行や番号の抜けた行ができる
+        assertThat(lines).hasSize(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            assertThat(lines.get(i)).isEqualTo(row(i + 1));
+        }
+    }
+
+    @Test
+    public void testCrlfLineEndings() throws Exception {
+        Path path = write("tasks.csv", "\r\n", true, StandardCharsets.UTF_8);
+
+        List<String> lines = new ParallelCsvLoader(pool).load(path, line -> line);
+
+        assertThat(lines).hasSize(ROWS).noneMatch(line -> line.endsWith("\r"));
+        assertThat(lines.get(ROWS - 1)).isEqualTo(row(ROWS));
+    }
+
+    @Test
+    public void testMultiByteNamesStraddlingSplit() throws Exception {
+        Path path = write("tasks.csv", "\n", true, StandardCharsets.UTF_8);
+        byte[] bytes = Files.readAllBytes(path);
+        int start = HEADER.length() + 1;
+        // 最初の分割位置(1MB先)が、3バイトの文字の途中になっている
+        assertThat(bytes[start + (1 << 20)] & 0xC0).isEqualTo(0x80);
+
+        List<String> lines = new ParallelCsvLoader(pool).load(path, line -> line);
+
+        assertThat(lines).hasSize(ROWS).doesNotContain("").allMatch(line -> !line.contains("\uFFFD"));
+        assertThat(lines).isEqualTo(readSequentially(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMissingTrailingNewline() throws Exception {
+        Path path = write("tasks.csv", "\n", false, StandardCharsets.UTF_8);
+
+        List<String> lines = new ParallelCsvLoader(pool).load(path, line -> line);
+
+        assertThat(lines).hasSize(ROWS);
+        assertThat(lines.get(ROWS - 1)).isEqualTo(row(ROWS));
+    }
+
+    @Test
+    public void testMatchesSequentialReader() throws Exception {
+        Charset sjis = Charset.forName("Shift_JIS");
+        Path path = write("tasks.csv", "\r\n", false, sjis);
+
+        // 解析結果がnullの行は含めない
+        List<String> lines = new ParallelCsvLoader(pool, sjis)
+                .load(path, line -> line.endsWith(",2") ? null : line);
+
+        List<String> expected = readSequentially(path, sjis).stream().filter(line -> !line.endsWith(",2")).toList();
+        assertThat(lines).isEqualTo(expected);
+    }
+
+    @Test
+    public void testHeaderOnly() throws Exception {
+        Path path = tempDir.resolve("tasks.csv");
+        Files.writeString(path, HEADER);
+
+        assertThat(new ParallelCsvLoader(pool).load(path, line -> line)).isEmpty();
+    }
+
+    private Path write(String fileName, String newline, boolean trailingNewline, Charset charset) throws Exception {
+        StringBuilder sb = new StringBuilder(ROWS * 48).append(HEADER);
+        for (int i = 1; i <= ROWS; i++) {
+            sb.append(newline).append(row(i));
+        }
+        if (trailingNewline) sb.append(newline);
+        Path path = tempDir.resolve(fileName);
+        Files.writeString(path, sb, charset);
+        return path;
+    }
+
+    private static String row(int code) {
+        return code + ",設計レビュー対応" + code + "," + (code % 3) + "," + (code % 5 == 0 ? 2 : 1);
+    }
+
+    private static List<String> readSequentially(Path path, Charset charset) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, charset)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
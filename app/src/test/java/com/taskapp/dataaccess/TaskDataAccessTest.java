@@ -9,14 +9,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.taskapp.config.AppConfig;
+import com.taskapp.exception.StaleTaskException;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
@@ -72,6 +78,14 @@ public class TaskDataAccessTest {
         assertThat(actualList).isEqualTo(expectedList);
     }
 
+    @Test
+    public void testFindAllSharesRepUser() {
+        List<Task> actualList = taskDataAccess.findAll();
+
+        assertThat(actualList.get(1).getRepUser()).isSameAs(actualList.get(2).getRepUser());
+        assertThat(actualList.get(2).getRepUser()).isSameAs(actualList.get(3).getRepUser());
+    }
+
     @Tag("Q4")
     @Test
     public void testFindByCode() {
@@ -109,6 +123,117 @@ public class TaskDataAccessTest {
         assertThat(tasks).contains(updatedTask);
     }
 
+    @Test
+    public void testUpdateRejectsStaleVersion() {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        taskDataAccess.save(new Task(5, "Task 5", 0, repUser));
+        Task first = taskDataAccess.findByCode(5);
+        Task second = taskDataAccess.findByCode(5);
+
+        taskDataAccess.update(new Task(5, "Task 5", 1, repUser, first.getVersion()));
+
+        assertThatThrownBy(() -> taskDataAccess.update(new Task(5, "Task 5", 1, repUser, second.getVersion())))
+                .isInstanceOf(StaleTaskException.class);
+        Task current = taskDataAccess.findByCode(5);
+        assertThat(current.getStatus()).isEqualTo(1);
+        assertThat(current.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateRejectsDeletedTask() {
+        Task read = taskDataAccess.findByCode(2);
+
+        taskDataAccess.delete(2);
+
+        assertThatThrownBy(() -> taskDataAccess.update(new Task(2, "taskB", 1, read.getRepUser(), read.getVersion())))
+                .isInstanceOfSatisfying(StaleTaskException.class,
+                        e -> assertThat(e.getActualVersion()).isEqualTo(StaleTaskException.DELETED));
+        assertThat(taskDataAccess.findByCode(2)).isNull();
+    }
+
+    @Test
+    public void testFindByCodeSkipsHalfAppendedLines() throws IOException {
+        // 追記の途中で読み込んだ場合の、空の行と列が足りない行
+        Files.writeString(Paths.get(TEST_FILE_PATH), "\n\n5,Ta", StandardOpenOption.APPEND);
+
+        assertThat(taskDataAccess.findByCode(4).getName()).isEqualTo("taskD");
+        assertThat(taskDataAccess.findByCode(5)).isNull();
+    }
+
+    @Test
+    public void testAsyncOperations() {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        taskDataAccess.saveAsync(new Task(5, "Task 5", 0, repUser)).join();
+        Task saved = taskDataAccess.findByCodeAsync(5).join();
+
+        taskDataAccess.updateAsync(new Task(5, "Task 5", 1, repUser, saved.getVersion())).join();
+
+        assertThat(taskDataAccess.findAllAsync().join()).extracting(Task::getCode).contains(5);
+        assertThat(taskDataAccess.findByCode(5).getStatus()).isEqualTo(1);
+        assertThatThrownBy(() -> taskDataAccess.updateAsync(new Task(5, "Task 5", 2, repUser, saved.getVersion())).join())
+                .isInstanceOf(CompletionException.class).hasCauseInstanceOf(StaleTaskException.class);
+    }
+
+    @Test
+    public void testIndexedOperations(@TempDir Path tempDir) throws Exception {
+        Files.copy(Paths.get(TEST_FILE_PATH), tempDir.resolve("tasks.csv"));
+        AppConfig config = AppConfig.load(null, Map.of("TASKAPP_INDEX_TASKS_ENABLED", "true"))
+                .withDataDirectory(tempDir);
+        TaskDataAccess indexed = new TaskDataAccess(config.getTasksFile(), userDataAccess, config);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+        indexed.save(new Task(5, "Task 5", 0, repUser));
+        indexed.update(new Task(2, "taskB", 1, userDataAccess.findByCode(2), 0));
+        indexed.delete(3);
+
+        assertThat(Files.exists(tempDir.resolve("tasks.csv.idx"))).isTrue();
+        assertThat(indexed.findByCode(2).getVersion()).isEqualTo(1);
+        assertThat(indexed.findByCode(3)).isNull();
+        assertThat(indexed.findByCode(5)).isEqualTo(new Task(5, "Task 5", 0, repUser));
+        assertThatThrownBy(() -> indexed.update(new Task(3, "taskC", 1, repUser, 0)))
+                .isInstanceOf(StaleTaskException.class);
+        assertThat(indexed.findAll()).isEqualTo(readTasksFromFile(config.getTasksFile()));
+
+        // 索引を使わずに書き換えたCSVは、次に索引を使うときに作り直される
+        new TaskDataAccess(config.getTasksFile(), userDataAccess).save(new Task(6, "Task 6", 2, repUser));
+        assertThat(indexed.findByCode(6)).isEqualTo(new Task(6, "Task 6", 2, repUser));
+        assertThat(indexed.findByCode(4).getName()).isEqualTo("taskD");
+    }
+
+    @Test
+    public void testSaveWithoutIndexKeepsFourColumns(@TempDir Path tempDir) throws Exception {
+        Files.copy(Paths.get(TEST_FILE_PATH), tempDir.resolve("tasks.csv"));
+        TaskDataAccess plain = new TaskDataAccess(tempDir.resolve("tasks.csv").toString(), userDataAccess);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+        // 索引を使わない場合は、更新されていないタスクの行をヘッダーと同じ4列のまま書き込む
+        plain.save(new Task(5, "Task 5", 0, repUser));
+        plain.update(new Task(1, "taskA", 1, repUser, 0));
+
+        assertThat(Files.readAllLines(tempDir.resolve("tasks.csv")))
+                .contains("1,taskA,1,1,1", "5,Task 5,0,1")
+                .doesNotContain("5,Task 5,0,1,0");
+    }
+
+    @Test
+    public void testStatusChangeKeepsRowLength(@TempDir Path tempDir) throws Exception {
+        Files.copy(Paths.get(TEST_FILE_PATH), tempDir.resolve("tasks.csv"));
+        AppConfig config = AppConfig.load(null, Map.of("TASKAPP_INDEX_TASKS_ENABLED", "true"))
+                .withDataDirectory(tempDir);
+        TaskDataAccess indexed = new TaskDataAccess(config.getTasksFile(), userDataAccess, config);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        indexed.save(new Task(5, "Task 5", 0, repUser));
+        indexed.save(new Task(6, "Task 6", 0, repUser));
+        long size = Files.size(tempDir.resolve("tasks.csv"));
+
+        // 新しい行はバージョン0も書き込むため、ステータスの変更で行の長さが変わらない
+        indexed.update(new Task(5, "Task 5", 1, repUser, 0));
+
+        assertThat(Files.size(tempDir.resolve("tasks.csv"))).isEqualTo(size);
+        assertThat(Files.readAllLines(tempDir.resolve("tasks.csv"))).endsWith("5,Task 5,1,1,1", "6,Task 6,0,1,0");
+        assertThat(indexed.findByCode(6).getStatus()).isZero();
+    }
+
     @Tag("Q5")
     @Test
     public void testDelete() {
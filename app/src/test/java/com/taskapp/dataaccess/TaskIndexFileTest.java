@@ -0,0 +1,81 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TaskIndexFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPutFindRemoveAcrossSplits() throws Exception {
+        // 64バイトの頁は葉に3件・内部の頁に6件しか入らないため、少ない件数で何段も分割される
+        TaskIndexFile index = new TaskIndexFile(tempDir.resolve("tasks.csv.idx"), 4, 64);
+        Map<Integer, Long> expected = new TreeMap<>();
+        index.rebuild(sink -> {
+            for (int code = 1; code <= 500; code++) {
+                sink.accept(code, code * 100L, 10);
+                expected.put(code, code * 100L);
+            }
+        }, new FileStamp(1, 1, 1));
+
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            int code = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertThat(index.put(code, i, 10)).isEqualTo(expected.containsKey(code));
+                expected.put(code, (long) i);
+            } else {
+                assertThat(index.remove(code)).isEqualTo(expected.remove(code) != null);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (int code = 0; code < 2000; code++) {
+            TaskIndexFile.Location location = index.find(code);
+            if (expected.containsKey(code)) {
+                assertThat(location.offset()).isEqualTo(expected.get(code));
+            } else {
+                assertThat(location).isNull();
+            }
+        }
+    }
+
+    @Test
+    public void testShiftAndReopen() throws Exception {
+        Path path = tempDir.resolve("tasks.csv.idx");
+        TaskIndexFile index = new TaskIndexFile(path, 4, 64);
+        index.rebuild(sink -> {
+            for (int code = 1; code <= 100; code++) {
+                sink.accept(code, code * 100L, 10);
+            }
+        }, new FileStamp(1, 1, 1));
+
+        index.shift(5000, -7);
+        index.commit(new FileStamp(2, 2, 3));
+
+        TaskIndexFile reopened = new TaskIndexFile(path, 4, 64);
+        assertThat(reopened.isCurrent(new FileStamp(1, 1, 1))).isFalse();
+        assertThat(reopened.isCurrent(new FileStamp(2, 2, 4))).isFalse();
+        assertThat(reopened.isCurrent(new FileStamp(2, 2, 3))).isTrue();
+        assertThat(reopened.find(50).offset()).isEqualTo(5000);
+        assertThat(reopened.find(51).offset()).isEqualTo(5093);
+        assertThat(reopened.hasDuplicates()).isFalse();
+    }
+
+    @Test
+    public void testBrokenFileIsNotCurrent() throws Exception {
+        Path path = tempDir.resolve("tasks.csv.idx");
+        Files.write(path, new byte[] { 1, 2, 3 });
+
+        assertThat(new TaskIndexFile(path, 4).isCurrent(new FileStamp(0, 0, 0))).isFalse();
+    }
+}
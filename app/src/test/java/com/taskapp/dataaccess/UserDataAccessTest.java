@@ -35,4 +35,22 @@ public class UserDataAccessTest {
 
         assertThat(actualUser).isEqualToComparingFieldByField(expectedUser);
     }
+
+    @Test
+    public void testFindByCodeUsesCache() {
+        User first = userDataAccess.findByCode(2);
+        User second = userDataAccess.findByCode(2);
+
+        assertThat(second).isSameAs(first);
+        assertThat(userDataAccess.cacheStats().misses()).isEqualTo(1);
+        assertThat(userDataAccess.cacheStats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindByCodeCachesMissingUser() {
+        assertThat(userDataAccess.findByCode(99)).isNull();
+        assertThat(userDataAccess.findByCode(99)).isNull();
+
+        assertThat(userDataAccess.cacheStats().hits()).isEqualTo(1);
+    }
 }
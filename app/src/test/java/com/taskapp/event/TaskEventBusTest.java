@@ -0,0 +1,101 @@
+package com.taskapp.event;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskEventBusTest {
+
+    @Test
+    public void testPublishDeliversInOrder() throws InterruptedException {
+        TaskEventBus eventBus = new TaskEventBus();
+        List<TaskEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        try (TaskEventBus.Subscription subscription = eventBus.subscribe(e -> {
+            received.add(e);
+            latch.countDown();
+        })) {
+            eventBus.publish(new TaskEvent.TaskCreated(1, "Task 1", 2, 1, LocalDate.of(2024, 1, 10)));
+            eventBus.publish(new TaskEvent.StatusChanged(1, 0, 1, 1, LocalDate.of(2024, 1, 11)));
+            eventBus.publish(new TaskEvent.TaskDeleted(1));
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(subscription.getDroppedCount()).isZero();
+        }
+
+        assertThat(received).extracting(TaskEvent::code).containsExactly(1, 1, 1);
+        assertThat(received.get(0)).isInstanceOf(TaskEvent.TaskCreated.class);
+        assertThat(received.get(1)).isInstanceOf(TaskEvent.StatusChanged.class);
+        assertThat(received.get(2)).isInstanceOf(TaskEvent.TaskDeleted.class);
+    }
+
+    @Test
+    public void testPublishDropsWhenBufferIsFull() throws InterruptedException {
+        TaskEventBus eventBus = new TaskEventBus();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TaskEventBus.Subscription subscription = eventBus.subscribe(e -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1);
+        eventBus.publish(new TaskEvent.TaskDeleted(1));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        eventBus.publish(new TaskEvent.TaskDeleted(2));
+        eventBus.publish(new TaskEvent.TaskDeleted(3));
+
+        assertThat(subscription.getDroppedCount()).isEqualTo(1);
+        release.countDown();
+        subscription.close();
+        assertThat(subscription.getDeliveredCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOverflowIsNotifiedBeforeLaterEvents() throws InterruptedException {
+        TaskEventBus eventBus = new TaskEventBus();
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch overflowed = new CountDownLatch(1);
+
+        TaskEventBus.Subscription subscription = eventBus.subscribe(e -> {
+            received.add("event:" + e.code());
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, dropped -> {
+            received.add("overflow:" + dropped);
+            overflowed.countDown();
+        }, 1);
+        eventBus.publish(new TaskEvent.TaskDeleted(1));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        eventBus.publish(new TaskEvent.TaskDeleted(2));
+        eventBus.publish(new TaskEvent.TaskDeleted(3));
+        eventBus.publish(new TaskEvent.TaskDeleted(4));
+        release.countDown();
+        // 破棄の後にイベントが発行されていなくても通知が届く
+        assertThat(overflowed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        eventBus.publish(new TaskEvent.TaskDeleted(5));
+        subscription.close();
+
+        assertThat(received).containsExactly("event:1", "event:2", "overflow:2", "event:5");
+        assertThat(subscription.getDroppedCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,54 @@
+package com.taskapp.load;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.exception.AppException;
+import com.taskapp.load.LoadGenerator.Operation;
+
+public class LoadGeneratorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentSessionsKeepDataConsistent() throws Exception {
+        LoadGenerator generator = new LoadGenerator(tempDir, AppConfig.defaults(), 4,
+                LoadGenerator.parseMix("list=10,create=30,change=45,delete=15"), 42);
+
+        LoadGenerator.Result result = generator.run(0, 200);
+
+        assertThat(result.totalOperations()).isEqualTo(800);
+        assertThat(result.totalErrors()).isZero();
+        assertThat(result.errorMessages()).isEmpty();
+        assertThat(result.violations()).isEmpty();
+        assertThat(result.stats().get(Operation.CREATE).ok()).isPositive();
+        assertThat(result.stats().get(Operation.CHANGE).ok()).isPositive();
+    }
+
+    @Test
+    public void testParseMix() throws Exception {
+        assertThat(LoadGenerator.parseMix("login=1, create=3")).isEqualTo(Map.of(Operation.LOGIN, 1, Operation.CREATE, 3));
+        assertThatThrownBy(() -> LoadGenerator.parseMix("update=1")).isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> LoadGenerator.parseMix("list=0")).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1_000_000);
+        assertThat(histogram.percentile(0.50)).isBetween(500_000L, 508_000L);
+        assertThat(histogram.percentile(0.99)).isBetween(990_000L, 1_000_000L);
+        assertThat(histogram.percentile(0.999)).isBetween(999_000L, 1_000_000L);
+        assertThat(histogram.percentile(1.0)).isEqualTo(1_000_000L);
+    }
+}
@@ -0,0 +1,66 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.User;
+
+public class ShardRouterTest {
+    @TempDir
+    Path tempDir;
+
+    private ShardRouter router;
+
+    private final User user = new User(1, "John", "john@example.com", "password");
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path usersPath = tempDir.resolve("users.csv");
+        Files.write(usersPath, List.of("Code,Name,Email,Password", "1,John,john@example.com,password"));
+        router = new ShardRouter(tempDir.resolve("projects"), usersPath.toString());
+    }
+
+    @Test
+    public void testShardCreatesDirectoryOnce() throws Exception {
+        ShardRouter.Shard shard = router.shard("alpha");
+
+        assertThat(shard.directory()).isEqualTo(tempDir.resolve("projects/alpha"));
+        assertThat(Files.readString(shard.directory().resolve("tasks.csv"))).isEqualTo("Code,Name,Status,Rep_User_Code");
+        assertThat(Files.readString(shard.directory().resolve("logs.csv")))
+                .isEqualTo("Task_Code,Change_User_Code,Status,Change_Date");
+        assertThat(router.shard("alpha")).isSameAs(shard);
+        assertThat(router.projects()).containsExactly("alpha");
+    }
+
+    @Test
+    public void testProjectsAreIsolated() throws Exception {
+        ShardRouter.Shard alpha = router.shard("alpha");
+        ShardRouter.Shard beta = router.shard("beta");
+
+        alpha.taskLogic().save(1, "設計", 1, user);
+        beta.taskLogic().save(1, "テスト", 1, user);
+        beta.taskLogic().save(2, "リリース", 1, user);
+
+        assertThat(alpha.taskLogic().findAll()).extracting(t -> t.getName()).containsExactly("設計");
+        assertThat(beta.taskLogic().findAll()).extracting(t -> t.getName()).containsExactly("テスト", "リリース");
+        assertThat(alpha.logDataAccess().findAll()).hasSize(1);
+        assertThat(beta.logDataAccess().findAll()).hasSize(2);
+        assertThat(router.projects()).containsExactly("alpha", "beta");
+    }
+
+    @Test
+    public void testInvalidProjectName() {
+        assertThatThrownBy(() -> router.shard("../etc")).isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> router.shard("")).isInstanceOf(AppException.class);
+        assertThatThrownBy(() -> router.shard(null)).isInstanceOf(AppException.class);
+        assertThat(router.projects()).isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.event.TaskEventBus;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskImporterTest {
+    @Mock
+    private TaskRepository taskDataAccess;
+    @Mock
+    private LogRepository logDataAccess;
+    @Mock
+    private UserRepository userDataAccess;
+
+    @TempDir
+    Path tempDir;
+
+    private TaskImporter taskImporter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        taskImporter = new TaskImporter(taskDataAccess, logDataAccess, userDataAccess, new TaskEventBus());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testImportTasks() throws IOException {
+        User alice = new User(2, "Alice", "", "");
+        when(userDataAccess.findAll()).thenReturn(List.of(alice));
+        when(taskDataAccess.findAll()).thenReturn(List.of(new Task(1, "Task 1", 0, alice)));
+
+        Path input = tempDir.resolve("input.csv");
+        Files.writeString(input, String.join("\n",
+                "Code,Name,Rep_User_Code",
+                "2,Task 2,2",
+                "1,Task 1,2",
+                "3,Task 3 is too long,2",
+                "4,Task 4,9",
+                "5,Task 5,2"));
+        Path rejects = tempDir.resolve("rejects.csv");
+
+        TaskImporter.Result result = taskImporter.importTasks(input, rejects, new User(1, "John", "", ""));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(3);
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskDataAccess).saveAll(tasks.capture());
+        assertThat(tasks.getValue()).extracting(Task::getCode).containsExactly(2, 5);
+
+        ArgumentCaptor<List<Log>> logs = ArgumentCaptor.forClass(List.class);
+        verify(logDataAccess).saveAll(logs.capture());
+        assertThat(logs.getValue()).extracting(Log::getChangeUserCode).containsExactly(1, 1);
+
+        assertThat(Files.readAllLines(rejects)).hasSize(4);
+    }
+}
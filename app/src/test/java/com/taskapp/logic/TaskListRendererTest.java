@@ -0,0 +1,69 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskListRendererTest {
+    private final User loginUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    private final User otherUser = new User(2, "田中花子", "test2@example.com", "password2");
+
+    @Test
+    public void testPlain() throws Exception {
+        List<Task> tasks = List.of(new Task(1, "設計", 0, loginUser), new Task(2, "実装", 1, otherUser),
+                new Task(3, "試験", 2, otherUser));
+
+        assertThat(render(TaskListRenderer.Format.PLAIN, tasks)).isEqualTo(
+                "1. タスク名：設計, 担当者名：あなたが担当しています, ステータス：未着手\n"
+                        + "2. タスク名：実装, 担当者名：田中花子が担当しています, ステータス：着手中\n"
+                        + "3. タスク名：試験, 担当者名：田中花子が担当しています, ステータス：完了\n");
+    }
+
+    @Test
+    public void testTsvAndJsonLines() throws Exception {
+        List<Task> tasks = List.of(new Task(1, "a\t\"b\"", 1, loginUser), new Task(2, "c", 0, null));
+
+        assertThat(render(TaskListRenderer.Format.TSV, tasks)).isEqualTo(
+                "code\tname\tstatus\tstatus_label\trep_user_code\trep_user_name\n"
+                        + "1\ta\\t\"b\"\t1\t着手中\t1\t鈴木一郎\n"
+                        + "2\tc\t0\t未着手\t\t\n");
+        assertThat(render(TaskListRenderer.Format.JSONL, tasks)).isEqualTo(
+                "{\"code\":1,\"name\":\"a\\t\\\"b\\\"\",\"status\":1,\"statusLabel\":\"着手中\",\"repUserCode\":1,\"repUserName\":\"鈴木一郎\"}\n"
+                        + "{\"code\":2,\"name\":\"c\",\"status\":0,\"statusLabel\":\"未着手\",\"repUserCode\":null,\"repUserName\":null}\n");
+    }
+
+    @Test
+    public void testLargeListIsWrittenInChunks() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Task(i, "タスク" + i, i % 3, i % 2 == 0 ? loginUser : otherUser));
+        }
+
+        String output = render(TaskListRenderer.Format.PLAIN, tasks);
+
+        assertThat(output.lines()).hasSize(5000);
+        assertThat(output.lines().skip(4999).findFirst()).hasValue(
+                "4999. タスク名：タスク4999, 担当者名：田中花子が担当しています, ステータス：着手中");
+    }
+
+    @Test
+    public void testParseFormat() throws Exception {
+        assertThat(TaskListRenderer.Format.parse("jsonl")).isEqualTo(TaskListRenderer.Format.JSONL);
+        assertThatThrownBy(() -> TaskListRenderer.Format.parse("csv")).isInstanceOf(AppException.class);
+    }
+
+    private String render(TaskListRenderer.Format format, List<Task> tasks) throws Exception {
+        StringWriter out = new StringWriter();
+        new TaskListRenderer(format, loginUser, "\n").render(tasks, out);
+        return out.toString();
+    }
+}
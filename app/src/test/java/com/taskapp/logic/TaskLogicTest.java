@@ -17,6 +17,7 @@ import com.taskapp.dataaccess.LogDataAccess;
 import com.taskapp.dataaccess.TaskDataAccess;
 import com.taskapp.dataaccess.UserDataAccess;
 import com.taskapp.exception.AppException;
+import com.taskapp.exception.StaleTaskException;
 import com.taskapp.model.Log;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
@@ -82,6 +83,48 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testSaveRejectsDuplicateCode() {
+        User repUser = new User(2, "Alice", "", "");
+        when(userDataAccess.findByCode(2)).thenReturn(repUser);
+        when(taskDataAccess.findAll()).thenReturn(List.of(new Task(1, "Task 1", 0, repUser)));
+
+        assertThatThrownBy(() -> taskLogic.save(1, "Task 1", 2, new User(1, "John", "", "")))
+                .isInstanceOf(AppException.class);
+        verify(taskDataAccess, never()).save(any(Task.class));
+        assertThat(taskLogic.nextFreeCode()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSaveReleasesCodeWhenTaskSaveFails() throws AppException {
+        User repUser = new User(2, "Alice", "", "");
+        User loginUser = new User(1, "John", "", "");
+        when(userDataAccess.findByCode(2)).thenReturn(repUser);
+        doThrow(new IllegalStateException("disk full")).doNothing().when(taskDataAccess).save(any(Task.class));
+
+        assertThatThrownBy(() -> taskLogic.save(1, "Task 1", 2, loginUser)).isInstanceOf(IllegalStateException.class);
+        verify(logDataAccess, never()).save(any(Log.class));
+
+        // 保存できなかったタスクコードは、もう一度使える
+        taskLogic.save(1, "Task 1", 2, loginUser);
+        verify(logDataAccess).save(any(Log.class));
+    }
+
+    @Test
+    public void testSaveAllocatesCode() throws AppException {
+        User repUser = new User(2, "Alice", "", "");
+        User loginUser = new User(1, "John", "", "");
+        when(userDataAccess.findByCode(2)).thenReturn(repUser);
+        when(taskDataAccess.findAll()).thenReturn(List.of(new Task(3, "Task 3", 0, repUser)));
+
+        int first = taskLogic.save("Task 4", 2, loginUser);
+        int second = taskLogic.save("Task 5", 2, loginUser);
+
+        assertThat(first).isEqualTo(4);
+        assertThat(second).isEqualTo(5);
+        verify(taskDataAccess, times(2)).save(any(Task.class));
+    }
+
     @Tag("Q4")
     @Test
     public void testChangeStatus() throws AppException {
@@ -104,6 +147,34 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testChangeStatusRetriesStaleUpdate() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        User repUser = new User(2, "Alice", "", "");
+        when(taskDataAccess.findByCode(1)).thenReturn(new Task(1, "Task 1", 0, repUser, 3),
+                new Task(1, "Task 1", 0, repUser, 4));
+        doThrow(new StaleTaskException(1, 3, 4)).doNothing().when(taskDataAccess).update(any(Task.class));
+
+        taskLogic.changeStatus(1, 1, loginUser);
+
+        verify(taskDataAccess, times(2)).update(any(Task.class));
+        verify(taskDataAccess).update(argThat(task -> task.getVersion() == 4 && task.getStatus() == 1));
+        verify(logDataAccess, times(1)).save(any(Log.class));
+    }
+
+    @Test
+    public void testChangeStatusRevalidatesAfterConflict() {
+        User loginUser = new User(1, "John", "", "");
+        User repUser = new User(2, "Alice", "", "");
+        // 競合した更新で、既に同じステータスに変更されている
+        when(taskDataAccess.findByCode(1)).thenReturn(new Task(1, "Task 1", 0, repUser, 0),
+                new Task(1, "Task 1", 1, repUser, 1));
+        doThrow(new StaleTaskException(1, 0, 1)).when(taskDataAccess).update(any(Task.class));
+
+        assertThatThrownBy(() -> taskLogic.changeStatus(1, 1, loginUser)).isInstanceOf(AppException.class);
+        verify(logDataAccess, never()).save(any(Log.class));
+    }
+
     @Tag("Q5")
     @Test
     public void testDelete() throws AppException {
@@ -117,7 +188,7 @@ public class TaskLogicTest {
         when(taskDataAccess.findByCode(code)).thenReturn(task);
 
         // Call the delete method
-        taskLogic.delete(code);
+        assertThat(taskLogic.delete(code)).isSameAs(task);
 
         // Verify that the delete method of taskDataAccess and deleteByTaskCode method of logDataAccess are called
         verify(taskDataAccess).delete(code);
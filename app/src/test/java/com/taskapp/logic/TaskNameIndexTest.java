@@ -0,0 +1,71 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskNameIndexTest {
+    @Mock
+    private TaskRepository taskDataAccess;
+
+    private TaskNameIndex nameIndex;
+
+    private final User user = new User(1, "John", "john@example.com", "password");
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "API設計", 0, user));
+        tasks.add(new Task(2, "設計レビュー", 0, user));
+        tasks.add(new Task(3, "ＡＰＩテスト", 0, user));
+        tasks.add(new Task(4, "Deploy", 0, user));
+        when(taskDataAccess.findAll()).thenReturn(tasks);
+        nameIndex = new TaskNameIndex(taskDataAccess);
+    }
+
+    @Test
+    public void testSearch() {
+        assertThat(codes(nameIndex.search("設計", 10))).containsExactly(1, 2);
+        assertThat(codes(nameIndex.search("api", 10))).containsExactly(1, 3);
+        assertThat(codes(nameIndex.search("p", 10))).containsExactly(1, 3, 4);
+        assertThat(codes(nameIndex.search("設計", 1))).containsExactly(1);
+        assertThat(nameIndex.search("計設", 10)).isEmpty();
+        assertThat(nameIndex.search("", 10)).isEmpty();
+    }
+
+    @Test
+    public void testSearchPrefix() {
+        assertThat(codes(nameIndex.searchPrefix("ap", 10))).containsExactly(1, 3);
+        assertThat(codes(nameIndex.searchPrefix("設計", 10))).containsExactly(2);
+        assertThat(nameIndex.searchPrefix("レビュー", 10)).isEmpty();
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        nameIndex.search("設計", 10);
+        nameIndex.put(new Task(5, "DB設計", 0, user));
+        nameIndex.put(new Task(2, "レビュー", 1, user));
+        nameIndex.remove(1);
+
+        assertThat(codes(nameIndex.search("設計", 10))).containsExactly(5);
+        assertThat(nameIndex.search("レビュー", 10)).extracting(Task::getStatus).containsExactly(1);
+        assertThat(nameIndex.size()).isEqualTo(4);
+        verify(taskDataAccess, times(1)).findAll();
+    }
+
+    private List<Integer> codes(List<Task> tasks) {
+        return tasks.stream().map(Task::getCode).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+
+public class WarmUpTest {
+    private static final String TEST_FILE_PATH_TASK = "src/test/resources/test_tasks.csv";
+    private static final String TEST_FILE_PATH_LOG = "src/test/resources/test_logs.csv";
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path tempDir;
+
+    private WarmUp warmUp;
+
+    @BeforeEach
+    public void setUp() {
+        warmUp = newWarmUp();
+    }
+
+    @Test
+    public void testRunFromCsv() {
+        WarmUp.Result result = warmUp.run(null);
+
+        assertThat(result.userCount()).isEqualTo(2);
+        assertThat(result.taskCount()).isEqualTo(4);
+        assertThat(result.logCount()).isEqualTo(7);
+        assertThat(result.restoredCount()).isZero();
+        assertThat(result.violations()).isEmpty();
+    }
+
+    @Test
+    public void testRunFromSnapshot() throws IOException {
+        Path snapshotPath = tempDir.resolve("snapshot.bin");
+        warmUp.writeSnapshot(snapshotPath);
+
+        WarmUp.Result result = newWarmUp().run(snapshotPath);
+
+        assertThat(result.restoredCount()).isEqualTo(3);
+        assertThat(result.taskCount()).isEqualTo(4);
+        assertThat(result.logCount()).isEqualTo(7);
+    }
+
+    private WarmUp newWarmUp() {
+        UserDataAccess userDataAccess = new UserDataAccess(TEST_FILE_PATH_USER);
+        TaskDataAccess taskDataAccess = new TaskDataAccess(TEST_FILE_PATH_TASK, userDataAccess);
+        LogDataAccess logDataAccess = new LogDataAccess(TEST_FILE_PATH_LOG);
+        return new WarmUp(taskDataAccess, logDataAccess, userDataAccess);
+    }
+}
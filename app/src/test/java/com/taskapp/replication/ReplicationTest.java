@@ -0,0 +1,170 @@
+package com.taskapp.replication;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.User;
+
+public class ReplicationTest {
+    @TempDir
+    Path tempDir;
+
+    private final User user = new User(1, "John", "john@example.com", "password");
+
+    private TaskLogic leaderLogic;
+
+    private LogDataAccess leaderLogs;
+
+    private TaskLogic followerLogic;
+
+    private ReplicationLeader leader;
+
+    private ReplicationFollower follower;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path usersPath = tempDir.resolve("users.csv");
+        Files.write(usersPath, List.of("Code,Name,Email,Password", "1,John,john@example.com,password"));
+        UserDataAccess userDataAccess = new UserDataAccess(usersPath.toString());
+        leaderLogs = new LogDataAccess(createFile("leader", "logs.csv", "Task_Code,Change_User_Code,Status,Change_Date"));
+        leaderLogic = new TaskLogic(new TaskDataAccess(createFile("leader", "tasks.csv", "Code,Name,Status,Rep_User_Code"),
+                userDataAccess), leaderLogs, userDataAccess);
+        followerLogic = new TaskLogic(new TaskDataAccess(createFile("follower", "tasks.csv", "Code,Name,Status,Rep_User_Code"),
+                userDataAccess), new LogDataAccess(createFile("follower", "logs.csv", "Task_Code,Change_User_Code,Status,Change_Date")),
+                userDataAccess);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (follower != null) follower.close();
+        if (leader != null) leader.close();
+    }
+
+    @Test
+    public void testSnapshotAndEvents() throws Exception {
+        leaderLogic.save(1, "設計 レビュー", 1, user);
+        leaderLogic.changeStatus(1, 1, user);
+        startLeader(ReplicationLeader.DEFAULT_BACKLOG_SIZE);
+        follower = new ReplicationFollower(loopback(leader.getPort()), followerLogic);
+        follower.start();
+        assertThat(follower.awaitSequence(0, 5000)).isTrue();
+        assertThat(followerLogic.findAll()).extracting(t -> t.getName()).containsExactly("設計 レビュー");
+
+        leaderLogic.save(2, "実装", 1, user);
+        leaderLogic.changeStatus(1, 2, user);
+        leaderLogic.delete(1);
+
+        assertThat(follower.awaitSequence(3, 5000)).isTrue();
+        assertThat(Files.readString(tempDir.resolve("follower/tasks.csv")))
+                .isEqualTo(Files.readString(tempDir.resolve("leader/tasks.csv")));
+        assertThat(Files.readString(tempDir.resolve("follower/logs.csv")))
+                .isEqualTo(Files.readString(tempDir.resolve("leader/logs.csv")));
+    }
+
+    @Test
+    public void testPromoteStopsFollowing() throws Exception {
+        startLeader(ReplicationLeader.DEFAULT_BACKLOG_SIZE);
+        follower = new ReplicationFollower(loopback(leader.getPort()), followerLogic);
+        follower.start();
+        leaderLogic.save(1, "設計", 1, user);
+        assertThat(follower.awaitSequence(1, 5000)).isTrue();
+
+        follower.promote();
+        leaderLogic.save(2, "実装", 1, user);
+        followerLogic.save(3, "昇格後", 1, user);
+
+        assertThat(followerLogic.findAll()).extracting(t -> t.getCode()).containsExactly(1, 3);
+    }
+
+    @Test
+    public void testCloseBeforeStartAndStartTwice() throws Exception {
+        startLeader(ReplicationLeader.DEFAULT_BACKLOG_SIZE);
+        // 開始する前に閉じても、待つスレッドがないためそのまま戻る
+        new ReplicationFollower(loopback(leader.getPort()), followerLogic).close();
+
+        follower = new ReplicationFollower(loopback(leader.getPort()), followerLogic);
+        follower.start();
+        assertThatThrownBy(follower::start).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(leader::start).isInstanceOf(IllegalStateException.class);
+        assertThat(follower.awaitSequence(0, 5000)).isTrue();
+    }
+
+    @Test
+    public void testResumeFromBacklogOrSnapshot() throws Exception {
+        startLeader(2);
+        String epoch;
+        try (Connection connection = new Connection(leader.getPort(), "HELLO - 0")) {
+            String header = connection.in.readLine();
+            assertThat(header).startsWith("SNAPSHOT ").endsWith(" 0 0 0");
+            epoch = header.split(" ")[1];
+        }
+        leaderLogic.save(1, "a", 1, user);
+        leaderLogic.save(2, "b", 1, user);
+        leaderLogic.save(3, "c", 1, user);
+
+        try (Connection connection = new Connection(leader.getPort(), "HELLO " + epoch + " 1")) {
+            assertThat(connection.in.readLine()).isEqualTo("RESUME " + epoch + " 1");
+            assertThat(connection.in.readLine()).startsWith("E 2 C 2 ");
+            assertThat(connection.in.readLine()).startsWith("E 3 C 3 ");
+        }
+        // 保持している2件より前からは再開できないため、スナップショットを送る
+        try (Connection connection = new Connection(leader.getPort(), "HELLO " + epoch + " 0")) {
+            assertThat(connection.in.readLine()).isEqualTo("SNAPSHOT " + epoch + " 3 3 3");
+        }
+    }
+
+    private void startLeader(int backlogSize) throws Exception {
+        leader = new ReplicationLeader(loopback(0), leaderLogic, leaderLogs, backlogSize);
+        leader.start();
+    }
+
+    private String createFile(String directory, String fileName, String header) throws Exception {
+        Path path = tempDir.resolve(directory).resolve(fileName);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, header);
+        return path.toString();
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * HELLOを送ったフォロワー側の接続です。
+     */
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+
+        Connection(int port, String hello) throws Exception {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            out.println(hello);
+        }
+
+        @Override
+        public void close() throws Exception {
+            socket.close();
+        }
+    }
+}
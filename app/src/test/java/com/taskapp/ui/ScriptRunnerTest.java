@@ -0,0 +1,103 @@
+package com.taskapp.ui;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class ScriptRunnerTest {
+    @Mock
+    private UserLogic userLogic;
+
+    @Mock
+    private TaskLogic taskLogic;
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    public void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testRunExecutesCommands() throws Exception {
+        User user = new User(1, "John", "john@example.com", "password");
+        when(userLogic.login("john@example.com", "password")).thenReturn(user);
+        when(taskLogic.save(any(String.class), anyInt(), any(User.class))).thenReturn(7);
+        when(taskLogic.delete(5)).thenReturn(new Task(5, "new task", 2, user));
+        String script = String.join("\n",
+                "# コメント",
+                "login john@example.com password",
+                "",
+                "create 5 1 new task",
+                "create auto 1 next",
+                "status 5 1",
+                "delete 5",
+                "list");
+
+        ScriptRunner.Result result = new ScriptRunner(
+                new BufferedReader(new StringReader(script)), userLogic, taskLogic).run();
+
+        assertThat(result.executed()).isEqualTo(6);
+        assertThat(result.failed()).isEqualTo(0);
+        verify(userLogic, times(1)).login("john@example.com", "password");
+        verify(taskLogic).save(5, "new task", 1, user);
+        verify(taskLogic).save("next", 1, user);
+        verify(taskLogic).changeStatus(5, 1, user);
+        verify(taskLogic).delete(5);
+        verify(taskLogic).showAll(user);
+        assertThat(outContent.toString())
+                .contains("タスクコード7で登録しました。")
+                .contains("new taskの削除が完了しました。");
+    }
+
+    @Test
+    public void testRunContinuesAfterFailure() throws Exception {
+        User user = new User(1, "John", "john@example.com", "password");
+        when(userLogic.login("john@example.com", "password")).thenReturn(user);
+        doThrow(new AppException("存在するタスクコードを入力してください")).when(taskLogic).delete(9);
+        when(taskLogic.delete(3)).thenReturn(new Task(3, "taskC", 2, user));
+        String script = String.join("\n",
+                "list",
+                "login john@example.com password",
+                "delete 9",
+                "status x 2",
+                "unknown",
+                "delete 3");
+
+        ScriptRunner.Result result = new ScriptRunner(
+                new BufferedReader(new StringReader(script)), userLogic, taskLogic).run();
+
+        assertThat(result.executed()).isEqualTo(6);
+        assertThat(result.failed()).isEqualTo(4);
+        verify(taskLogic).delete(3);
+        verify(taskLogic, never()).showAll(any(User.class));
+        assertThat(outContent.toString())
+                .contains("先にloginでログインしてください")
+                .contains("存在するタスクコードを入力してください")
+                .contains("不明なコマンドです: unknown");
+    }
+}
@@ -16,6 +16,7 @@ import org.mockito.MockitoAnnotations;
 
 import com.taskapp.logic.TaskLogic;
 import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
 public class TaskUITest {
@@ -110,11 +111,15 @@ public class TaskUITest {
     @Test
     public void testInputDeleteInformation() throws Exception {
         when(reader.readLine()).thenReturn("1");
-        doNothing().when(taskLogic).delete(1);
+        when(taskLogic.delete(1)).thenReturn(new Task(1, "taskA", 2, null));
         taskUI.inputDeleteInformation();
 
         verify(taskLogic, times(1)).delete(1);
-        String expectedMessage = "削除するタスクコードを入力してください：";
+        verify(taskLogic, never()).findByCode(1);
+        String[] expectedMessage = {
+                "削除するタスクコードを入力してください：",
+                "taskAの削除が完了しました。"
+        };
         assertThat(outContent.toString()).contains(expectedMessage);
     }
 
@@ -0,0 +1,43 @@
+package com.taskapp.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class IntHashSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        IntHashSet set = new IntHashSet();
+
+        assertThat(set.add(1)).isTrue();
+        assertThat(set.add(1)).isFalse();
+        assertThat(set.add(Integer.MIN_VALUE)).isTrue();
+        assertThat(set.contains(1)).isTrue();
+        assertThat(set.contains(2)).isFalse();
+        assertThat(set.size()).isEqualTo(2);
+
+        assertThat(set.remove(1)).isTrue();
+        assertThat(set.remove(1)).isFalse();
+        assertThat(set.contains(1)).isFalse();
+        assertThat(set.contains(Integer.MIN_VALUE)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGrowAndRemoveKeepsOtherValues() {
+        IntHashSet set = new IntHashSet(4);
+        for (int i = 0; i < 10_000; i++) {
+            set.add(i * 31);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            set.remove(i * 31);
+        }
+
+        assertThat(set.size()).isEqualTo(5_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(set.contains(i * 31)).isEqualTo(i % 2 == 1);
+        }
+        assertThat(set.toArray()).hasSize(5_000);
+    }
+}